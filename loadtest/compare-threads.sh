@@ -0,0 +1,43 @@
+#!/usr/bin/env bash
+# Porovnání propustnosti a latence: platformní vlákna (výchozí) vs. virtuální vlákna s DB bulkheadem.
+# Předpoklady: běžící PostgreSQL dle application.properties, k6 v PATH, sestavený jar (./gradlew bootJar).
+#
+#   loadtest/compare-threads.sh [RATE] [DURATION]
+#
+# Výsledky: build/loadtest/{platform,virtual}.json (k6 summary) a souhrn p50/p99/RPS na stdout.
+set -euo pipefail
+
+RATE="${1:-400}"
+DURATION="${2:-2m}"
+ROOT="$(cd "$(dirname "$0")/.." && pwd)"
+OUT="$ROOT/build/loadtest"
+JAR="$(ls "$ROOT"/build/libs/*-SNAPSHOT.jar | grep -v plain | head -1)"
+mkdir -p "$OUT"
+
+run() {
+    local name="$1" virtual="$2"
+    java -jar "$JAR" --spring.threads.virtual.enabled="$virtual" --server.port=18080 > "$OUT/$name.log" 2>&1 &
+    local pid=$!
+    until curl -sf http://localhost:18080/actuator/health > /dev/null; do sleep 1; done
+
+    # Zahřátí JIT a cache, výsledky se nepočítají
+    k6 run -q -e BASE_URL=http://localhost:18080 -e RATE="$RATE" -e DURATION=30s "$ROOT/loadtest/quote-load.js" > /dev/null || true
+    k6 run -q -e BASE_URL=http://localhost:18080 -e RATE="$RATE" -e DURATION="$DURATION" \
+        --summary-export "$OUT/$name.json" "$ROOT/loadtest/quote-load.js" || true
+
+    kill "$pid"
+    wait "$pid" 2>/dev/null || true
+}
+
+run platform false
+run virtual true
+
+for name in platform virtual; do
+    python3 - "$name" "$OUT/$name.json" <<'PY'
+import json, sys
+m = json.load(open(sys.argv[2]))["metrics"]
+d = m["http_req_duration"]
+print(f"{sys.argv[1]:>9}: {m['http_reqs']['rate']:8.1f} req/s  p50 {d['med']:7.1f} ms  p99 {d['p(99)']:7.1f} ms  "
+      f"failed {m['http_req_failed']['value'] * 100:.2f} %")
+PY
+done
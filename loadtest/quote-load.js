@@ -0,0 +1,68 @@
+// Zátěžový test výpočtu pojistného (k6, https://k6.io).
+//
+//   k6 run -e BASE_URL=http://localhost:8080 -e RATE=400 loadtest/quote-load.js
+//
+// Konstantní příchozí rychlost (open model) - při zahlcení serveru se neschová latence
+// za zpomalené klienty. Poměr: 80 % /calculate (zápis), 20 % /quote (bez databáze).
+// Porovnání platformních a virtuálních vláken spouští loadtest/compare-threads.sh.
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const RATE = parseInt(__ENV.RATE || '400');
+const DURATION = __ENV.DURATION || '2m';
+// Počet různých klientů - malé číslo testuje cache klientů, velké zápis nových klientů
+const CLIENTS = parseInt(__ENV.CLIENTS || '5000');
+
+const ACTIVITIES = ['62.01 Programování', '41.20 Výstavba budov', '56.10 Stravování v restauracích', '69.20 Účetnictví'];
+const PERFORMANCES = ['BELOW_AVERAGE', 'AVERAGE', 'ABOVE_AVERAGE'];
+
+export const options = {
+    scenarios: {
+        quotes: {
+            executor: 'constant-arrival-rate',
+            rate: RATE,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: 200,
+            maxVUs: 2000,
+        },
+    },
+    thresholds: {
+        http_req_failed: ['rate<0.01'],
+        'http_req_duration{endpoint:calculate}': ['p(99)<500'],
+        'http_req_duration{endpoint:quote}': ['p(99)<100'],
+    },
+    summaryTrendStats: ['avg', 'med', 'p(90)', 'p(99)', 'max'],
+};
+
+function randomRequest() {
+    const clientNo = Math.floor(Math.random() * CLIENTS);
+    const turnoverInThousands = 50000 + Math.floor(Math.random() * 950000);
+    return {
+        activity: ACTIVITIES[clientNo % ACTIVITIES.length],
+        turnoverInThousands: turnoverInThousands,
+        limitInMillions: 1 + Math.floor(Math.random() * 50),
+        financialPerformance: PERFORMANCES[clientNo % PERFORMANCES.length],
+        brokerCommissionPercentage: 10,
+        client: {
+            name: `Loadtest ${clientNo} s.r.o.`,
+            street: 'Národní',
+            houseNumber: String(1 + clientNo % 200),
+            orientationNumber: null,
+            city: 'Praha',
+            postcode: '11000',
+            state: 'CZ',
+            ico: String(10000000 + clientNo),
+        },
+    };
+}
+
+export default function () {
+    const endpoint = Math.random() < 0.8 ? 'calculate' : 'quote';
+    const res = http.post(`${BASE_URL}/api/risks/${endpoint}`, JSON.stringify(randomRequest()), {
+        headers: { 'Content-Type': 'application/json' },
+        tags: { endpoint: endpoint },
+    });
+    check(res, { 'status 200': (r) => r.status === 200 });
+}
@@ -0,0 +1,139 @@
+package cz.michalmusil.dnoratingsystem.archive;
+
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateView;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.service.OfflineRating;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Agregace celého archivu (jeden průchod všemi řádky) podle dimenze. Pro srovnání stejná agregace
+ * činností nad řádky na haldě s BigDecimal částkami (tvar dat, jaký dává načtení entit nebo projekcí).
+ * Setup ověří, že archiv dává stejné součty jako srovnávací výpočet.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+public class ArchiveScanBenchmark {
+
+    private static final int SEGMENT_ROWS = 1_000_000;
+    private static final String[] ACTIVITIES = {"62.01", "64.19", "41.20", "47.11", "69.20", "70.22", "86.10", "49.41"};
+
+    @Param({"5000000"})
+    public int rows;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private Path directory;
+    private RiskArchive archive;
+    private ForkJoinPool pool;
+    private ArchiveGrouping turnoverBand;
+    private List<HeapRow> heapRows;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("archive-bench");
+        archive = new RiskArchive(directory);
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        CompiledTariff tariff = OfflineRating.tariffRegistry().current();
+        turnoverBand = ArchiveGrouping.byTurnoverBand(tariff.getTurnoverThresholds(), tariff.getTurnoverCap());
+
+        SplittableRandom random = new SplittableRandom(42);
+        FinancialPerformance[] performances = FinancialPerformance.values();
+        LocalDateTime date = LocalDateTime.of(2015, 1, 1, 8, 0);
+        LocalDateTime segmentFrom = date;
+        heapRows = new ArrayList<>(rows);
+        ArchiveSegment.Builder builder = ArchiveSegment.builder();
+        for (int i = 0; i < rows; i++) {
+            date = date.plusSeconds(random.nextInt(120));
+            String activity = ACTIVITIES[random.nextInt(ACTIVITIES.length)];
+            BigDecimal turnover = BigDecimal.valueOf(random.nextLong(1_000_000L, 1_200_000_000_00L), 2);
+            BigDecimal limitAmount = BigDecimal.valueOf(1_000_000L * (1 + random.nextInt(50)));
+            BigDecimal nettoPremium = BigDecimal.valueOf(random.nextLong(100_000, 10_000_000), 2);
+            builder.add(i + 1, random.nextLong(1, 100_000), date, activity,
+                    performances[random.nextInt(performances.length)].name(), turnover, limitAmount, nettoPremium);
+            heapRows.add(new HeapRow(activity, limitAmount, nettoPremium));
+            if (builder.size() == SEGMENT_ROWS) {
+                LocalDateTime segmentTo = date.plusNanos(1_000);
+                archive.append(builder, segmentFrom, segmentTo);
+                builder = ArchiveSegment.builder();
+                segmentFrom = segmentTo;
+            }
+        }
+        if (builder.size() > 0) {
+            archive.append(builder, segmentFrom, date.plusNanos(1_000));
+        }
+
+        Map<String, String> expected = new TreeMap<>(heapByActivity());
+        Map<String, String> actual = new TreeMap<>(scanByActivity().stream().collect(Collectors.toMap(
+                PortfolioAggregateView::getGroupKey, v -> v.getQuoteCount() + "/" + v.getTotalNettoPremium() + "/" + v.getTotalLimitAmount())));
+        if (!expected.equals(actual)) {
+            throw new IllegalStateException("Archive aggregate differs: " + expected + " vs " + actual);
+        }
+        System.out.printf("%narchive: %d segments, %d MB%n", archive.segments().size(),
+                archive.segments().stream().mapToLong(ArchiveSegment::getSizeBytes).sum() >> 20);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        pool.shutdownNow();
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+        Files.delete(directory);
+    }
+
+    @Benchmark
+    public List<PortfolioAggregateView> scanByActivity() {
+        return archive.aggregate(ArchiveGrouping.byActivity(), null, null, pool);
+    }
+
+    @Benchmark
+    public List<PortfolioAggregateView> scanByMonth() {
+        return archive.aggregate(ArchiveGrouping.byMonth(), null, null, pool);
+    }
+
+    @Benchmark
+    public List<PortfolioAggregateView> scanByTurnoverBand() {
+        return archive.aggregate(turnoverBand, null, null, pool);
+    }
+
+    @Benchmark
+    public Map<String, String> heapByActivity() {
+        return pool.submit(() -> heapRows.parallelStream().collect(Collectors.groupingBy(HeapRow::activity,
+                Collectors.collectingAndThen(Collectors.toList(), group -> group.size() + "/"
+                        + group.stream().map(HeapRow::nettoPremium).reduce(BigDecimal.ZERO, BigDecimal::add) + "/"
+                        + group.stream().map(HeapRow::limitAmount).reduce(BigDecimal.ZERO, BigDecimal::add).setScale(2)))))
+                .join();
+    }
+
+    private record HeapRow(String activity, BigDecimal limitAmount, BigDecimal nettoPremium) {
+    }
+}
@@ -0,0 +1,69 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON (de)serializace request a response DTO se stejným nastavením ObjectMapperu,
+ * jaké používá Spring MVC.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class JsonSerializationBenchmark {
+
+    private ObjectReader requestReader;
+    private ObjectWriter responseWriter;
+    private byte[] requestJson;
+    private RiskResponseDto response;
+
+    @Setup
+    public void setUp() throws JsonProcessingException {
+        ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+        requestReader = objectMapper.readerFor(RiskRequestDto.class);
+        responseWriter = objectMapper.writerFor(RiskResponseDto.class);
+
+        ClientRequestDto client = new ClientRequestDto("Benchmark s.r.o.", "Národní", "1", null,
+                "Praha", "11000", "CZ", "12345678");
+        RiskRequestDto request = new RiskRequestDto("62.01 Programování", new BigDecimal("300000"), new BigDecimal("25"),
+                FinancialPerformance.AVERAGE, new BigDecimal("10"), client);
+        requestJson = objectMapper.writeValueAsBytes(request);
+
+        response = new RiskResponseDto();
+        response.setId(1000L);
+        response.setActivity(request.getActivity());
+        response.setTurnoverInThousands(new BigDecimal("300000.00"));
+        response.setLimitInMillions(new BigDecimal("25.00"));
+        response.setFinancialPerformance(FinancialPerformance.AVERAGE);
+        response.setBrokerCommissionPercentage(new BigDecimal("10"));
+        response.setNettoPremium(new BigDecimal("29767.50"));
+        response.setTariffVersion("2025-06");
+        response.setClientId(42L);
+        response.setClientIco(client.getIco());
+        response.setClientName(client.getName());
+    }
+
+    @Benchmark
+    public RiskRequestDto readRequest() throws Exception {
+        return requestReader.readValue(requestJson);
+    }
+
+    @Benchmark
+    public byte[] writeResponse() throws JsonProcessingException {
+        return responseWriter.writeValueAsBytes(response);
+    }
+}
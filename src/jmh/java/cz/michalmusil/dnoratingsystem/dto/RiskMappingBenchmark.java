@@ -0,0 +1,62 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapování uloženého rizika na RiskResponseDto - z entity (výpis) a z ploché projekce (export).
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class RiskMappingBenchmark {
+
+    private Risk risk;
+    private RiskRowDto row;
+
+    @Setup
+    public void setUp() {
+        Client client = new Client();
+        client.setId(42L);
+        client.setIco("12345678");
+        client.setName("Benchmark s.r.o.");
+
+        risk = new Risk();
+        risk.setId(1000L);
+        risk.setClient(client);
+        risk.setActivity("62.01 Programování");
+        risk.setTurnover(new BigDecimal("300000000.00"));
+        risk.setLimitAmount(new BigDecimal("25000000.00"));
+        risk.setFinancialPerformance(FinancialPerformance.AVERAGE);
+        risk.setBrokerCommissionPercentage(new BigDecimal("10.00000"));
+        risk.setNettoPremium(new BigDecimal("29767.50"));
+        risk.setTariffVersion("2025-06");
+        risk.setCalculationDate(LocalDateTime.of(2025, 6, 1, 12, 0));
+
+        row = new RiskRowDto(risk.getId(), risk.getActivity(), risk.getTurnover(), risk.getLimitAmount(),
+                risk.getFinancialPerformance(), risk.getBrokerCommissionPercentage(), risk.getNettoPremium(),
+                risk.getTariffVersion(), risk.getCalculationDate(), client.getId(), client.getIco(), client.getName());
+    }
+
+    @Benchmark
+    public RiskResponseDto fromEntity() {
+        return RiskResponseDto.fromEntity(risk);
+    }
+
+    @Benchmark
+    public RiskResponseDto fromRow() {
+        return RiskResponseDto.fromRow(row);
+    }
+}
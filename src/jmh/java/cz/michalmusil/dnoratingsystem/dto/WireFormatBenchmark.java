@@ -0,0 +1,101 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * JSON vs. CBOR pro hromadné endpointy - zápis stránky výpisu rizik (RiskResponseDto)
+ * a čtení dávky požadavků (RiskRequestDto s klientem). Výsledek je čas na jednu položku.
+ * Velikosti zpráv vypisuje setup (řádek "wire size").
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class WireFormatBenchmark {
+
+    private static final int ITEMS = 1000;
+    private static final String[] ACTIVITIES = {"62.01 Programování", "64.19 Ostatní peněžní zprostředkování",
+            "41.20 Výstavba bytových a nebytových budov", "47.11 Maloobchod v nespecializovaných prodejnách"};
+
+    @Param({"json", "cbor"})
+    public String format;
+
+    private ObjectWriter listingWriter;
+    private ObjectReader batchReader;
+    private List<RiskResponseDto> listing;
+    private byte[] batch;
+
+    @Setup
+    public void setUp() throws Exception {
+        // Stejný builder jako ve Spring MVC (JSON) a v CborConfig (CBOR)
+        ObjectMapper mapper = "cbor".equals(format)
+                ? Jackson2ObjectMapperBuilder.json().factory(new CBORFactory()).build()
+                : Jackson2ObjectMapperBuilder.json().build();
+        listingWriter = mapper.writerFor(new TypeReference<List<RiskResponseDto>>() { });
+        batchReader = mapper.readerFor(new TypeReference<List<RiskRequestDto>>() { });
+
+        SplittableRandom random = new SplittableRandom(42);
+        FinancialPerformance[] performances = FinancialPerformance.values();
+        List<RiskRequestDto> requests = new ArrayList<>(ITEMS);
+        listing = new ArrayList<>(ITEMS);
+        for (int i = 0; i < ITEMS; i++) {
+            String ico = String.valueOf(10_000_000 + random.nextInt(89_999_999));
+            ClientRequestDto client = new ClientRequestDto("Klient " + i + " s.r.o.", "Národní", String.valueOf(1 + random.nextInt(200)),
+                    random.nextBoolean() ? String.valueOf(1 + random.nextInt(30)) : null, "Praha", "11000", "CZ", ico);
+            BigDecimal turnover = BigDecimal.valueOf(random.nextInt(1_000, 1_200_000));
+            BigDecimal limit = BigDecimal.valueOf(1 + random.nextInt(50));
+            FinancialPerformance performance = performances[random.nextInt(performances.length)];
+            BigDecimal commission = BigDecimal.valueOf(random.nextInt(0, 25));
+            requests.add(new RiskRequestDto(ACTIVITIES[i % ACTIVITIES.length], turnover, limit, performance, commission, client));
+
+            RiskResponseDto response = new RiskResponseDto();
+            response.setId(1_000_000L + i);
+            response.setActivity(ACTIVITIES[i % ACTIVITIES.length]);
+            response.setTurnoverInThousands(turnover.setScale(2));
+            response.setLimitInMillions(limit.setScale(2));
+            response.setFinancialPerformance(performance);
+            response.setBrokerCommissionPercentage(commission);
+            response.setNettoPremium(BigDecimal.valueOf(random.nextLong(100_000, 10_000_000), 2));
+            response.setTariffVersion("2025-06");
+            response.setClientId(50_000L + i);
+            response.setClientIco(ico);
+            response.setClientName(client.getName());
+            listing.add(response);
+        }
+        batch = mapper.writeValueAsBytes(requests);
+        System.out.printf("%nwire size (%s): listing %d B/item, batch %d B/item%n",
+                format, listingWriter.writeValueAsBytes(listing).length / ITEMS, batch.length / ITEMS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public byte[] writeListing() throws Exception {
+        return listingWriter.writeValueAsBytes(listing);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ITEMS)
+    public List<RiskRequestDto> readBatch() throws Exception {
+        return batchReader.readValue(batch);
+    }
+}
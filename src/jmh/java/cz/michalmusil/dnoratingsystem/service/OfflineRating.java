@@ -0,0 +1,66 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalogRegistry;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.repository.ClientRepository;
+import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
+import cz.michalmusil.dnoratingsystem.tariff.TariffRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.core.io.ClassPathResource;
+
+import java.lang.reflect.Proxy;
+import java.math.BigDecimal;
+import java.time.Duration;
+
+/**
+ * Sestavení výpočtu pojistného pro benchmarky bez Springu a bez databáze.
+ * Repository jsou nahrazená proxy, která při jakémkoli volání vyhodí výjimku -
+ * benchmark tak zaručeně měří jen výpočet a běží offline.
+ */
+public final class OfflineRating {
+
+    private OfflineRating() {
+    }
+
+    public static TariffRegistry tariffRegistry() {
+        return new TariffRegistry(new ClassPathResource("tariff/tariff.json"), new ObjectMapper());
+    }
+
+    public static ActivityCatalogRegistry activityCatalogRegistry() {
+        return new ActivityCatalogRegistry(new ClassPathResource("activities/activity-catalog.csv"), BigDecimal.ONE);
+    }
+
+    public static RatingService ratingService(boolean quoteCacheEnabled) {
+        ClientService clientService = new ClientService(offline(ClientRepository.class), 1);
+        QuoteCache quoteCache = new QuoteCache(quoteCacheEnabled, 50_000, Duration.ZERO);
+        return new RatingService(offline(RiskRepository.class), clientService,
+                new PremiumEngine(tariffRegistry()), quoteCache, activityCatalogRegistry(),
+                new RatingMetrics(new SimpleMeterRegistry()),
+                null, null); // Zápis rizika (ID allocator, write-behind) quote() nepoužívá
+    }
+
+    public static RiskRequestDto request(String turnoverInThousands, String limitInMillions) {
+        ClientRequestDto client = new ClientRequestDto("Benchmark s.r.o.", "Národní", "1", null,
+                "Praha", "11000", "CZ", "12345678");
+        return new RiskRequestDto("62.01 Programování", new BigDecimal(turnoverInThousands), new BigDecimal(limitInMillions),
+                FinancialPerformance.AVERAGE, new BigDecimal("10"), client);
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T offline(Class<T> type) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                return switch (method.getName()) {
+                    case "hashCode" -> System.identityHashCode(proxy);
+                    case "equals" -> proxy == args[0];
+                    default -> "Offline" + type.getSimpleName();
+                };
+            }
+            throw new UnsupportedOperationException("Benchmark must not access " + type.getSimpleName() + "." + method.getName());
+        });
+    }
+}
@@ -0,0 +1,88 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Výpočet pojistného pro jednotlivé kombinace obratového pásma a limitu:
+ * samotné jádro nad předpočítaným sazebníkem, původní smyčka přes miliony
+ * a celé {@link RatingService#quote} s vypnutou i zapnutou cache výsledků.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PremiumCalculationBenchmark {
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    // Obrat v tisících Kč - po jedné hodnotě z každého obratového pásma
+    @Param({"50000", "300000", "600000", "900000"})
+    public String turnoverInThousands;
+
+    // Limit v milionech - začátek, hranice a konec pásem limitu
+    @Param({"1", "10", "11", "25", "41", "50"})
+    public String limitInMillions;
+
+    private PremiumEngine premiumEngine;
+    private CompiledTariff tariff;
+    private RatingService uncachedRatingService;
+    private RatingService cachedRatingService;
+    private RiskRequestDto request;
+    private BigDecimal limitAmount;
+    private BigDecimal effectiveTurnover;
+    private BigDecimal activityIndex;
+
+    @Setup
+    public void setUp() {
+        premiumEngine = new PremiumEngine(OfflineRating.tariffRegistry());
+        tariff = premiumEngine.currentTariff();
+        uncachedRatingService = OfflineRating.ratingService(false);
+        cachedRatingService = OfflineRating.ratingService(true);
+        request = OfflineRating.request(turnoverInThousands, limitInMillions);
+        limitAmount = request.getLimitInFullAmount();
+        effectiveTurnover = request.getTurnoverInFullAmount().min(tariff.getTurnoverCap());
+        activityIndex = OfflineRating.activityCatalogRegistry().current().activityIndex(request.getActivity());
+    }
+
+    @Benchmark
+    public BigDecimal engine() {
+        return premiumEngine.calculateNettoPremium(tariff, limitAmount, effectiveTurnover,
+                FinancialPerformance.AVERAGE, activityIndex, request.getBrokerCommissionPercentage());
+    }
+
+    @Benchmark
+    public BigDecimal referenceLoop() {
+        BigDecimal limitPremium = PremiumEngine.referenceLimitPremium(limitAmount,
+                tariff.getTurnoverCoefficient(tariff.turnoverBand(effectiveTurnover)));
+        BigDecimal brokerCommissionFactor = BigDecimal.ONE.subtract(
+                request.getBrokerCommissionPercentage().divide(ONE_HUNDRED, 4, RoundingMode.HALF_UP));
+        return limitPremium.multiply(tariff.financialPerformanceFactor(FinancialPerformance.AVERAGE))
+                .multiply(activityIndex)
+                .multiply(brokerCommissionFactor)
+                .setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @Benchmark
+    public RiskResponseDto quoteUncached() {
+        return uncachedRatingService.quote(request);
+    }
+
+    @Benchmark
+    public RiskResponseDto quoteCached() {
+        return cachedRatingService.quote(request);
+    }
+}
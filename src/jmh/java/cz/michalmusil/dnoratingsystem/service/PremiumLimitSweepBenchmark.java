@@ -0,0 +1,89 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.SweepRangeDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepRequestDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Průchod celým rozsahem limitu 0-50M po milionech pro každé obratové pásmo.
+ * Výsledek je průměrný čas na jeden výpočet. {@code sweepService} počítá totéž přes PremiumSweepService
+ * (jeden inkrementální průchod limity), ostatní varianty počítají každý limit zvlášť.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class PremiumLimitSweepBenchmark {
+
+    private static final int MAX_LIMIT_MILLIONS = 50;
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+    private static final BigDecimal COMMISSION = new BigDecimal("10");
+
+    // Obrat v Kč - po jedné hodnotě z každého obratového pásma (všechny >= 50M, aby prošel každý limit)
+    @Param({"60000000", "300000000", "600000000", "900000000"})
+    public String turnover;
+
+    private PremiumEngine premiumEngine;
+    private CompiledTariff tariff;
+    private BigDecimal effectiveTurnover;
+    private BigDecimal[] limitAmounts;
+    private PremiumSweepService premiumSweepService;
+    private SweepRequestDto sweepRequest;
+
+    @Setup
+    public void setUp() {
+        premiumEngine = new PremiumEngine(OfflineRating.tariffRegistry());
+        tariff = premiumEngine.currentTariff();
+        effectiveTurnover = new BigDecimal(turnover).min(tariff.getTurnoverCap());
+        limitAmounts = new BigDecimal[MAX_LIMIT_MILLIONS + 1];
+        for (int m = 0; m <= MAX_LIMIT_MILLIONS; m++) {
+            limitAmounts[m] = BigDecimal.valueOf(m).multiply(ONE_MILLION);
+        }
+        premiumSweepService = new PremiumSweepService(premiumEngine, OfflineRating.activityCatalogRegistry(),
+                100_000, Integer.MAX_VALUE);
+        BigDecimal turnoverInThousands = new BigDecimal(turnover).divide(new BigDecimal("1000"));
+        sweepRequest = new SweepRequestDto("62.01 Programování",
+                new SweepRangeDto(BigDecimal.ZERO, BigDecimal.valueOf(MAX_LIMIT_MILLIONS), BigDecimal.ONE),
+                new SweepRangeDto(turnoverInThousands, turnoverInThousands, null),
+                List.of(FinancialPerformance.AVERAGE),
+                new SweepRangeDto(COMMISSION, COMMISSION, null));
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MAX_LIMIT_MILLIONS + 1)
+    public void engine(Blackhole blackhole) {
+        for (BigDecimal limitAmount : limitAmounts) {
+            blackhole.consume(premiumEngine.calculateNettoPremium(tariff, limitAmount, effectiveTurnover,
+                    FinancialPerformance.AVERAGE, BigDecimal.ONE, COMMISSION));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MAX_LIMIT_MILLIONS + 1)
+    public void referenceLoop(Blackhole blackhole) {
+        BigDecimal coefficient = tariff.getTurnoverCoefficient(tariff.turnoverBand(effectiveTurnover));
+        for (BigDecimal limitAmount : limitAmounts) {
+            blackhole.consume(PremiumEngine.referenceLimitPremium(limitAmount, coefficient));
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MAX_LIMIT_MILLIONS + 1)
+    public Object sweepService() {
+        return premiumSweepService.sweep(sweepRequest);
+    }
+}
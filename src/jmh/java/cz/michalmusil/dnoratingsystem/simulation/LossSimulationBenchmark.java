@@ -0,0 +1,69 @@
+package cz.michalmusil.dnoratingsystem.simulation;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.service.OfflineRating;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.math.BigDecimal;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Propustnost simulace škod (scénáře za sekundu) nad syntetickým portfoliem.
+ * Škálování s počtem jader: porovnat {@code parallelism=1} s hodnotou rovnou počtu jader
+ * (0 = všechna jádra), výsledky simulace jsou pro oba běhy shodné.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+public class LossSimulationBenchmark {
+
+    private static final int TRIALS = 100_000;
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+
+    @Param({"10000", "100000"})
+    public int portfolioSize;
+
+    @Param({"1", "0"})
+    public int parallelism;
+
+    private PortfolioArrays portfolio;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setUp() {
+        CompiledTariff tariff = OfflineRating.tariffRegistry().current();
+        PortfolioArrays.Builder builder = PortfolioArrays.builder(tariff, new LossModel(0.02, 0.25, 1.2));
+        SplittableRandom random = new SplittableRandom(42);
+        FinancialPerformance[] performances = FinancialPerformance.values();
+        for (int i = 0; i < portfolioSize; i++) {
+            builder.add(BigDecimal.valueOf(1 + random.nextInt(50)).multiply(ONE_MILLION),
+                    BigDecimal.valueOf(random.nextLong(10_000_000L, 1_200_000_000L)),
+                    performances[random.nextInt(performances.length)]);
+        }
+        portfolio = builder.build();
+        pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(TRIALS)
+    public double[] simulate() {
+        return LossSimulator.simulate(portfolio, TRIALS, 7, pool);
+    }
+}
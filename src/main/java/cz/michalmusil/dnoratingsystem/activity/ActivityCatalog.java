@@ -0,0 +1,226 @@
+package cz.michalmusil.dnoratingsystem.activity;
+
+import cz.michalmusil.dnoratingsystem.model.ActivityType;
+
+import java.math.BigDecimal;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Neměnný, v paměti předpočítaný číselník činností.
+ * Každý kód má už při načtení dopočítaný efektivní index (vlastní nebo zděděný od nadřazeného kódu),
+ * vyhledání indexu je tedy jen několik dotazů do hash mapy po zkracování kódu.
+ * Pro našeptávání jsou kódy i jednotlivá slova názvů v seřazených polích,
+ * prefixový dotaz je binární vyhledání začátku rozsahu.
+ */
+public final class ActivityCatalog {
+
+    // Kód činnosti na začátku textu aktivity, např. "62.01 Programování"
+    private static final Pattern LEADING_CODE = Pattern.compile("^\\s*(\\d{2}(?:\\.\\d{1,2})?)\\b");
+    private static final Pattern WORD_SEPARATOR = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final String version;
+    private final BigDecimal defaultIndex;
+    private final Map<String, ActivityType> byCode;
+    private final Map<String, ActivityType> byName;
+    // Seřazené kódy a jim odpovídající činnosti
+    private final String[] sortedCodes;
+    private final ActivityType[] sortedByCode;
+    // Seřazená normalizovaná slova názvů a index činnosti v sortedByCode, ke které slovo patří
+    private final String[] nameTokens;
+    private final int[] nameTokenActivities;
+
+    private ActivityCatalog(String version, BigDecimal defaultIndex, List<ActivityType> activities) {
+        this.version = version;
+        this.defaultIndex = defaultIndex;
+
+        this.sortedByCode = activities.stream()
+                .sorted(Comparator.comparing(ActivityType::code))
+                .toArray(ActivityType[]::new);
+        this.sortedCodes = Arrays.stream(sortedByCode).map(ActivityType::code).toArray(String[]::new);
+
+        this.byCode = new HashMap<>();
+        this.byName = new HashMap<>();
+        List<Map.Entry<String, Integer>> tokens = new ArrayList<>();
+        for (int i = 0; i < sortedByCode.length; i++) {
+            ActivityType activity = sortedByCode[i];
+            byCode.put(activity.code(), activity);
+            byName.putIfAbsent(normalize(activity.name()), activity);
+            for (String token : WORD_SEPARATOR.split(normalize(activity.name()))) {
+                if (!token.isEmpty()) {
+                    tokens.add(Map.entry(token, i));
+                }
+            }
+        }
+        tokens.sort(Map.Entry.comparingByKey());
+        this.nameTokens = new String[tokens.size()];
+        this.nameTokenActivities = new int[tokens.size()];
+        for (int i = 0; i < tokens.size(); i++) {
+            nameTokens[i] = tokens.get(i).getKey();
+            nameTokenActivities[i] = tokens.get(i).getValue();
+        }
+    }
+
+    /**
+     * Načte číselník z řádků ve formátu {@code kód;název;index}. Prázdné řádky a řádky začínající
+     * {@code #} se přeskakují, prázdný index se dědí od nadřazeného kódu.
+     *
+     * @throws IllegalArgumentException pokud je řádek neplatný nebo se kód opakuje.
+     */
+    public static ActivityCatalog parse(String version, List<String> lines, BigDecimal defaultIndex) {
+        Map<String, String> names = new HashMap<>();
+        Map<String, BigDecimal> ownIndexes = new HashMap<>();
+        int lineNumber = 0;
+        for (String line : lines) {
+            lineNumber++;
+            String trimmed = line.strip();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) {
+                continue;
+            }
+            // Název může obsahovat středník - kód je před prvním, index za posledním
+            int first = trimmed.indexOf(';');
+            int last = trimmed.lastIndexOf(';');
+            if (first < 0 || first == last) {
+                throw new IllegalArgumentException("Activity catalog line " + lineNumber + " must have the format code;name;index.");
+            }
+            String code = trimmed.substring(0, first).strip();
+            String name = trimmed.substring(first + 1, last).strip();
+            String index = trimmed.substring(last + 1).strip();
+            if (code.isEmpty() || name.isEmpty()) {
+                throw new IllegalArgumentException("Activity catalog line " + lineNumber + " has an empty code or name.");
+            }
+            if (names.put(code, name) != null) {
+                throw new IllegalArgumentException("Activity catalog line " + lineNumber + " repeats code " + code + ".");
+            }
+            if (!index.isEmpty()) {
+                BigDecimal value = new BigDecimal(index);
+                if (value.signum() <= 0) {
+                    throw new IllegalArgumentException("Activity catalog line " + lineNumber + " must have a positive index.");
+                }
+                ownIndexes.put(code, value);
+            }
+        }
+
+        List<ActivityType> activities = new ArrayList<>(names.size());
+        for (Map.Entry<String, String> entry : names.entrySet()) {
+            activities.add(new ActivityType(entry.getKey(), entry.getValue(), effectiveIndex(entry.getKey(), ownIndexes, defaultIndex)));
+        }
+        return new ActivityCatalog(version, defaultIndex, activities);
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public int size() {
+        return sortedByCode.length;
+    }
+
+    /**
+     * Najde činnost pro text aktivity z požadavku - podle kódu na začátku textu
+     * (nejbližší existující nadřazený kód), případně podle přesného názvu.
+     *
+     * @return Nalezená činnost, nebo null.
+     */
+    public ActivityType resolve(String activity) {
+        if (activity == null) {
+            return null;
+        }
+        Matcher matcher = LEADING_CODE.matcher(activity);
+        if (matcher.find()) {
+            for (String code = matcher.group(1); code != null; code = parentCode(code)) {
+                ActivityType activityType = byCode.get(code);
+                if (activityType != null) {
+                    return activityType;
+                }
+            }
+        }
+        return byName.get(normalize(activity));
+    }
+
+    /**
+     * Index aktivity pro výpočet pojistného; neznámá aktivita má výchozí index.
+     */
+    public BigDecimal activityIndex(String activity) {
+        ActivityType activityType = resolve(activity);
+        return activityType != null ? activityType.index() : defaultIndex;
+    }
+
+    /**
+     * Našeptávání - činnosti, jejichž kód začíná zadaným textem, nebo jejichž některé slovo názvu
+     * začíná zadaným textem (bez ohledu na velikost písmen a diakritiku).
+     *
+     * @param prefix Začátek kódu nebo slova názvu.
+     * @param limit Maximální počet výsledků.
+     * @return Nalezené činnosti seřazené podle kódu.
+     */
+    public List<ActivityType> search(String prefix, int limit) {
+        String query = prefix == null ? "" : normalize(prefix);
+        if (query.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        if (Character.isDigit(query.charAt(0))) {
+            List<ActivityType> result = new ArrayList<>();
+            for (int i = lowerBound(sortedCodes, query); i < sortedCodes.length && sortedCodes[i].startsWith(query) && result.size() < limit; i++) {
+                result.add(sortedByCode[i]);
+            }
+            return result;
+        }
+
+        Set<Integer> matches = new LinkedHashSet<>();
+        for (int i = lowerBound(nameTokens, query); i < nameTokens.length && nameTokens[i].startsWith(query); i++) {
+            matches.add(nameTokenActivities[i]);
+        }
+        return matches.stream()
+                .sorted()
+                .limit(limit)
+                .map(i -> sortedByCode[i])
+                .toList();
+    }
+
+    private static BigDecimal effectiveIndex(String code, Map<String, BigDecimal> ownIndexes, BigDecimal defaultIndex) {
+        for (String current = code; current != null; current = parentCode(current)) {
+            BigDecimal index = ownIndexes.get(current);
+            if (index != null) {
+                return index;
+            }
+        }
+        return defaultIndex;
+    }
+
+    // 62.01 -> 62.0 -> 62 -> null
+    private static String parentCode(String code) {
+        if (code.length() <= 2) {
+            return null;
+        }
+        String parent = code.substring(0, code.length() - 1);
+        return parent.endsWith(".") ? parent.substring(0, parent.length() - 1) : parent;
+    }
+
+    private static int lowerBound(String[] sorted, String key) {
+        int index = Arrays.binarySearch(sorted, key);
+        if (index < 0) {
+            return -index - 1;
+        }
+        // Při duplicitách (slova názvů) se vrátíme na první výskyt
+        while (index > 0 && sorted[index - 1].equals(key)) {
+            index--;
+        }
+        return index;
+    }
+
+    private static String normalize(String text) {
+        String withoutDiacritics = Normalizer.normalize(text.strip(), Normalizer.Form.NFD).replaceAll("\\p{M}", "");
+        return withoutDiacritics.toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,109 @@
+package cz.michalmusil.dnoratingsystem.activity;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drží číselník činností načtený do paměti při startu aplikace ({@code rating.activity.catalog-location}).
+ * Přenačtení připraví nový {@link ActivityCatalog} bokem a vymění jej atomicky,
+ * výpočty pojistného tedy nikdy nečekají a nikdy nesahají do databáze.
+ * Verze číselníku je otisk obsahu souboru.
+ */
+@Component
+public class ActivityCatalogRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(ActivityCatalogRegistry.class);
+
+    private final Resource location;
+    private final BigDecimal defaultIndex;
+    private final AtomicReference<ActivityCatalog> current = new AtomicReference<>();
+    private volatile long sourceLastModified;
+
+    public ActivityCatalogRegistry(@Value("${rating.activity.catalog-location:classpath:activities/activity-catalog.csv}") Resource location,
+                                   @Value("${rating.activity.default-index:1.0}") BigDecimal defaultIndex) {
+        this.location = location;
+        this.defaultIndex = defaultIndex;
+        ActivityCatalog initial = load();
+        current.set(initial);
+        log.info("Loaded activity catalog {} ({} activities) from {}", initial.getVersion(), initial.size(), location);
+    }
+
+    public ActivityCatalog current() {
+        return current.get();
+    }
+
+    /**
+     * Znovu načte číselník ze souboru a atomicky jej vymění.
+     *
+     * @return Nově platný číselník.
+     * @throws IllegalArgumentException pokud soubor není platný číselník.
+     */
+    public synchronized ActivityCatalog reload() {
+        ActivityCatalog loaded = load();
+        ActivityCatalog previous = current.getAndSet(loaded);
+        if (!previous.getVersion().equals(loaded.getVersion())) {
+            log.info("Activity catalog reloaded: {} -> {} ({} activities)", previous.getVersion(), loaded.getVersion(), loaded.size());
+        }
+        return loaded;
+    }
+
+    /**
+     * Periodicky zkontroluje, zda se soubor číselníku změnil, a případně jej znovu načte.
+     * U zdrojů, které nejsou soubor (např. classpath uvnitř JAR), se nic nedělá.
+     */
+    @Scheduled(fixedDelayString = "${rating.activity.reload-interval:60s}")
+    public void reloadIfModified() {
+        try {
+            if (!location.isFile() || location.lastModified() <= sourceLastModified) {
+                return;
+            }
+        } catch (IOException e) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Activity catalog reload from {} failed, keeping {}: {}", location, current().getVersion(), e.getMessage());
+        }
+    }
+
+    private ActivityCatalog load() {
+        try {
+            long lastModified = location.isFile() ? location.lastModified() : 0L;
+            byte[] content;
+            try (InputStream in = location.getInputStream()) {
+                content = in.readAllBytes();
+            }
+            List<String> lines = new String(content, StandardCharsets.UTF_8).lines().toList();
+            ActivityCatalog catalog = ActivityCatalog.parse(fingerprint(content), lines, defaultIndex);
+            sourceLastModified = lastModified;
+            return catalog;
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read activity catalog from " + location, e);
+        }
+    }
+
+    private static String fingerprint(byte[] content) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(content);
+            return HexFormat.of().formatHex(digest, 0, 6);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e);
+        }
+    }
+}
@@ -0,0 +1,223 @@
+package cz.michalmusil.dnoratingsystem.archive;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.List;
+
+/**
+ * Dimenze seskupení při skenování archivu. Klíčem skupiny je v rámci segmentu malé celé číslo
+ * (kód slovníku, index pásma, pořadí měsíce), součty se tak sčítají do polí bez hashování.
+ * Každá dimenze má vlastní smyčku přes řádky - výpočet klíče se vloží přímo do ní.
+ * Popisky skupin odpovídají klíčům agregace nad tabulkou rizik (RiskRepository.aggregateBy*).
+ */
+public sealed interface ArchiveGrouping {
+
+    static ArchiveGrouping byActivity() {
+        return new ByActivity();
+    }
+
+    static ArchiveGrouping byFinancialPerformance() {
+        return new ByFinancialPerformance();
+    }
+
+    static ArchiveGrouping byMonth() {
+        return new ByMonth();
+    }
+
+    /**
+     * Obratové pásmo = počet hranic ostře menších než obrat omezený stropem (jako CompiledTariff.turnoverBand).
+     */
+    static ArchiveGrouping byTurnoverBand(List<BigDecimal> thresholds, BigDecimal turnoverCap) {
+        // Hranice nad stropem se nezapočítají nikdy. Obraty jsou v celých haléřích, hranici lze proto
+        // zaokrouhlit dolů: t < x platí právě když floor(t) < x.
+        long[] thresholdCents = thresholds.stream()
+                .filter(t -> t.compareTo(turnoverCap) < 0)
+                .mapToLong(t -> t.movePointRight(2).setScale(0, RoundingMode.FLOOR).longValueExact())
+                .sorted()
+                .toArray();
+        return new ByTurnoverBand(thresholdCents, thresholds.size() + 1);
+    }
+
+    /**
+     * Pásmo limitu podle posledního celého milionu, poslední pásmo je otevřené (jako CompiledTariff.limitPremium).
+     */
+    static ArchiveGrouping byLimitBand(int bandWidthMillions, int lastBand) {
+        return new ByLimitBand(bandWidthMillions, lastBand);
+    }
+
+    /**
+     * @return Počet možných klíčů v řádcích [from, to) segmentu.
+     */
+    int keyCount(ArchiveSegment segment, int from, int to);
+
+    /**
+     * Přičte řádky [from, to) segmentu do součtů podle klíče skupiny.
+     */
+    void accumulate(ArchiveSegment segment, int from, int to, Totals totals);
+
+    /**
+     * @return Klíč skupiny ve výsledku (groupKey) pro klíč {@code key} v řádcích [from, to) segmentu.
+     */
+    String label(ArchiveSegment segment, int from, int key);
+
+    /**
+     * Součty jedné části skenování - počet, pojistné a limit v haléřích podle klíče skupiny.
+     */
+    final class Totals {
+
+        final long[] counts;
+        final long[] nettoPremiums;
+        final long[] limitAmounts;
+
+        Totals(int keyCount) {
+            this.counts = new long[keyCount];
+            this.nettoPremiums = new long[keyCount];
+            this.limitAmounts = new long[keyCount];
+        }
+
+        void add(int key, ArchiveSegment segment, int row) {
+            counts[key]++;
+            nettoPremiums[key] = Math.addExact(nettoPremiums[key], segment.nettoPremium(row));
+            limitAmounts[key] = Math.addExact(limitAmounts[key], segment.limitAmount(row));
+        }
+    }
+
+    record ByActivity() implements ArchiveGrouping {
+
+        @Override
+        public int keyCount(ArchiveSegment segment, int from, int to) {
+            return segment.activityCount();
+        }
+
+        @Override
+        public void accumulate(ArchiveSegment segment, int from, int to, Totals totals) {
+            for (int row = from; row < to; row++) {
+                totals.add(segment.activityCode(row), segment, row);
+            }
+        }
+
+        @Override
+        public String label(ArchiveSegment segment, int from, int key) {
+            return segment.activity(key);
+        }
+    }
+
+    record ByFinancialPerformance() implements ArchiveGrouping {
+
+        @Override
+        public int keyCount(ArchiveSegment segment, int from, int to) {
+            return segment.financialPerformanceCount();
+        }
+
+        @Override
+        public void accumulate(ArchiveSegment segment, int from, int to, Totals totals) {
+            for (int row = from; row < to; row++) {
+                totals.add(segment.financialPerformanceCode(row), segment, row);
+            }
+        }
+
+        @Override
+        public String label(ArchiveSegment segment, int from, int key) {
+            return segment.financialPerformance(key);
+        }
+    }
+
+    record ByTurnoverBand(long[] thresholdCents, int bandCount) implements ArchiveGrouping {
+
+        @Override
+        public int keyCount(ArchiveSegment segment, int from, int to) {
+            return bandCount;
+        }
+
+        @Override
+        public void accumulate(ArchiveSegment segment, int from, int to, Totals totals) {
+            for (int row = from; row < to; row++) {
+                // Počet hranic bez podmíněného skoku - obraty jdou v náhodném pořadí, větvení by se špatně předvídalo
+                long turnover = segment.turnover(row);
+                int band = 0;
+                for (long threshold : thresholdCents) {
+                    band += threshold < turnover ? 1 : 0;
+                }
+                totals.add(band, segment, row);
+            }
+        }
+
+        @Override
+        public String label(ArchiveSegment segment, int from, int key) {
+            return String.valueOf(key);
+        }
+    }
+
+    record ByLimitBand(int bandWidthMillions, int lastBand) implements ArchiveGrouping {
+
+        private static final long CENTS_PER_MILLION = 100_000_000L;
+
+        @Override
+        public int keyCount(ArchiveSegment segment, int from, int to) {
+            return lastBand + 1;
+        }
+
+        @Override
+        public void accumulate(ArchiveSegment segment, int from, int to, Totals totals) {
+            for (int row = from; row < to; row++) {
+                long millions = segment.limitAmount(row) / CENTS_PER_MILLION;
+                long band = Math.floorDiv(millions - 1, bandWidthMillions);
+                totals.add((int) Math.min(Math.max(band, 0), lastBand), segment, row);
+            }
+        }
+
+        @Override
+        public String label(ArchiveSegment segment, int from, int key) {
+            return String.valueOf(key);
+        }
+    }
+
+    /**
+     * Klíč = pořadí měsíce od měsíce prvního řádku části. Řádky jsou seřazené podle data,
+     * hranice dalšího měsíce se proto počítá jen při jejím překročení.
+     */
+    record ByMonth() implements ArchiveGrouping {
+
+        @Override
+        public int keyCount(ArchiveSegment segment, int from, int to) {
+            return to > from ? monthIndex(segment.calculationDate(to - 1)) - monthIndex(segment.calculationDate(from)) + 1 : 0;
+        }
+
+        @Override
+        public void accumulate(ArchiveSegment segment, int from, int to, Totals totals) {
+            if (from >= to) {
+                return;
+            }
+            int firstMonth = monthIndex(segment.calculationDate(from));
+            int key = 0;
+            long nextMonth = monthStart(firstMonth + 1);
+            for (int row = from; row < to; row++) {
+                long date = segment.calculationDate(row);
+                if (date >= nextMonth) {
+                    key = monthIndex(date) - firstMonth;
+                    nextMonth = monthStart(firstMonth + key + 1);
+                }
+                totals.add(key, segment, row);
+            }
+        }
+
+        @Override
+        public String label(ArchiveSegment segment, int from, int key) {
+            // Stejný formát jako to_char(calculation_date, 'YYYY-MM')
+            int month = monthIndex(segment.calculationDate(from)) + key;
+            return YearMonth.of(month / 12, month % 12 + 1).toString();
+        }
+
+        private static int monthIndex(long micros) {
+            LocalDateTime dateTime = ArchiveSegment.fromMicros(micros);
+            return dateTime.getYear() * 12 + dateTime.getMonthValue() - 1;
+        }
+
+        private static long monthStart(int monthIndex) {
+            return ArchiveSegment.toMicros(LocalDate.of(monthIndex / 12, monthIndex % 12 + 1, 1).atStartOfDay());
+        }
+    }
+}
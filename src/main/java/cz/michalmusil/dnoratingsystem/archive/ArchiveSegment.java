@@ -0,0 +1,365 @@
+package cz.michalmusil.dnoratingsystem.archive;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Jeden soubor archivu - neměnný blok rizik uložený po sloupcích, čtený přes memory mapping.
+ * <p>
+ * Formát (little endian): hlavička {@value #HEADER_SIZE} B, pak sloupce pevné šířky, každý zarovnaný na 8 B:
+ * id, client_id, calculation_date (mikrosekundy od epochy, datum bez zóny bráno jako UTC), turnover,
+ * limit_amount a netto_premium (haléře) po 8 B, kód činnosti po 4 B a kód finanční výkonnosti po 1 B.
+ * Za sloupci jsou slovníky činností a výkonností (kód = pořadí ve slovníku).
+ * Řádky jsou seřazené podle calculation_date a id, omezení období je tak binární vyhledávání.
+ * <p>
+ * Sloupce se čtou přímo z namapované paměti (view buffery nad mapováním), nic se nekopíruje na haldu.
+ * Instance je neměnná a sdílí se mezi vlákny.
+ */
+public final class ArchiveSegment {
+
+    static final long MAGIC = 0x31484352_414F4E44L; // "DNOARCH1"
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 64;
+    // Jedno mapování je nejvýše 2 GB, 53 B na řádek
+    public static final int MAX_ROWS = 20_000_000;
+
+    private final Path path;
+    private final long sizeBytes;
+    private final int rowCount;
+    private final long coveredFrom;
+    private final long coveredTo;
+    private final LongBuffer ids;
+    private final LongBuffer clientIds;
+    private final LongBuffer calculationDates;
+    private final LongBuffer turnovers;
+    private final LongBuffer limitAmounts;
+    private final LongBuffer nettoPremiums;
+    private final IntBuffer activityCodes;
+    private final ByteBuffer financialPerformanceCodes;
+    private final String[] activities;
+    private final String[] financialPerformances;
+
+    private ArchiveSegment(Path path, ByteBuffer buffer) {
+        this.path = path;
+        this.sizeBytes = buffer.capacity();
+        if (sizeBytes < HEADER_SIZE || buffer.getLong(0) != MAGIC) {
+            throw new IllegalStateException("Not an archive segment: " + path);
+        }
+        if (buffer.getInt(8) != VERSION) {
+            throw new IllegalStateException("Unsupported archive segment version " + buffer.getInt(8) + ": " + path);
+        }
+        this.rowCount = buffer.getInt(12);
+        this.coveredFrom = buffer.getLong(16);
+        this.coveredTo = buffer.getLong(24);
+        int dictionaryOffset = Math.toIntExact(buffer.getLong(32));
+        if (dictionaryOffset != dictionaryOffset(rowCount) || dictionaryOffset + buffer.getInt(40) != sizeBytes) {
+            throw new IllegalStateException("Truncated archive segment: " + path);
+        }
+
+        int offset = HEADER_SIZE;
+        this.ids = longColumn(buffer, offset, rowCount);
+        this.clientIds = longColumn(buffer, offset += 8 * rowCount, rowCount);
+        this.calculationDates = longColumn(buffer, offset += 8 * rowCount, rowCount);
+        this.turnovers = longColumn(buffer, offset += 8 * rowCount, rowCount);
+        this.limitAmounts = longColumn(buffer, offset += 8 * rowCount, rowCount);
+        this.nettoPremiums = longColumn(buffer, offset += 8 * rowCount, rowCount);
+        this.activityCodes = buffer.slice(offset += 8 * rowCount, 4 * rowCount).order(ByteOrder.LITTLE_ENDIAN).asIntBuffer();
+        this.financialPerformanceCodes = buffer.slice(offset + align(4 * rowCount), rowCount);
+
+        ByteBuffer dictionaries = buffer.slice(dictionaryOffset, (int) sizeBytes - dictionaryOffset).order(ByteOrder.LITTLE_ENDIAN);
+        this.activities = readDictionary(dictionaries);
+        this.financialPerformances = readDictionary(dictionaries);
+    }
+
+    /**
+     * Namapuje soubor segmentu jen pro čtení. Mapování zůstává platné i po zavření kanálu.
+     */
+    public static ArchiveSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalStateException("Archive segment too large: " + path);
+            }
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ArchiveSegment(path, buffer.order(ByteOrder.LITTLE_ENDIAN));
+        }
+    }
+
+    public static Builder builder() {
+        return new Builder();
+    }
+
+    public Path getPath() {
+        return path;
+    }
+
+    public long getSizeBytes() {
+        return sizeBytes;
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    /**
+     * @return Začátek období calculation_date, které segment pokrývá (včetně).
+     */
+    public LocalDateTime getCoveredFrom() {
+        return fromMicros(coveredFrom);
+    }
+
+    /**
+     * @return Konec období calculation_date, které segment pokrývá (bez něj).
+     */
+    public LocalDateTime getCoveredTo() {
+        return fromMicros(coveredTo);
+    }
+
+    long coveredFromMicros() {
+        return coveredFrom;
+    }
+
+    long coveredToMicros() {
+        return coveredTo;
+    }
+
+    long id(int row) {
+        return ids.get(row);
+    }
+
+    long clientId(int row) {
+        return clientIds.get(row);
+    }
+
+    long calculationDate(int row) {
+        return calculationDates.get(row);
+    }
+
+    long turnover(int row) {
+        return turnovers.get(row);
+    }
+
+    long limitAmount(int row) {
+        return limitAmounts.get(row);
+    }
+
+    long nettoPremium(int row) {
+        return nettoPremiums.get(row);
+    }
+
+    int activityCode(int row) {
+        return activityCodes.get(row);
+    }
+
+    int financialPerformanceCode(int row) {
+        return financialPerformanceCodes.get(row);
+    }
+
+    int activityCount() {
+        return activities.length;
+    }
+
+    String activity(int code) {
+        return activities[code];
+    }
+
+    int financialPerformanceCount() {
+        return financialPerformances.length;
+    }
+
+    String financialPerformance(int code) {
+        return financialPerformances[code];
+    }
+
+    /**
+     * @return Index prvního řádku s calculation_date >= {@code micros} (rowCount, pokud takový není).
+     */
+    int lowerBound(long micros) {
+        int low = 0;
+        int high = rowCount;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (calculationDates.get(middle) < micros) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    static long toMicros(LocalDateTime dateTime) {
+        return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000 + dateTime.getNano() / 1_000;
+    }
+
+    static LocalDateTime fromMicros(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000), (int) Math.floorMod(micros, 1_000_000) * 1_000, ZoneOffset.UTC);
+    }
+
+    // Částky jsou v databázi numeric(19,2) - v haléřích se vejdou do long bez zaokrouhlení
+    static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.UNNECESSARY).longValueExact();
+    }
+
+    private static LongBuffer longColumn(ByteBuffer buffer, int offset, int rowCount) {
+        return buffer.slice(offset, 8 * rowCount).order(ByteOrder.LITTLE_ENDIAN).asLongBuffer();
+    }
+
+    private static int align(int length) {
+        return (length + 7) & ~7;
+    }
+
+    private static int dictionaryOffset(int rowCount) {
+        long offset = HEADER_SIZE + 6L * 8 * rowCount + align(4 * rowCount) + align(rowCount);
+        return Math.toIntExact(offset);
+    }
+
+    private static String[] readDictionary(ByteBuffer buffer) {
+        String[] values = new String[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            byte[] bytes = new byte[buffer.getInt()];
+            buffer.get(bytes);
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    /**
+     * Sestavení segmentu z řádků seřazených podle calculation_date a id. Sloupce se plní do primitivních
+     * polí a do souboru se zapíšou najednou.
+     */
+    public static final class Builder {
+
+        private int size;
+        private long[] ids = new long[1024];
+        private long[] clientIds = new long[1024];
+        private long[] calculationDates = new long[1024];
+        private long[] turnovers = new long[1024];
+        private long[] limitAmounts = new long[1024];
+        private long[] nettoPremiums = new long[1024];
+        private int[] activityCodes = new int[1024];
+        private byte[] financialPerformanceCodes = new byte[1024];
+        private final Dictionary activities = new Dictionary();
+        private final Dictionary financialPerformances = new Dictionary();
+
+        private Builder() {
+        }
+
+        public void add(long id, long clientId, LocalDateTime calculationDate, String activity, String financialPerformance,
+                        BigDecimal turnover, BigDecimal limitAmount, BigDecimal nettoPremium) {
+            if (size == MAX_ROWS) {
+                throw new IllegalStateException("Archive segment cannot have more than " + MAX_ROWS + " rows.");
+            }
+            if (size == ids.length) {
+                int capacity = Math.min(size * 2, MAX_ROWS);
+                ids = Arrays.copyOf(ids, capacity);
+                clientIds = Arrays.copyOf(clientIds, capacity);
+                calculationDates = Arrays.copyOf(calculationDates, capacity);
+                turnovers = Arrays.copyOf(turnovers, capacity);
+                limitAmounts = Arrays.copyOf(limitAmounts, capacity);
+                nettoPremiums = Arrays.copyOf(nettoPremiums, capacity);
+                activityCodes = Arrays.copyOf(activityCodes, capacity);
+                financialPerformanceCodes = Arrays.copyOf(financialPerformanceCodes, capacity);
+            }
+            long micros = toMicros(calculationDate);
+            if (size > 0 && micros < calculationDates[size - 1]) {
+                throw new IllegalArgumentException("Rows must be ordered by calculation date.");
+            }
+            int financialPerformanceCode = financialPerformances.code(financialPerformance);
+            if (financialPerformanceCode > Byte.MAX_VALUE) {
+                throw new IllegalStateException("Too many distinct financial performance values.");
+            }
+            ids[size] = id;
+            clientIds[size] = clientId;
+            calculationDates[size] = micros;
+            turnovers[size] = toCents(turnover);
+            limitAmounts[size] = toCents(limitAmount);
+            nettoPremiums[size] = toCents(nettoPremium);
+            activityCodes[size] = activities.code(activity);
+            financialPerformanceCodes[size] = (byte) financialPerformanceCode;
+            size++;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        /**
+         * @return calculation_date posledního přidaného řádku, null u prázdného segmentu.
+         */
+        public LocalDateTime lastCalculationDate() {
+            return size == 0 ? null : fromMicros(calculationDates[size - 1]);
+        }
+
+        /**
+         * Zapíše segment do souboru (přes zapisovatelné mapování) a vynutí jeho uložení na disk.
+         *
+         * @param path Nový soubor - nesmí existovat.
+         * @param coveredFrom Začátek pokrytého období (včetně).
+         * @param coveredTo Konec pokrytého období (bez něj).
+         */
+        void writeTo(Path path, LocalDateTime coveredFrom, LocalDateTime coveredTo) throws IOException {
+            byte[] activityDictionary = activities.encode();
+            byte[] financialPerformanceDictionary = financialPerformances.encode();
+            int dictionaryOffset = dictionaryOffset(size);
+            int dictionaryLength = activityDictionary.length + financialPerformanceDictionary.length;
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ,
+                    StandardOpenOption.WRITE)) {
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, (long) dictionaryOffset + dictionaryLength);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                buffer.putLong(MAGIC).putInt(VERSION).putInt(size)
+                        .putLong(toMicros(coveredFrom)).putLong(toMicros(coveredTo))
+                        .putLong(dictionaryOffset).putInt(dictionaryLength);
+                buffer.position(HEADER_SIZE);
+                for (long[] column : List.of(ids, clientIds, calculationDates, turnovers, limitAmounts, nettoPremiums)) {
+                    buffer.asLongBuffer().put(column, 0, size);
+                    buffer.position(buffer.position() + 8 * size);
+                }
+                buffer.asIntBuffer().put(activityCodes, 0, size);
+                buffer.position(buffer.position() + align(4 * size));
+                buffer.put(financialPerformanceCodes, 0, size);
+                buffer.position(dictionaryOffset);
+                buffer.put(activityDictionary).put(financialPerformanceDictionary);
+                buffer.force();
+            }
+        }
+    }
+
+    private static final class Dictionary {
+
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            return codes.computeIfAbsent(value, v -> {
+                values.add(v);
+                return values.size() - 1;
+            });
+        }
+
+        byte[] encode() {
+            List<byte[]> encoded = values.stream().map(v -> v.getBytes(StandardCharsets.UTF_8)).toList();
+            ByteBuffer buffer = ByteBuffer.allocate(4 + encoded.stream().mapToInt(b -> 4 + b.length).sum())
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            buffer.putInt(encoded.size());
+            encoded.forEach(bytes -> buffer.putInt(bytes.length).put(bytes));
+            return buffer.array();
+        }
+    }
+}
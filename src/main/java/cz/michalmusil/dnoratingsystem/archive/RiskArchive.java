@@ -0,0 +1,233 @@
+package cz.michalmusil.dnoratingsystem.archive;
+
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateView;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Stream;
+
+/**
+ * Archiv historických rizik - adresář neměnných segmentů ({@link ArchiveSegment}), do kterého se jen přidává.
+ * Segmenty na sebe navazují pokrytým obdobím calculation_date, nový segment začíná tam, kde poslední skončil.
+ * <p>
+ * Segment se zapíše do dočasného souboru a do archivu se dostane atomickým přejmenováním - čtenář
+ * (i jiná instance nad sdíleným adresářem) tak nikdy nevidí rozepsaný soubor. Zápis více instancí
+ * najednou vylučuje zámek souboru {@value #LOCK_FILE}.
+ */
+public final class RiskArchive {
+
+    static final String SEGMENT_SUFFIX = ".col";
+    static final String LOCK_FILE = "archive.lock";
+    // Velikost části skenování - dost velká, aby režie úlohy byla zanedbatelná, a dost malá pro rozložení práce
+    private static final int SCAN_CHUNK_ROWS = 1 << 16;
+
+    private final Path directory;
+    private final Map<Path, ArchiveSegment> opened = new HashMap<>();
+    private volatile List<ArchiveSegment> segments = List.of();
+
+    public RiskArchive(Path directory) throws IOException {
+        this.directory = Files.createDirectories(directory);
+        refresh();
+    }
+
+    public Path getDirectory() {
+        return directory;
+    }
+
+    /**
+     * @return Segmenty seřazené podle pokrytého období (stav po posledním {@link #refresh()}).
+     */
+    public List<ArchiveSegment> segments() {
+        return segments;
+    }
+
+    /**
+     * @return Konec období pokrytého archivem (bez něj), null u prázdného archivu.
+     */
+    public LocalDateTime coveredTo() {
+        List<ArchiveSegment> current = segments;
+        return current.isEmpty() ? null : current.getLast().getCoveredTo();
+    }
+
+    /**
+     * Namapuje segmenty, které v adresáři přibyly (např. zapsané jinou instancí).
+     */
+    public synchronized void refresh() throws IOException {
+        List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.filter(p -> p.getFileName().toString().endsWith(SEGMENT_SUFFIX)).sorted().toList();
+        }
+        if (paths.size() == opened.size()) {
+            return;
+        }
+        List<ArchiveSegment> current = new ArrayList<>(paths.size());
+        for (Path path : paths) {
+            ArchiveSegment segment = opened.get(path);
+            if (segment == null) {
+                segment = ArchiveSegment.open(path);
+                opened.put(path, segment);
+            }
+            current.add(segment);
+        }
+        segments = List.copyOf(current);
+    }
+
+    /**
+     * Zamkne archiv pro zápis.
+     *
+     * @return Zámek, nebo null, pokud archiv právě zapisuje jiná instance nebo jiné vlákno.
+     */
+    public AppendLock tryLock() throws IOException {
+        FileChannel channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        try {
+            FileLock lock = channel.tryLock();
+            if (lock != null) {
+                return new AppendLock(channel);
+            }
+        } catch (OverlappingFileLockException e) {
+            // Zámek drží jiné vlákno této instance
+        }
+        channel.close();
+        return null;
+    }
+
+    /**
+     * Zapíše sestavený segment a připojí ho na konec archivu. Volá se pod zámkem ({@link #tryLock()}).
+     *
+     * @param coveredFrom Začátek pokrytého období - musí navazovat na konec archivu.
+     * @param coveredTo Konec pokrytého období (bez něj).
+     */
+    public synchronized ArchiveSegment append(ArchiveSegment.Builder builder, LocalDateTime coveredFrom,
+                                              LocalDateTime coveredTo) throws IOException {
+        refresh();
+        LocalDateTime archiveEnd = coveredTo();
+        if (archiveEnd != null && !archiveEnd.equals(coveredFrom)) {
+            throw new IllegalStateException("Segment starting at " + coveredFrom + " does not continue the archive ending at " + archiveEnd + ".");
+        }
+        String name = String.format("risks-%06d", segments.size() + 1);
+        Path temporary = directory.resolve(name + ".tmp");
+        Path target = directory.resolve(name + SEGMENT_SUFFIX);
+        Files.deleteIfExists(temporary);
+        builder.writeTo(temporary, coveredFrom, coveredTo);
+        Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE);
+        refresh();
+        return opened.get(target);
+    }
+
+    /**
+     * Paralelně projde řádky s calculation_date v [from, to) a sečte je podle skupiny.
+     * Období se v každém segmentu hledá binárně (řádky jsou seřazené podle data), segmenty mimo období se přeskočí.
+     *
+     * @param from Začátek období (včetně), null = bez omezení.
+     * @param to Konec období (bez něj), null = bez omezení.
+     * @return Jeden řádek na neprázdnou skupinu, částky v Kč.
+     */
+    public List<PortfolioAggregateView> aggregate(ArchiveGrouping grouping, LocalDateTime from, LocalDateTime to, ForkJoinPool pool) {
+        long fromMicros = from != null ? ArchiveSegment.toMicros(from) : Long.MIN_VALUE;
+        long toMicros = to != null ? ArchiveSegment.toMicros(to) : Long.MAX_VALUE;
+        List<ScanChunk> chunks = new ArrayList<>();
+        for (ArchiveSegment segment : segments) {
+            if (segment.coveredToMicros() <= fromMicros || segment.coveredFromMicros() >= toMicros) {
+                continue;
+            }
+            int start = segment.lowerBound(fromMicros);
+            int end = segment.lowerBound(toMicros);
+            for (int chunkStart = start; chunkStart < end; chunkStart += SCAN_CHUNK_ROWS) {
+                chunks.add(new ScanChunk(segment, chunkStart, Math.min(chunkStart + SCAN_CHUNK_ROWS, end)));
+            }
+        }
+        Map<String, GroupTotal> groups = pool.submit(() -> chunks.parallelStream()
+                .map(chunk -> chunk.aggregate(grouping))
+                .reduce(new HashMap<>(), RiskArchive::merge)).join();
+        return groups.entrySet().stream()
+                .<PortfolioAggregateView>map(e -> e.getValue().toView(e.getKey()))
+                .toList();
+    }
+
+    private static Map<String, GroupTotal> merge(Map<String, GroupTotal> left, Map<String, GroupTotal> right) {
+        Map<String, GroupTotal> merged = new HashMap<>(left);
+        right.forEach((key, total) -> merged.merge(key, total, GroupTotal::plus));
+        return merged;
+    }
+
+    private record ScanChunk(ArchiveSegment segment, int from, int to) {
+
+        Map<String, GroupTotal> aggregate(ArchiveGrouping grouping) {
+            ArchiveGrouping.Totals totals = new ArchiveGrouping.Totals(grouping.keyCount(segment, from, to));
+            grouping.accumulate(segment, from, to, totals);
+            Map<String, GroupTotal> groups = new HashMap<>();
+            for (int key = 0; key < totals.counts.length; key++) {
+                if (totals.counts[key] > 0) {
+                    groups.merge(grouping.label(segment, from, key),
+                            new GroupTotal(totals.counts[key], totals.nettoPremiums[key], totals.limitAmounts[key]), GroupTotal::plus);
+                }
+            }
+            return groups;
+        }
+    }
+
+    private record GroupTotal(long count, long nettoPremiumCents, long limitAmountCents) {
+
+        GroupTotal plus(GroupTotal other) {
+            return new GroupTotal(count + other.count, Math.addExact(nettoPremiumCents, other.nettoPremiumCents),
+                    Math.addExact(limitAmountCents, other.limitAmountCents));
+        }
+
+        PortfolioAggregateView toView(String groupKey) {
+            BigDecimal nettoPremium = BigDecimal.valueOf(nettoPremiumCents, 2);
+            BigDecimal limitAmount = BigDecimal.valueOf(limitAmountCents, 2);
+            return new PortfolioAggregateView() {
+                @Override
+                public String getGroupKey() {
+                    return groupKey;
+                }
+
+                @Override
+                public long getQuoteCount() {
+                    return count;
+                }
+
+                @Override
+                public BigDecimal getTotalNettoPremium() {
+                    return nettoPremium;
+                }
+
+                @Override
+                public BigDecimal getTotalLimitAmount() {
+                    return limitAmount;
+                }
+            };
+        }
+    }
+
+    /**
+     * Zámek zápisu do archivu - uvolní se zavřením.
+     */
+    public static final class AppendLock implements AutoCloseable {
+
+        private final FileChannel channel;
+
+        private AppendLock(FileChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public void close() throws IOException {
+            // Zavřením kanálu se uvolní i zámek
+            channel.close();
+        }
+    }
+}
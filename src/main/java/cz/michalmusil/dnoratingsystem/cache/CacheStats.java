@@ -0,0 +1,15 @@
+package cz.michalmusil.dnoratingsystem.cache;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+/**
+ * Snímek počítadel jedné cache.
+ */
+public record CacheStats(String name, int size, int maxSize, long hits, long misses, long evictions) {
+
+    @JsonProperty("hitRate")
+    public double hitRate() {
+        long requests = hits + misses;
+        return requests == 0 ? 0.0 : (double) hits / requests;
+    }
+}
@@ -0,0 +1,40 @@
+package cz.michalmusil.dnoratingsystem.cache;
+
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.model.Client;
+
+import java.util.Objects;
+
+/**
+ * Neměnný snímek uloženého klienta v cache klientů. Drží jen ID a porovnávané údaje,
+ * nikdy ne samotnou entitu (ta patří do persistence contextu konkrétní transakce).
+ */
+public record CachedClient(
+        Long id,
+        String name,
+        String street,
+        String houseNumber,
+        String orientationNumber,
+        String city,
+        String postcode,
+        String state
+) {
+
+    public static CachedClient of(Client client) {
+        return new CachedClient(client.getId(), client.getName(), client.getStreet(), client.getHouseNumber(),
+                client.getOrientationNumber(), client.getCity(), client.getPostcode(), client.getState());
+    }
+
+    /**
+     * @return true, pokud se údaje z požadavku shodují s uloženými (UPDATE není potřeba).
+     */
+    public boolean matches(ClientRequestDto dto) {
+        return Objects.equals(name, dto.getName())
+                && Objects.equals(street, dto.getStreet())
+                && Objects.equals(houseNumber, dto.getHouseNumber())
+                && Objects.equals(orientationNumber, dto.getOrientationNumber())
+                && Objects.equals(city, dto.getCity())
+                && Objects.equals(postcode, dto.getPostcode())
+                && Objects.equals(state, dto.getState());
+    }
+}
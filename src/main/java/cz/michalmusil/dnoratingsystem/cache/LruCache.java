@@ -0,0 +1,90 @@
+package cz.michalmusil.dnoratingsystem.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Jednoduchá omezená cache s LRU vyřazováním, volitelnou dobou platnosti záznamů (TTL)
+ * a počítadly zásahů. Všechny operace jsou synchronizované - jde o krátké operace nad hash mapou,
+ * takže jeden zámek nepředstavuje úzké hrdlo ve srovnání s databází, kterou cache šetří.
+ *
+ * @param <K> Typ klíče.
+ * @param <V> Typ hodnoty.
+ */
+public class LruCache<K, V> {
+
+    private final String name;
+    private final int maxSize;
+    private final long ttlNanos; // 0 = záznamy nevyprší
+    private final LinkedHashMap<K, Entry<V>> entries;
+
+    private long hits;
+    private long misses;
+    private long evictions;
+
+    public LruCache(String name, int maxSize) {
+        this(name, maxSize, Duration.ZERO);
+    }
+
+    public LruCache(String name, int maxSize, Duration ttl) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("Cache max size must be positive, got " + maxSize);
+        }
+        if (ttl == null || ttl.isNegative()) {
+            throw new IllegalArgumentException("Cache TTL must be zero or positive, got " + ttl);
+        }
+        this.name = name;
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        // accessOrder = true -> iterační pořadí od nejdéle nepoužitého záznamu
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<K, Entry<V>> eldest) {
+                if (size() > LruCache.this.maxSize) {
+                    evictions++;
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry != null && isExpired(entry)) {
+            entries.remove(key);
+            evictions++;
+            entry = null;
+        }
+        if (entry == null) {
+            misses++;
+            return null;
+        }
+        hits++;
+        return entry.value();
+    }
+
+    public synchronized void put(K key, V value) {
+        entries.put(key, new Entry<>(value, System.nanoTime()));
+    }
+
+    public synchronized void invalidate(K key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized CacheStats stats() {
+        return new CacheStats(name, entries.size(), maxSize, hits, misses, evictions);
+    }
+
+    private boolean isExpired(Entry<V> entry) {
+        return ttlNanos > 0 && System.nanoTime() - entry.createdAtNanos() > ttlNanos;
+    }
+
+    private record Entry<V>(V value, long createdAtNanos) {
+    }
+}
@@ -0,0 +1,85 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import org.reactivestreams.Publisher;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.codec.CodecCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.cbor.Jackson2CborDecoder;
+import org.springframework.http.codec.cbor.Jackson2CborEncoder;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.util.MimeType;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.Map;
+
+/**
+ * CBOR (RFC 8949) jako kompaktní binární alternativa JSON pro integrace systém-systém.
+ * Volí se hlavičkami Content-Type / Accept {@code application/cbor} na všech JSON endpointech
+ * (výpis rizik, dávkový výpočet, ...), export a import používají CBOR sequence (RFC 8742,
+ * {@code application/cbor-seq}) - položky za sebou bez obalujícího pole, kódují se průběžně.
+ * <p>
+ * Mapper vzniká ze stejného builderu jako JSON (moduly, formát dat, nastavení spring.jackson.*),
+ * jen nad CBORFactory - obsah zpráv je v obou formátech shodný, schéma viz {@code schema/risk-api.cddl}.
+ * BigDecimal se kóduje jako decimal fraction (tag 4), tedy přesně a bez převodu přes text.
+ */
+@Configuration
+public class CborConfig {
+
+    public static final String APPLICATION_CBOR_SEQ_VALUE = "application/cbor-seq";
+
+    /**
+     * Nahrazuje výchozí CBOR converter Spring MVC, který by měl vlastní mapper bez nastavení aplikace.
+     * Mapper converteru používá i streamovaný export a import.
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter(Jackson2ObjectMapperBuilder builder) {
+        ObjectMapper cborMapper = builder.createXmlMapper(false).factory(new CBORFactory()).build();
+        return new MappingJackson2CborHttpMessageConverter(cborMapper);
+    }
+
+    /**
+     * Reaktivní nasazení - CBOR kodeky nejsou mezi výchozími kodeky WebFluxu.
+     * Vlastní kodeky mají přednost před výchozími, JSON encoder se proto registruje i před CBOR -
+     * jinak by požadavek bez Accept (nebo s Accept *&#47;*) dostal odpověď v CBOR.
+     */
+    @Bean
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public CodecCustomizer cborCodecCustomizer(MappingJackson2CborHttpMessageConverter converter, ObjectMapper objectMapper) {
+        ObjectMapper cborMapper = converter.getObjectMapper();
+        return configurer -> {
+            configurer.customCodecs().register(new Jackson2JsonEncoder(objectMapper));
+            configurer.customCodecs().register(new SingleValueCborEncoder(cborMapper));
+            configurer.customCodecs().register(new Jackson2CborDecoder(cborMapper, MediaType.APPLICATION_CBOR));
+        };
+    }
+
+    /**
+     * Jackson2CborEncoder nepodporuje encode() vůbec, WebFlux ho ale volá pro každou odpověď (i pro Mono).
+     * Reaktivní endpointy vrací v CBOR jen jednotlivé hodnoty - ty se zakódují přes encodeValue.
+     */
+    static final class SingleValueCborEncoder extends Jackson2CborEncoder {
+
+        SingleValueCborEncoder(ObjectMapper cborMapper) {
+            super(cborMapper, MediaType.APPLICATION_CBOR);
+        }
+
+        @Override
+        public Flux<DataBuffer> encode(Publisher<?> inputStream, DataBufferFactory bufferFactory, ResolvableType elementType,
+                                       MimeType mimeType, Map<String, Object> hints) {
+            if (inputStream instanceof Mono<?> value) {
+                return value.map(v -> encodeValue(v, bufferFactory, elementType, mimeType, hints)).flux();
+            }
+            return super.encode(inputStream, bufferFactory, elementType, mimeType, hints);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Bulkhead před connection poolem pro režim virtuálních vláken ({@code spring.threads.virtual.enabled=true}).
+ * Počet povolení odpovídá velikosti Hikari poolu - kolik spojení, tolik současných databázových operací,
+ * ostatní vlákna čekají ve férové frontě semaforu.
+ * <p>
+ * V tomto režimu je navíc vypnutý auto-commit poolu a Hibernate o tom ví ({@code provider_disables_autocommit}),
+ * takže si spojení bere až při prvním SQL, ne na začátku transakce - výpočet pojistného na začátku
+ * {@code @Transactional} metod spojení ani povolení bulkheadu nedrží. Zápis přes JdbcTemplate nebo repository
+ * proto musí běžet v transakci ({@code @Transactional} / TransactionTemplate), jinak se při vrácení
+ * spojení do poolu zahodí.
+ * <p>
+ * Lze vypnout přes {@code rating.db-bulkhead.enabled=false}.
+ */
+@Configuration
+@ConditionalOnProperty(name = {"spring.threads.virtual.enabled", "rating.db-bulkhead.enabled"}, havingValue = "true")
+public class DatabaseBulkheadConfig {
+
+    @Bean
+    public static BeanPostProcessor databaseBulkheadPostProcessor(Environment environment) {
+        Duration acquireTimeout = environment.getProperty("rating.db-bulkhead.acquire-timeout", Duration.class, Duration.ofSeconds(30));
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String beanName) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof BulkheadDataSource)) {
+                    HikariDataSource hikari = DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class);
+                    if (hikari != null) {
+                        // Pool ještě neběží (startuje při prvním getConnection), konfiguraci lze změnit
+                        hikari.setAutoCommit(false);
+                        return new BulkheadDataSource(dataSource, hikari.getMaximumPoolSize(), acquireTimeout);
+                    }
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer lazyConnectionAcquisition() {
+        return properties -> properties.put(AvailableSettings.CONNECTION_PROVIDER_DISABLES_AUTOCOMMIT, "true");
+    }
+
+    @Bean
+    public MeterBinder databaseBulkheadMetrics(ObjectProvider<DataSource> dataSources) {
+        return registry -> dataSources.orderedStream()
+                .filter(BulkheadDataSource.class::isInstance)
+                .map(BulkheadDataSource.class::cast)
+                .forEach(bulkhead -> bind(registry, bulkhead));
+    }
+
+    private static void bind(MeterRegistry registry, BulkheadDataSource bulkhead) {
+        Gauge.builder("db.bulkhead.available", bulkhead, BulkheadDataSource::getAvailablePermits)
+                .description("Volná povolení databázového bulkheadu")
+                .register(registry);
+        Gauge.builder("db.bulkhead.waiting", bulkhead, BulkheadDataSource::getQueueLength)
+                .description("Počet vláken čekajících na databázový bulkhead")
+                .register(registry);
+    }
+}
@@ -0,0 +1,49 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import cz.michalmusil.dnoratingsystem.cache.CacheStats;
+import cz.michalmusil.dnoratingsystem.service.ClientService;
+import cz.michalmusil.dnoratingsystem.service.IdempotentCalculationService;
+import cz.michalmusil.dnoratingsystem.service.QuoteCache;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.function.Function;
+
+/**
+ * Export počítadel aplikačních cache (klienti, výsledky výpočtu, idempotentní odpovědi) do Micrometeru.
+ * Metriky mají tag {@code cache} se jménem cache, stejně jako vestavěné metriky Spring cache.
+ */
+@Configuration
+public class MetricsConfig {
+
+    @Bean
+    public MeterBinder applicationCacheMetrics(ClientService clientService, QuoteCache quoteCache,
+                                               IdempotentCalculationService idempotentCalculationService) {
+        return registry -> {
+            bind(registry, "clients", clientService, ClientService::cacheStats);
+            bind(registry, "quotes", quoteCache, QuoteCache::stats);
+            bind(registry, "idempotency_keys", idempotentCalculationService, IdempotentCalculationService::keyedStats);
+            bind(registry, "idempotency_content", idempotentCalculationService, IdempotentCalculationService::contentStats);
+        };
+    }
+
+    // Micrometer drží sledovaný objekt jen slabou referencí - předává se proto singleton bean, ne lambda
+    private static <T> void bind(MeterRegistry registry, String name, T owner, Function<T, CacheStats> stats) {
+        Gauge.builder("cache.size", owner, o -> stats.apply(o).size())
+                .tag("cache", name)
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).hits())
+                .tag("cache", name).tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("cache.gets", owner, o -> stats.apply(o).misses())
+                .tag("cache", name).tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("cache.evictions", owner, o -> stats.apply(o).evictions())
+                .tag("cache", name)
+                .register(registry);
+    }
+}
@@ -0,0 +1,43 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import io.r2dbc.spi.ConnectionFactories;
+import io.r2dbc.spi.ConnectionFactory;
+import io.r2dbc.spi.ConnectionFactoryOptions;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+/**
+ * R2DBC pro reaktivní nasazení. Bean je jen DatabaseClient, ConnectionFactory je schovaný uvnitř -
+ * Spring Boot při existenci ConnectionFactory beanu nevytvoří JDBC DataSource, který dál potřebuje
+ * sdílená část aplikace (JPA repository, sazebník, metriky). Pool spojení proto zavírá tato konfigurace.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveDatabaseConfig {
+
+    private ConnectionFactory connectionFactory;
+
+    @Bean
+    public DatabaseClient reactiveDatabaseClient(@Value("${rating.r2dbc.url}") String url,
+                                                 @Value("${rating.r2dbc.username}") String username,
+                                                 @Value("${rating.r2dbc.password}") String password) {
+        connectionFactory = ConnectionFactories.get(ConnectionFactoryOptions.parse(url).mutate()
+                .option(ConnectionFactoryOptions.USER, username)
+                .option(ConnectionFactoryOptions.PASSWORD, password)
+                .build());
+        return DatabaseClient.create(connectionFactory);
+    }
+
+    // Konfigurace se ruší až po všech beanech, které DatabaseClient používají
+    @PreDestroy
+    public void closeConnectionPool() {
+        if (connectionFactory instanceof ConnectionPool pool) {
+            pool.dispose();
+        }
+    }
+}
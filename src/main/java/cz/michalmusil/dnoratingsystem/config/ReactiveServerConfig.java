@@ -0,0 +1,21 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.embedded.netty.NettyReactiveWebServerFactory;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * V reaktivním nasazení běží server na Reactor Netty (pár event-loop vláken pro všechna spojení).
+ * Bez tohoto beanu by Spring Boot zvolil Tomcat, který je na classpath kvůli servletovému nasazení.
+ * Nastavení server.* se na factory aplikují stejně jako u automatické konfigurace.
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveServerConfig {
+
+    @Bean
+    public NettyReactiveWebServerFactory nettyReactiveWebServerFactory() {
+        return new NettyReactiveWebServerFactory();
+    }
+}
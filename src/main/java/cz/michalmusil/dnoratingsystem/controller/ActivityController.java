@@ -0,0 +1,56 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalog;
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalogRegistry;
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.model.ActivityType;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/activities")
+public class ActivityController {
+
+    private static final int MAX_SEARCH_LIMIT = 100;
+
+    private final ActivityCatalogRegistry activityCatalogRegistry;
+
+    public ActivityController(ActivityCatalogRegistry activityCatalogRegistry) {
+        this.activityCatalogRegistry = activityCatalogRegistry;
+    }
+
+    /**
+     * Našeptávání činností podle začátku kódu (např. "62.0") nebo slova v názvu (např. "progr").
+     *
+     * @param q Hledaný text.
+     * @param limit Maximální počet výsledků (nejvýše 100).
+     * @return Seznam nalezených činností i s indexem aktivity.
+     */
+    @GetMapping
+    public ResponseEntity<List<ActivityType>> searchActivities(@RequestParam String q,
+                                                               @RequestParam(defaultValue = "20") int limit) {
+        List<ActivityType> activities = activityCatalogRegistry.current().search(q, Math.min(limit, MAX_SEARCH_LIMIT));
+        return new ResponseEntity<>(activities, HttpStatus.OK);
+    }
+
+    /**
+     * Znovu načte číselník činností. Výpočty pojistného běží dál se stávajícím číselníkem, dokud není nový připraven.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reloadActivities() {
+        try {
+            ActivityCatalog catalog = activityCatalogRegistry.reload();
+            return new ResponseEntity<>(Map.of("version", catalog.getVersion(), "size", catalog.size()), HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Číselník činností se nepodařilo načíst: " + e.getMessage());
+        }
+    }
+}
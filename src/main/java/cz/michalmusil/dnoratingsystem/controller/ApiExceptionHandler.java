@@ -0,0 +1,56 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.web.bind.annotation.ExceptionHandler;
+import org.springframework.web.bind.annotation.RestControllerAdvice;
+import org.springframework.web.bind.support.WebExchangeBindException;
+import org.springframework.web.server.ServerWebInputException;
+
+import java.util.List;
+
+/**
+ * Chyby, které vzniknou ještě před voláním metody controlleru (čtení a validace těla požadavku),
+ * v jednotném formátu ErrorResponseDto. Platí pro servletové i reaktivní nasazení.
+ * Validace včetně podmínek sazebníku (@RatableRisk) proběhne bez přístupu do databáze.
+ */
+@RestControllerAdvice
+public class ApiExceptionHandler {
+
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidBody(MethodArgumentNotValidException e) {
+        return invalid(e.getBindingResult());
+    }
+
+    @ExceptionHandler(WebExchangeBindException.class)
+    public ResponseEntity<ErrorResponseDto> handleInvalidBody(WebExchangeBindException e) {
+        return invalid(e.getBindingResult());
+    }
+
+    @ExceptionHandler(HttpMessageNotReadableException.class)
+    public ResponseEntity<ErrorResponseDto> handleUnreadableBody(HttpMessageNotReadableException e) {
+        return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatný formát požadavku: " + e.getMostSpecificCause().getMessage());
+    }
+
+    @ExceptionHandler(ServerWebInputException.class)
+    public ResponseEntity<ErrorResponseDto> handleUnreadableBody(ServerWebInputException e) {
+        return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatný formát požadavku: " + e.getMostSpecificCause().getMessage());
+    }
+
+    private static ResponseEntity<ErrorResponseDto> invalid(BindingResult bindingResult) {
+        // Stejný tvar "pole: zpráva" jako u položek dávky (BatchItemResultDto)
+        List<String> errors = bindingResult.getAllErrors().stream()
+                .map(error -> error instanceof FieldError fieldError
+                        ? fieldError.getField() + ": " + fieldError.getDefaultMessage()
+                        : error.getObjectName() + ": " + error.getDefaultMessage())
+                .sorted()
+                .toList();
+        HttpStatus status = HttpStatus.BAD_REQUEST;
+        return new ResponseEntity<>(ErrorResponseDto.of(status, "Neplatný požadavek", errors), status);
+    }
+}
@@ -0,0 +1,57 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.service.RiskArchiveService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Archiv starších kalkulací. Agregace nad archivem je na /api/risks/analytics?source=archive.
+ */
+@RestController
+@RequestMapping("/api/risks/archive")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "rating.archive.enabled", havingValue = "true")
+public class ArchiveController {
+
+    private final RiskArchiveService riskArchiveService;
+
+    public ArchiveController(RiskArchiveService riskArchiveService) {
+        this.riskArchiveService = riskArchiveService;
+    }
+
+    /**
+     * Stav archivu - počet segmentů a rizik, velikost a pokryté období.
+     */
+    @GetMapping
+    public ResponseEntity<?> getArchive() {
+        try {
+            return ResponseEntity.ok(riskArchiveService.status());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Okamžitě připojí do archivu rizika, která od posledního exportu překročila hranici stáří
+     * (jinak se to děje periodicky). Odpověď přijde po dokončení exportu.
+     *
+     * @return ResponseEntity se stavem archivu, 409 pokud už export běží.
+     */
+    @PostMapping
+    public ResponseEntity<?> exportToArchive() {
+        try {
+            return ResponseEntity.ok(riskArchiveService.export());
+        } catch (IllegalStateException e) {
+            return ErrorResponseDto.response(HttpStatus.CONFLICT, "Export do archivu nelze provést: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,38 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.cache.CacheStats;
+import cz.michalmusil.dnoratingsystem.service.ClientService;
+import cz.michalmusil.dnoratingsystem.service.IdempotentCalculationService;
+import cz.michalmusil.dnoratingsystem.service.QuoteCache;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/cache")
+public class CacheController {
+
+    private final ClientService clientService;
+    private final QuoteCache quoteCache;
+    private final IdempotentCalculationService idempotentCalculationService;
+
+    public CacheController(ClientService clientService, QuoteCache quoteCache,
+                           IdempotentCalculationService idempotentCalculationService) {
+        this.clientService = clientService;
+        this.quoteCache = quoteCache;
+        this.idempotentCalculationService = idempotentCalculationService;
+    }
+
+    /**
+     * Vrátí počítadla zásahů, výpadků a vyřazení pro aplikační cache.
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<List<CacheStats>> getCacheStats() {
+        return new ResponseEntity<>(List.of(clientService.cacheStats(), quoteCache.stats(),
+                idempotentCalculationService.keyedStats(), idempotentCalculationService.contentStats()), HttpStatus.OK);
+    }
+}
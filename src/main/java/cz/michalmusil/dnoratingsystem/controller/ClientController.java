@@ -0,0 +1,83 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ClientRiskHistoryDto;
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.repository.ClientRepository;
+import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Optional;
+
+@RestController
+@RequestMapping("/api/clients")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class ClientController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+    private static final char CURSOR_SEPARATOR = '_';
+
+    private final ClientRepository clientRepository;
+    private final RiskRepository riskRepository;
+
+    public ClientController(ClientRepository clientRepository, RiskRepository riskRepository) {
+        this.clientRepository = clientRepository;
+        this.riskRepository = riskRepository;
+    }
+
+    /**
+     * Historie kalkulací klienta od nejnovější (podle data výpočtu, při shodě podle ID).
+     * Keyset stránkování: hlavička X-Next-Cursor (ve tvaru {@code <calculationDate>_<id>})
+     * se posílá jako parametr {@code before} pro další stránku. Hlavička X-Has-Next jako u výpisu rizik.
+     *
+     * @param ico IČO klienta.
+     * @param before Kurzor z předchozí stránky, pro první stránku se neposílá.
+     * @param size Velikost stránky (1 až 1000).
+     * @return ResponseEntity se seznamem kalkulací, 404 pro neznámé IČO nebo chybovou zprávou.
+     */
+    @GetMapping("/{ico}/risks")
+    public ResponseEntity<?> getClientRisks(@PathVariable String ico,
+                                            @RequestParam(required = false) String before,
+                                            @RequestParam(defaultValue = "50") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatná velikost stránky: " + size);
+        }
+        Optional<Long> clientId = clientRepository.findIdByIco(ico);
+        if (clientId.isEmpty()) {
+            return ErrorResponseDto.response(HttpStatus.NOT_FOUND, "Klient s IČO " + ico + " neexistuje.");
+        }
+
+        List<ClientRiskHistoryDto> risks;
+        if (before == null) {
+            risks = riskRepository.findHistoryByClientId(clientId.get(), Limit.of(size + 1));
+        } else {
+            int separator = before.lastIndexOf(CURSOR_SEPARATOR);
+            try {
+                LocalDateTime beforeDate = LocalDateTime.parse(before.substring(0, Math.max(separator, 0)));
+                Long beforeId = Long.valueOf(before.substring(separator + 1));
+                risks = riskRepository.findHistoryByClientIdBefore(clientId.get(), beforeDate, beforeId, Limit.of(size + 1));
+            } catch (DateTimeParseException | NumberFormatException e) {
+                return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatný kurzor: " + before);
+            }
+        }
+
+        boolean hasNext = risks.size() > size;
+        List<ClientRiskHistoryDto> page = hasNext ? risks.subList(0, size) : risks;
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().header("X-Has-Next", String.valueOf(hasNext));
+        if (hasNext) {
+            ClientRiskHistoryDto last = page.get(page.size() - 1);
+            builder.header("X-Next-Cursor", last.getCalculationDate().toString() + CURSOR_SEPARATOR + last.getId());
+        }
+        return builder.body(page);
+    }
+}
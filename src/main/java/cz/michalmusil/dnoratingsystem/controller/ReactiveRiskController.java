@@ -0,0 +1,84 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.service.ReactiveRatingService;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.util.List;
+
+/**
+ * Reaktivní (WebFlux + R2DBC) varianta API rizik pro nasazení s {@code spring.main.web-application-type=reactive}.
+ * Nahrazuje {@link RiskController}, který se v reaktivním nasazení nevytváří.
+ * Podporuje výpočet, quote, keyset výpis a streamovaný export; dávkové endpointy a import zůstávají jen v servletovém nasazení.
+ */
+@RestController
+@RequestMapping("/api/risks")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRiskController {
+
+    private static final int MAX_PAGE_SIZE = 1000;
+
+    private final ReactiveRatingService reactiveRatingService;
+
+    public ReactiveRiskController(ReactiveRatingService reactiveRatingService) {
+        this.reactiveRatingService = reactiveRatingService;
+    }
+
+    @PostMapping("/calculate")
+    public Mono<ResponseEntity<?>> calculateRiskPremium(@Valid @RequestBody RiskRequestDto riskRequestDto) {
+        return reactiveRatingService.calculateNettoPremium(riskRequestDto)
+                .<ResponseEntity<?>>map(riskResponseDto -> new ResponseEntity<>(riskResponseDto, HttpStatus.OK))
+                .onErrorResume(e -> Mono.just(e instanceof IllegalArgumentException
+                        ? ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při výpočtu pojistného: " + e.getMessage())
+                        : ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage())));
+    }
+
+    @PostMapping("/quote")
+    public Mono<ResponseEntity<?>> quoteRiskPremium(@Valid @RequestBody RiskRequestDto riskRequestDto) {
+        return reactiveRatingService.quote(riskRequestDto)
+                .<ResponseEntity<?>>map(riskResponseDto -> new ResponseEntity<>(riskResponseDto, HttpStatus.OK))
+                .onErrorResume(IllegalArgumentException.class, e -> Mono.just(
+                        ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při výpočtu pojistného: " + e.getMessage())));
+    }
+
+    /**
+     * Keyset stránka rizik s ID větším než {@code after} (pro první stránku {@code after=0}).
+     * Hlavičky X-Has-Next a X-Next-Cursor jako u servletové varianty.
+     */
+    @GetMapping
+    public Mono<ResponseEntity<?>> getRisks(@RequestParam(defaultValue = "0") long after,
+                                            @RequestParam(defaultValue = "50") int size) {
+        if (size < 1 || size > MAX_PAGE_SIZE) {
+            return Mono.just(ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatná velikost stránky: " + size));
+        }
+        return reactiveRatingService.findRisksAfter(after, size + 1)
+                .collectList()
+                .map(risks -> {
+                    boolean hasNext = risks.size() > size;
+                    List<RiskResponseDto> page = hasNext ? risks.subList(0, size) : risks;
+                    ResponseEntity.BodyBuilder builder = ResponseEntity.ok().header("X-Has-Next", String.valueOf(hasNext));
+                    if (hasNext) {
+                        builder.header("X-Next-Cursor", String.valueOf(page.get(page.size() - 1).getId()));
+                    }
+                    return builder.body(page);
+                });
+    }
+
+    /**
+     * Streamovaný export všech rizik jako NDJSON. Řádky se z databáze čtou podle rychlosti,
+     * jakou je klient odebírá (backpressure až do R2DBC kurzoru).
+     */
+    @GetMapping(value = "/export", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public Flux<RiskResponseDto> exportRisks() {
+        return reactiveRatingService.streamAllRisks();
+    }
+}
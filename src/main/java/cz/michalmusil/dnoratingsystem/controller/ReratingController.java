@@ -0,0 +1,64 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ReratingJobDto;
+import cz.michalmusil.dnoratingsystem.service.RiskReratingService;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.net.URI;
+
+@RestController
+@RequestMapping("/api/risks/rerating")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+@ConditionalOnProperty(name = "rating.rerating.enabled", havingValue = "true")
+public class ReratingController {
+
+    private final RiskReratingService riskReratingService;
+
+    public ReratingController(RiskReratingService riskReratingService) {
+        this.riskReratingService = riskReratingService;
+    }
+
+    /**
+     * Spustí na pozadí přecenění všech uložených rizik podle aktuálního sazebníku.
+     * Výsledky (staré a nové pojistné pro každé riziko) se ukládají do tabulky rerating_results.
+     *
+     * @return 202 se stavem úlohy a hlavičkou Location, 409 pokud už nějaké přecenění běží.
+     */
+    @PostMapping
+    public ResponseEntity<?> startRerating() {
+        try {
+            ReratingJobDto job = riskReratingService.start();
+            return ResponseEntity.accepted().location(URI.create("/api/risks/rerating/" + job.getId())).body(job);
+        } catch (IllegalStateException e) {
+            return ErrorResponseDto.response(HttpStatus.CONFLICT, "Přecenění už probíhá: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Průběh úlohy přecenění - počet zpracovaných rizik, procento, propustnost a souhrny pojistného.
+     *
+     * @param id ID úlohy.
+     * @return ResponseEntity se stavem úlohy nebo 404 pro neznámou úlohu.
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<?> getRerating(@PathVariable long id) {
+        try {
+            return riskReratingService.status(id)
+                    .<ResponseEntity<?>>map(ResponseEntity::ok)
+                    .orElseGet(() -> ErrorResponseDto.response(HttpStatus.NOT_FOUND, "Úloha přecenění " + id + " neexistuje."));
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+}
@@ -1,77 +1,327 @@
 package cz.michalmusil.dnoratingsystem.controller;
 
+import cz.michalmusil.dnoratingsystem.config.CborConfig;
+import cz.michalmusil.dnoratingsystem.dto.BatchResponseDto;
 import cz.michalmusil.dnoratingsystem.dto.ClientResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ImportResultDto;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateDto;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioDimension;
 import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
 import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
-import cz.michalmusil.dnoratingsystem.model.Client; // Stále potřebujeme pro getAllClients
-import cz.michalmusil.dnoratingsystem.model.Risk; // Stále potřebujeme pro getAllRisks
+import cz.michalmusil.dnoratingsystem.dto.RiskRowDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepResponseDto;
 import cz.michalmusil.dnoratingsystem.repository.ClientRepository; // Stále potřebujeme pro getAllClients
 import cz.michalmusil.dnoratingsystem.repository.RiskRepository; // Stále potřebujeme pro getAllRisks
+import cz.michalmusil.dnoratingsystem.service.BatchRatingService;
+import cz.michalmusil.dnoratingsystem.service.IdempotencyConflictException;
+import cz.michalmusil.dnoratingsystem.service.IdempotentCalculationService;
+import cz.michalmusil.dnoratingsystem.service.PortfolioAnalyticsService;
+import cz.michalmusil.dnoratingsystem.service.PremiumSweepService;
 import cz.michalmusil.dnoratingsystem.service.RatingService;
+import cz.michalmusil.dnoratingsystem.service.RiskExportService;
+import cz.michalmusil.dnoratingsystem.service.RiskImportService;
 import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.mapping.PropertyReferenceException;
+import org.springframework.data.web.PageableDefault;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
 import java.util.List;
 import java.util.stream.Collectors;
 
+// V reaktivním nasazení (spring.main.web-application-type=reactive) jej nahrazuje ReactiveRiskController
 @RestController
 @RequestMapping("/api/risks")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class RiskController {
 
     private final RatingService ratingService;
-    private final ClientRepository clientRepository; // Ponecháme pro getAllClients
-    private final RiskRepository riskRepository; // Ponecháme pro getAllRisks
+    private final IdempotentCalculationService idempotentCalculationService;
+    private final BatchRatingService batchRatingService;
+    private final ClientRepository clientRepository;
+    private final RiskRepository riskRepository;
+    private final RiskExportService riskExportService;
+    private final RiskImportService riskImportService;
+    private final PortfolioAnalyticsService portfolioAnalyticsService;
+    private final PremiumSweepService premiumSweepService;
 
-    public RiskController(RatingService ratingService, ClientRepository clientRepository, RiskRepository riskRepository) {
+    public RiskController(RatingService ratingService, IdempotentCalculationService idempotentCalculationService,
+                          BatchRatingService batchRatingService,
+                          ClientRepository clientRepository, RiskRepository riskRepository,
+                          RiskExportService riskExportService, RiskImportService riskImportService,
+                          PortfolioAnalyticsService portfolioAnalyticsService, PremiumSweepService premiumSweepService) {
         this.ratingService = ratingService;
+        this.idempotentCalculationService = idempotentCalculationService;
+        this.batchRatingService = batchRatingService;
         this.clientRepository = clientRepository;
         this.riskRepository = riskRepository;
+        this.riskExportService = riskExportService;
+        this.riskImportService = riskImportService;
+        this.portfolioAnalyticsService = portfolioAnalyticsService;
+        this.premiumSweepService = premiumSweepService;
     }
 
     /**
      * Zpracuje požadavek na výpočet pojistného pro riziko.
      * Přijímá RiskRequestDto, deleguje výpočet na RatingService
      * a vrátí RiskResponseDto.
+     * Opakovaný požadavek se stejnou hlavičkou Idempotency-Key (bez ní se stejným obsahem
+     * v krátkém okně) vrátí původní výsledek bez nového uložení a s hlavičkou Idempotent-Replayed: true.
      *
+     * @param idempotencyKey Volitelný klíč požadavku od klienta (např. UUID).
      * @param riskRequestDto DTO obsahující data o riziku a klientovi.
      * @return ResponseEntity s vypočítaným rizikem (RiskResponseDto) nebo chybovou zprávou.
      */
     @PostMapping("/calculate")
-    public ResponseEntity<?> calclulateRiskPremium(@Valid @RequestBody RiskRequestDto riskRequestDto) {
+    public ResponseEntity<?> calclulateRiskPremium(@RequestHeader(name = "Idempotency-Key", required = false) String idempotencyKey,
+                                                   @Valid @RequestBody RiskRequestDto riskRequestDto) {
         try {
             // Celá logika konverze a výpočtu je nyní v RatingService
-            RiskResponseDto riskResponseDto = ratingService.calculateNettoPremium(riskRequestDto);
-            return new ResponseEntity<>(riskResponseDto, HttpStatus.OK);
+            IdempotentCalculationService.Outcome outcome = idempotentCalculationService.calculate(idempotencyKey, riskRequestDto);
+            return ResponseEntity.ok()
+                    .header("Idempotent-Replayed", String.valueOf(outcome.replayed()))
+                    .body(outcome.response());
+        } catch (IdempotencyConflictException e) {
+            HttpStatus status = e.getReason() == IdempotencyConflictException.Reason.IN_PROGRESS
+                    ? HttpStatus.CONFLICT
+                    : HttpStatus.UNPROCESSABLE_ENTITY;
+            return ErrorResponseDto.response(status, "Konflikt idempotentního požadavku: " + e.getMessage());
         } catch (IllegalArgumentException e) {
-            // Zde by bylo lepší vrátit ErrorResponse DTO s konkrétní chybovou zprávou
-            // Namísto "An error occurred", která není moc informativní pro klienta
-            return new ResponseEntity<>("Chyba při výpočtu pojistného: " + e.getMessage(), HttpStatus.BAD_REQUEST); // Lepší stavový kód
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při výpočtu pojistného: " + e.getMessage());
         } catch (Exception e) {
             // Obecná chyba serveru
-            return new ResponseEntity<>("Nastala neočekávaná chyba serveru: " + e.getMessage(), HttpStatus.INTERNAL_SERVER_ERROR);
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Dávkový výpočet a uložení pojistného pro více rizik najednou.
+     * Položky se validují jednotlivě - neplatná položka se vrátí s chybami
+     * a zbytek dávky se zpracuje normálně.
+     *
+     * @param riskRequestDtos Seznam DTO s daty o rizicích a klientech.
+     * @return ResponseEntity se souhrnem dávky (BatchResponseDto) nebo chybovou zprávou.
+     */
+    @PostMapping("/calculate/batch")
+    public ResponseEntity<?> calculateRiskPremiumBatch(@RequestBody List<RiskRequestDto> riskRequestDtos) {
+        try {
+            BatchResponseDto batchResponseDto = batchRatingService.calculateBatch(riskRequestDtos);
+            return new ResponseEntity<>(batchResponseDto, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při zpracování dávky: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Spočítá pojistné bez uložení klienta či rizika (žádný přístup do databáze).
+     * Určeno pro průběžné přepočty z UI; pro uložení kalkulace slouží /calculate.
+     *
+     * @param riskRequestDto DTO obsahující data o riziku a klientovi.
+     * @return ResponseEntity s vypočítaným pojistným (RiskResponseDto bez id) nebo chybovou zprávou.
+     */
+    @PostMapping("/quote")
+    public ResponseEntity<?> quoteRiskPremium(@Valid @RequestBody RiskRequestDto riskRequestDto) {
+        try {
+            RiskResponseDto riskResponseDto = ratingService.quote(riskRequestDto);
+            return new ResponseEntity<>(riskResponseDto, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při výpočtu pojistného: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
         }
     }
 
+    /**
+     * Citlivostní analýza - pojistné pro mřížku limitů a scénářů (obrat, finanční výkonnost, provize)
+     * jedním voláním. Nic se neukládá; výsledky odpovídají jednotlivým voláním /quote.
+     *
+     * @param sweepRequestDto Rozsahy vstupů a činnost.
+     * @return ResponseEntity s maticí pojistného (SweepResponseDto) nebo chybovou zprávou.
+     */
+    @PostMapping("/quote/sweep")
+    public ResponseEntity<?> sweepRiskPremium(@Valid @RequestBody SweepRequestDto sweepRequestDto) {
+        try {
+            SweepResponseDto sweepResponseDto = premiumSweepService.sweep(sweepRequestDto);
+            return new ResponseEntity<>(sweepResponseDto, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při výpočtu citlivostní analýzy: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stránkovaný výpis rizik včetně údajů o klientovi (plochá projekce s joinem na klienta, bez entit).
+     * Bez parametru {@code after} jde o klasické stránkování ({@code page}, {@code size}, {@code sort}).
+     * S parametrem {@code after} jde o keyset stránkování podle ID - vrátí rizika s ID větším
+     * než {@code after}; pro první stránku se posílá {@code after=0}.
+     * Informace o další stránce jsou v hlavičkách X-Has-Next a X-Next-Cursor.
+     *
+     * @param after ID posledního rizika z předchozí stránky (keyset režim).
+     * @param pageable Číslo a velikost stránky, řazení.
+     * @return ResponseEntity se seznamem rizik na stránce nebo chybovou zprávou.
+     */
     @GetMapping
-    public ResponseEntity<List<RiskResponseDto>> getAllRisks() {
-        // Delegujeme získání a konverzi rizik na servisní vrstvu (pokud má RatingService takovou metodu)
-        // Nebo to uděláme zde, ale je lepší to mít v servisu.
-        // Pro jednoduchost a rychlou opravu: ponecháme to zde, ale v ideálním případě by RatingService měl mít metodu getAllRiskResponses()
-        List<Risk> risks = riskRepository.findAll();
-        List<RiskResponseDto> dtos = risks.stream()
-                .map(RiskResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        return new ResponseEntity<>(dtos, HttpStatus.OK);
+    public ResponseEntity<?> getAllRisks(@RequestParam(required = false) Long after,
+                                         @PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        try {
+            if (after != null) {
+                List<RiskRowDto> risks = riskRepository.findRowsByIdGreaterThan(after, Limit.of(pageable.getPageSize() + 1));
+                boolean hasNext = risks.size() > pageable.getPageSize();
+                List<RiskResponseDto> dtos = risks.stream()
+                        .limit(pageable.getPageSize())
+                        .map(RiskResponseDto::fromRow)
+                        .collect(Collectors.toList());
+                return page(dtos, hasNext, dtos.isEmpty() ? null : dtos.get(dtos.size() - 1).getId());
+            }
+            Slice<RiskRowDto> risks = riskRepository.findRowsBy(pageable);
+            List<RiskResponseDto> dtos = risks.stream()
+                    .map(RiskResponseDto::fromRow)
+                    .collect(Collectors.toList());
+            return page(dtos, risks.hasNext(), null);
+        } catch (PropertyReferenceException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatné řazení: " + e.getMessage());
+        }
     }
 
+    /**
+     * Streamovaný export všech rizik ve formátu NDJSON (jeden JSON objekt na řádek, seřazeno podle ID).
+     * Data se čtou z databáze kurzorem a průběžně odesílají, v paměti se nedrží celá tabulka.
+     */
+    @GetMapping(value = "/export", produces = "application/x-ndjson")
+    public ResponseEntity<StreamingResponseBody> exportRisks() {
+        StreamingResponseBody body = riskExportService::writeNdjson;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType("application/x-ndjson"))
+                .body(body);
+    }
+
+    /**
+     * Streamovaný export všech rizik jako CBOR sequence (Accept: application/cbor-seq) - stejné položky
+     * jako NDJSON export, binárně a bez oddělovačů. Schéma položky viz {@code schema/risk-api.cddl}.
+     */
+    @GetMapping(value = "/export", produces = CborConfig.APPLICATION_CBOR_SEQ_VALUE)
+    public ResponseEntity<StreamingResponseBody> exportRisksCbor() {
+        StreamingResponseBody body = riskExportService::writeCborSequence;
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(CborConfig.APPLICATION_CBOR_SEQ_VALUE))
+                .body(body);
+    }
+
+    /**
+     * Hromadný import historických kalkulací ve formátu NDJSON (jeden RiskImportDto na řádek).
+     * Pojistné se nepřepočítává. Neplatné řádky se přeskočí a vrátí v odpovědi.
+     *
+     * @param body Tělo požadavku, čte se průběžně.
+     * @return ResponseEntity s počtem uložených a odmítnutých řádků nebo chybovou zprávou.
+     */
+    @PostMapping(value = "/import", consumes = "application/x-ndjson")
+    public ResponseEntity<?> importRisks(InputStream body) {
+        try {
+            ImportResultDto importResultDto = riskImportService.importNdjson(body);
+            return new ResponseEntity<>(importResultDto, HttpStatus.OK);
+        } catch (IOException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při čtení importu: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Hromadný import historických kalkulací jako CBOR sequence (Content-Type: application/cbor-seq),
+     * položky RiskImportDto za sebou. Zpracování stejné jako u NDJSON importu.
+     *
+     * @param body Tělo požadavku, čte se průběžně.
+     * @return ResponseEntity s počtem uložených a odmítnutých položek nebo chybovou zprávou.
+     */
+    @PostMapping(value = "/import", consumes = CborConfig.APPLICATION_CBOR_SEQ_VALUE)
+    public ResponseEntity<?> importRisksCbor(InputStream body) {
+        try {
+            ImportResultDto importResultDto = riskImportService.importCborSequence(body);
+            return new ResponseEntity<>(importResultDto, HttpStatus.OK);
+        } catch (IOException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba při čtení importu: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Agregace portfolia podle zvolené dimenze - počet kalkulací, součet pojistného
+     * a průměrné pojistné na milion limitu. Počítá se v databázi (GROUP BY).
+     *
+     * @param groupBy Dimenze: turnoverBand, limitBand, financialPerformance, activity nebo month.
+     * @param from První den období (včetně), volitelné.
+     * @param to Poslední den období (včetně), volitelné.
+     * @param source {@code live} = tabulka rizik, {@code summary} = souhrnná tabulka po měsících
+     *               (jen financialPerformance, activity a month, období po celých měsících),
+     *               {@code archive} = archiv starších kalkulací mimo databázi (jen archivovaná rizika).
+     * @return ResponseEntity se seznamem skupin nebo chybovou zprávou.
+     */
+    @GetMapping("/analytics")
+    public ResponseEntity<?> getPortfolioAnalytics(@RequestParam String groupBy,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+                                                   @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+                                                   @RequestParam(defaultValue = "live") String source) {
+        try {
+            PortfolioDimension dimension = PortfolioDimension.fromParam(groupBy);
+            List<PortfolioAggregateDto> aggregates = switch (source) {
+                case "live" -> portfolioAnalyticsService.aggregate(dimension, from, to);
+                case "summary" -> portfolioAnalyticsService.aggregateFromSummary(dimension, from, to);
+                case "archive" -> portfolioAnalyticsService.aggregateFromArchive(dimension, from, to);
+                default -> throw new IllegalArgumentException("Unknown source '" + source + "', expected live, summary or archive.");
+            };
+            return new ResponseEntity<>(aggregates, HttpStatus.OK);
+        } catch (IllegalArgumentException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba v parametrech analýzy: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Stránkovaný výpis klientů, parametry jako u {@link #getAllRisks(Long, Pageable)}.
+     * Klienti se čtou rovnou do DTO, rizika klientů se nenačítají.
+     */
     @GetMapping("/clients")
-    public ResponseEntity<List<ClientResponseDto>> getAllClients() {
-        List<Client> clients = clientRepository.findAll(); // findAll returns List v Spring Data JPA 3.x
-        List<ClientResponseDto> dtos = clients.stream()
-                .map(ClientResponseDto::fromEntity)
-                .collect(Collectors.toList());
-        return new ResponseEntity<>(dtos, HttpStatus.OK);
+    public ResponseEntity<?> getAllClients(@RequestParam(required = false) Long after,
+                                           @PageableDefault(size = 50, sort = "id") Pageable pageable) {
+        try {
+            if (after != null) {
+                List<ClientResponseDto> clients = clientRepository.findProjectedByIdGreaterThan(after, Limit.of(pageable.getPageSize() + 1));
+                boolean hasNext = clients.size() > pageable.getPageSize();
+                List<ClientResponseDto> dtos = clients.stream()
+                        .limit(pageable.getPageSize())
+                        .collect(Collectors.toList());
+                return page(dtos, hasNext, dtos.isEmpty() ? null : dtos.get(dtos.size() - 1).getId());
+            }
+            Slice<ClientResponseDto> clients = clientRepository.findAllProjectedBy(pageable);
+            return page(clients.getContent(), clients.hasNext(), null);
+        } catch (PropertyReferenceException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Neplatné řazení: " + e.getMessage());
+        }
+    }
+
+    private static <T> ResponseEntity<List<T>> page(List<T> items, boolean hasNext, Long nextCursor) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok().header("X-Has-Next", String.valueOf(hasNext));
+        if (hasNext && nextCursor != null) {
+            builder.header("X-Next-Cursor", String.valueOf(nextCursor));
+        }
+        return builder.body(items);
     }
-}
\ No newline at end of file
+}
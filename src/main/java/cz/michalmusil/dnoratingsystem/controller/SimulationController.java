@@ -0,0 +1,46 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.SimulationRequestDto;
+import cz.michalmusil.dnoratingsystem.service.PortfolioSimulationService;
+import jakarta.validation.Valid;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/risks/simulation")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class SimulationController {
+
+    private final PortfolioSimulationService portfolioSimulationService;
+
+    public SimulationController(PortfolioSimulationService portfolioSimulationService) {
+        this.portfolioSimulationService = portfolioSimulationService;
+    }
+
+    /**
+     * Monte Carlo simulace ročních škod portfolia (poslední kalkulace každého klienta).
+     * Stejný seed a počet scénářů dá nad stejným portfoliem stejné výsledky.
+     *
+     * @param requestDto Počet scénářů, seed a hladiny spolehlivosti; tělo může chybět.
+     * @return ResponseEntity s rozdělením škod (VaR/TVaR), 429 pokud už simulace běží, nebo chybovou zprávou.
+     */
+    @PostMapping
+    public ResponseEntity<?> simulate(@Valid @RequestBody(required = false) SimulationRequestDto requestDto) {
+        try {
+            return ResponseEntity.ok(portfolioSimulationService.simulate(
+                    requestDto != null ? requestDto : new SimulationRequestDto()));
+        } catch (IllegalStateException e) {
+            return ErrorResponseDto.response(HttpStatus.TOO_MANY_REQUESTS, "Simulace už probíhá, zkuste to později.");
+        } catch (IllegalArgumentException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Chyba parametrů simulace: " + e.getMessage());
+        } catch (Exception e) {
+            return ErrorResponseDto.response(HttpStatus.INTERNAL_SERVER_ERROR, "Nastala neočekávaná chyba serveru: " + e.getMessage());
+        }
+    }
+}
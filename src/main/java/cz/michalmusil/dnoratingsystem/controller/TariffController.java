@@ -0,0 +1,47 @@
+package cz.michalmusil.dnoratingsystem.controller;
+
+import cz.michalmusil.dnoratingsystem.dto.ErrorResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.TariffInfoDto;
+import cz.michalmusil.dnoratingsystem.tariff.TariffRegistry;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+@RestController
+@RequestMapping("/api/tariff")
+public class TariffController {
+
+    private final TariffRegistry tariffRegistry;
+
+    public TariffController(TariffRegistry tariffRegistry) {
+        this.tariffRegistry = tariffRegistry;
+    }
+
+    @GetMapping
+    public ResponseEntity<TariffInfoDto> getTariff() {
+        return new ResponseEntity<>(info(), HttpStatus.OK);
+    }
+
+    /**
+     * Znovu načte sazebník ze souboru. Rozpracované výpočty nejsou přerušeny.
+     * Při chybě zůstává platit dosavadní sazebník.
+     *
+     * @return ResponseEntity s informacemi o nově platném sazebníku nebo chybovou zprávou.
+     */
+    @PostMapping("/reload")
+    public ResponseEntity<?> reloadTariff() {
+        try {
+            tariffRegistry.reload();
+            return new ResponseEntity<>(info(), HttpStatus.OK);
+        } catch (RuntimeException e) {
+            return ErrorResponseDto.response(HttpStatus.BAD_REQUEST, "Sazebník se nepodařilo načíst: " + e.getMessage());
+        }
+    }
+
+    private TariffInfoDto info() {
+        return new TariffInfoDto(tariffRegistry.current().getVersion(), tariffRegistry.getLocation(), tariffRegistry.getLoadedAt());
+    }
+}
@@ -0,0 +1,21 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ArchiveStatusDto {
+
+    private String directory;
+    private int segmentCount;
+    private long rowCount; // Počet archivovaných rizik
+    private long sizeBytes;
+    private LocalDateTime coveredFrom; // Období calculation_date pokryté archivem [coveredFrom, coveredTo), null u prázdného archivu
+    private LocalDateTime coveredTo;
+    private long exportedRows; // Rizika přidaná exportem, u samotného stavu 0
+}
@@ -0,0 +1,29 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchItemResultDto {
+
+    private int index; // Pozice položky ve vstupní dávce
+    private RiskResponseDto result; // Vyplněno jen u úspěšně spočítané a uložené položky
+    private List<String> errors; // Validační chyby, u úspěšné položky prázdné
+
+    public static BatchItemResultDto success(int index, RiskResponseDto result) {
+        return new BatchItemResultDto(index, result, List.of());
+    }
+
+    public static BatchItemResultDto failure(int index, List<String> errors) {
+        return new BatchItemResultDto(index, null, errors);
+    }
+
+    public boolean isSuccess() {
+        return errors == null || errors.isEmpty();
+    }
+}
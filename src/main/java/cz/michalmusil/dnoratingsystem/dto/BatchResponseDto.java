@@ -0,0 +1,18 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class BatchResponseDto {
+
+    private int total;
+    private int succeeded;
+    private int failed;
+    private List<BatchItemResultDto> items; // Ve stejném pořadí jako vstupní dávka
+}
@@ -0,0 +1,45 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Jedna kalkulace v historii klienta. Plní se přímo JPQL konstruktorovým výrazem
+ * (bez Risk a Client entit), údaje klienta se neopakují - jsou v URL.
+ * Hodnoty jsou ve stejných jednotkách jako RiskResponseDto z výpočtu i z výpisu rizik (provize v procentech, jak je uložená).
+ */
+@Data
+@NoArgsConstructor
+public class ClientRiskHistoryDto {
+
+    private Long id;
+    private String activity;
+    private BigDecimal turnoverInThousands;
+    private BigDecimal limitInMillions;
+    private FinancialPerformance financialPerformance;
+    private BigDecimal brokerCommissionPercentage;
+    private BigDecimal nettoPremium;
+    private String tariffVersion;
+    private LocalDateTime calculationDate;
+
+    /**
+     * Konstruktor pro JPQL projekci - přebírá hodnoty ve tvaru, v jakém jsou uložené v tabulce risks.
+     */
+    public ClientRiskHistoryDto(Long id, String activity, BigDecimal turnover, BigDecimal limitAmount,
+                                FinancialPerformance financialPerformance, BigDecimal brokerCommissionPercentage,
+                                BigDecimal nettoPremium, String tariffVersion, LocalDateTime calculationDate) {
+        this.id = id;
+        this.activity = activity;
+        this.turnoverInThousands = RiskResponseDto.toThousands(turnover);
+        this.limitInMillions = RiskResponseDto.toMillions(limitAmount);
+        this.financialPerformance = financialPerformance;
+        this.brokerCommissionPercentage = brokerCommissionPercentage; // Uložená už v procentech
+        this.nettoPremium = nettoPremium;
+        this.tariffVersion = tariffVersion;
+        this.calculationDate = calculationDate;
+    }
+}
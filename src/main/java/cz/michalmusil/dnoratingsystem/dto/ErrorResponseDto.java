@@ -0,0 +1,31 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.List;
+
+/**
+ * Jednotné tělo chybové odpovědi všech endpointů.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ErrorResponseDto {
+
+    private int status;
+    private String error; // Textový popis stavového kódu, např. "Bad Request"
+    private String message;
+    private List<String> errors; // Jednotlivé validační chyby ve tvaru "pole: zpráva", jinak prázdné
+
+    public static ErrorResponseDto of(HttpStatus status, String message, List<String> errors) {
+        return new ErrorResponseDto(status.value(), status.getReasonPhrase(), message, errors);
+    }
+
+    public static ResponseEntity<ErrorResponseDto> response(HttpStatus status, String message) {
+        return new ResponseEntity<>(of(status, message, List.of()), status);
+    }
+}
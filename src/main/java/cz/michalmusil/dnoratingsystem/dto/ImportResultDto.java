@@ -0,0 +1,17 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportResultDto {
+
+    private long imported;
+    private long failed;
+    private List<String> errors; // Chyby ve tvaru "Line N: ..." (neuložená část "Line N - Line M: ..."), jen prvních několik
+}
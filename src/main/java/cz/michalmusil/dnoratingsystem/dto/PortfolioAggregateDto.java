@@ -0,0 +1,18 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PortfolioAggregateDto {
+
+    private String group; // Hodnota dimenze, u pásem rozsah (např. "100000000-500000000", "40M+")
+    private long quoteCount;
+    private BigDecimal totalNettoPremium;
+    private BigDecimal averagePremiumPerMillion; // Součet pojistného / součet limitu v milionech, null u nulového limitu
+}
@@ -0,0 +1,17 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import java.math.BigDecimal;
+
+/**
+ * Řádek agregace portfolia z nativního GROUP BY dotazu (Spring Data interface projekce).
+ */
+public interface PortfolioAggregateView {
+
+    String getGroupKey();
+
+    long getQuoteCount();
+
+    BigDecimal getTotalNettoPremium();
+
+    BigDecimal getTotalLimitAmount();
+}
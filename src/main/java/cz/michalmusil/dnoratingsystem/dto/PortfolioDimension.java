@@ -0,0 +1,41 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import java.util.Arrays;
+
+/**
+ * Dimenze, podle které se agreguje portfolio (parametr {@code groupBy}).
+ */
+public enum PortfolioDimension {
+    TURNOVER_BAND("turnoverBand", false),
+    LIMIT_BAND("limitBand", false),
+    FINANCIAL_PERFORMANCE("financialPerformance", true),
+    ACTIVITY("activity", true),
+    MONTH("month", true);
+
+    private final String param;
+    private final boolean availableInSummary;
+
+    PortfolioDimension(String param, boolean availableInSummary) {
+        this.param = param;
+        this.availableInSummary = availableInSummary;
+    }
+
+    public String getParam() {
+        return param;
+    }
+
+    /**
+     * @return Zda lze dimenzi počítat ze souhrnné tabulky (pásma potřebují jednotlivé obraty a limity).
+     */
+    public boolean isAvailableInSummary() {
+        return availableInSummary;
+    }
+
+    public static PortfolioDimension fromParam(String param) {
+        return Arrays.stream(values())
+                .filter(d -> d.param.equals(param))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException("Unknown groupBy '" + param + "', expected one of "
+                        + Arrays.stream(values()).map(PortfolioDimension::getParam).toList() + "."));
+    }
+}
@@ -0,0 +1,29 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ReratingJobDto {
+
+    private Long id;
+    private String status; // RUNNING, COMPLETED nebo FAILED
+    private String tariffVersion; // Sazebník, podle kterého se přeceňuje
+    private long totalCount; // Počet rizik při založení úlohy
+    private long processedCount; // Přeceněná rizika včetně těch, která nešlo ocenit
+    private long failedCount; // Rizika, která podle nového sazebníku nelze ocenit
+    private BigDecimal progressPercent;
+    private BigDecimal throughputPerSecond; // Rizika za sekundu (aktuální běh, u neběžící úlohy průměr)
+    private BigDecimal oldPremiumTotal; // Součty jen za úspěšně přeceněná rizika
+    private BigDecimal newPremiumTotal;
+    private LocalDateTime createdAt;
+    private LocalDateTime updatedAt; // Čas posledního checkpointu
+    private LocalDateTime finishedAt;
+    private String error;
+}
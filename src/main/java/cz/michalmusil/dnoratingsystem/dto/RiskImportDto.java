@@ -0,0 +1,62 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Jeden řádek hromadného importu historických kalkulací. Pojistné se nepřepočítává,
+ * ukládá se tak, jak bylo tehdy spočítáno. Jednotky jako u RiskRequestDto
+ * (obrat v tisících, limit v milionech, provize v procentech).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RiskImportDto {
+
+    @NotBlank(message = "Activity is mandatory")
+    @Size(max = 255, message = "Activity cannot exceed 255 characters")
+    private String activity;
+
+    @NotNull(message = "Turnover is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Turnover must be a non-negative value")
+    private BigDecimal turnoverInThousands;
+
+    @NotNull(message = "Limit is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Limit must be a non-negative value")
+    private BigDecimal limitInMillions;
+
+    @NotNull(message = "Financial Performance is mandatory")
+    private FinancialPerformance financialPerformance;
+
+    @NotNull(message = "Broker comission is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Broker comission muse be a non-negative value")
+    @DecimalMax(value = "100", inclusive = false, message = "Broker commission must be less than 100")
+    @Digits(integer = 2, fraction = 5, message = "Broker commission can have at most 5 decimal places") // Sloupec NUMERIC(7,5)
+    private BigDecimal brokerCommissionPercentage;
+
+    @NotNull(message = "Netto premium is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Netto premium must be a non-negative value")
+    private BigDecimal nettoPremium;
+
+    @Size(max = 32, message = "Tariff version cannot exceed 32 characters")
+    private String tariffVersion; // U kalkulací před zavedením verzí sazebníku null
+
+    @NotNull(message = "Calculation date is mandatory")
+    private LocalDateTime calculationDate;
+
+    @Valid
+    @NotNull(message = "Client data is mandatory")
+    private ClientRequestDto client;
+}
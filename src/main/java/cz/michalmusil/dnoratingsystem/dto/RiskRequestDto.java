@@ -1,6 +1,7 @@
 package cz.michalmusil.dnoratingsystem.dto;
 
 import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.validation.RatableRisk;
 import jakarta.validation.Valid;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
@@ -15,6 +16,7 @@ import java.math.BigDecimal;
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
+@RatableRisk // Podmínky sazebníku se ověří při validaci, před jakýmkoli přístupem do databáze
 public class RiskRequestDto {
 
     @NotBlank(message = "Activity is mandatory")
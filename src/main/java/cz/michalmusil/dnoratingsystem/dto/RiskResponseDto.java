@@ -19,6 +19,7 @@ public class RiskResponseDto {
     private FinancialPerformance financialPerformance;
     private BigDecimal brokerCommissionPercentage;
     private BigDecimal nettoPremium;
+    private String tariffVersion;
     private Long clientId;
     private String clientIco;
     private String clientName; // <-- PŘIDANÁ VLASTNOST
@@ -30,11 +31,12 @@ public class RiskResponseDto {
         RiskResponseDto dto = new RiskResponseDto();
         dto.setId(risk.getId());
         dto.setActivity(risk.getActivity());
-        dto.setTurnoverInThousands(risk.getTurnover().divide(new BigDecimal("1000"), 2, RoundingMode.HALF_UP));
-        dto.setLimitInMillions(risk.getLimitAmount().divide(new BigDecimal("1000000"), 2, RoundingMode.HALF_UP));
+        dto.setTurnoverInThousands(toThousands(risk.getTurnover()));
+        dto.setLimitInMillions(toMillions(risk.getLimitAmount()));
         dto.setFinancialPerformance(risk.getFinancialPerformance());
-        dto.setBrokerCommissionPercentage(risk.getBrokerCommissionPercentage().multiply(new BigDecimal("100")).setScale(2, RoundingMode.HALF_UP));
+        dto.setBrokerCommissionPercentage(risk.getBrokerCommissionPercentage()); // Uložená už v procentech
         dto.setNettoPremium(risk.getNettoPremium());
+        dto.setTariffVersion(risk.getTariffVersion());
 
         if (risk.getClient() != null) {
             dto.setClientId(risk.getClient().getId());
@@ -43,4 +45,38 @@ public class RiskResponseDto {
         }
         return dto;
     }
-}
\ No newline at end of file
+
+    /**
+     * Konvertuje plochou projekci (bez entit) na RiskResponseDto - stejné přepočty jako {@link #fromEntity(Risk)}.
+     */
+    public static RiskResponseDto fromRow(RiskRowDto row) {
+        if (row == null) {
+            return null;
+        }
+        RiskResponseDto dto = new RiskResponseDto();
+        dto.setId(row.id());
+        dto.setActivity(row.activity());
+        dto.setTurnoverInThousands(toThousands(row.turnover()));
+        dto.setLimitInMillions(toMillions(row.limitAmount()));
+        dto.setFinancialPerformance(row.financialPerformance());
+        dto.setBrokerCommissionPercentage(row.brokerCommissionPercentage()); // Uložená už v procentech
+        dto.setNettoPremium(row.nettoPremium());
+        dto.setTariffVersion(row.tariffVersion());
+        dto.setClientId(row.clientId());
+        dto.setClientIco(row.clientIco());
+        dto.setClientName(row.clientName());
+        return dto;
+    }
+
+    // --- Převody uložených hodnot na jednotky API, sdílené všemi výpisy --- //
+    // Posun desetinné čárky jen mění scale (bez dělení a bez konstant na každý řádek),
+    // výsledek je shodný s dělením/násobením mocninou deseti a zaokrouhlením HALF_UP na 2 místa.
+
+    public static BigDecimal toThousands(BigDecimal amount) {
+        return amount.movePointLeft(3).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    public static BigDecimal toMillions(BigDecimal amount) {
+        return amount.movePointLeft(6).setScale(2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,26 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Plochá projekce rizika i s údaji klienta, plněná přímo JPQL konstruktorovým výrazem.
+ * Nevytváří žádné entity, takže se hodí pro streamování velkých výpisů.
+ */
+public record RiskRowDto(
+        Long id,
+        String activity,
+        BigDecimal turnover,
+        BigDecimal limitAmount,
+        FinancialPerformance financialPerformance,
+        BigDecimal brokerCommissionPercentage,
+        BigDecimal nettoPremium,
+        String tariffVersion,
+        LocalDateTime calculationDate,
+        Long clientId,
+        String clientIco,
+        String clientName
+) {
+}
@@ -0,0 +1,32 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import jakarta.validation.constraints.DecimalMax;
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Požadavek na simulaci ročních škod portfolia. Všechna pole jsou volitelná.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationRequestDto {
+
+    @Min(value = 1000, message = "Number of trials must be at least 1000")
+    private Integer trials; // Chybějící = rating.simulation.default-trials
+
+    private Long seed; // Chybějící = náhodný, vrací se v odpovědi pro zopakování běhu
+
+    // Hladiny spolehlivosti pro VaR/TVaR, chybějící = 0.9, 0.95, 0.99, 0.995, 0.999
+    @Size(max = 20, message = "At most 20 confidence levels are allowed")
+    private List<@NotNull @DecimalMin(value = "0", inclusive = false, message = "Confidence level must be greater than 0")
+            @DecimalMax(value = "1", inclusive = false, message = "Confidence level must be less than 1") BigDecimal> levels;
+}
@@ -0,0 +1,39 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Rozdělení ročních škod portfolia ze simulace. Částky jsou v Kč.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SimulationResultDto {
+
+    private String tariffVersion;
+    private LocalDateTime portfolioLoadedAt;
+    private int portfolioSize; // Počet rizik (poslední kalkulace každého klienta)
+    private BigDecimal expectedClaimCount; // Očekávaný počet škod portfolia za rok
+    private int trials;
+    private long seed;
+    private BigDecimal expectedLoss;
+    private BigDecimal standardDeviation;
+    private BigDecimal maxLoss;
+    private List<Quantile> quantiles;
+    private long elapsedMillis;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Quantile {
+        private BigDecimal level;
+        private BigDecimal valueAtRisk; // Škoda, kterou s pravděpodobností level nepřekročí
+        private BigDecimal tailValueAtRisk; // Průměrná škoda ve scénářích od VaR výše
+    }
+}
@@ -0,0 +1,30 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.NotNull;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+
+/**
+ * Rozsah hodnot pro sweep: from, from + step, ... až po to (včetně, pokud na něj krok trefí).
+ * Pro jedinou hodnotu stačí from = to, krok se pak nevyžaduje.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepRangeDto {
+
+    @NotNull(message = "Range start is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Range start must be a non-negative value")
+    private BigDecimal from;
+
+    @NotNull(message = "Range end is mandatory")
+    @DecimalMin(value = "0.0", inclusive = true, message = "Range end must be a non-negative value")
+    private BigDecimal to;
+
+    @DecimalMin(value = "0.0", inclusive = false, message = "Range step must be a positive value")
+    private BigDecimal step;
+}
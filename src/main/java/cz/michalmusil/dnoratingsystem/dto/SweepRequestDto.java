@@ -0,0 +1,41 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Požadavek na citlivostní analýzu (what-if) - ocenění mřížky limitů a scénářů
+ * (obrat x finanční výkonnost x provize) pro jednu činnost. Nic se neukládá, klient se neuvádí.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepRequestDto {
+
+    @NotBlank(message = "Activity is mandatory")
+    @Size(max = 255, message = "Activity cannot exceed 255 characters")
+    private String activity;
+
+    @Valid
+    @NotNull(message = "Limit range is mandatory")
+    private SweepRangeDto limitInMillions;
+
+    @Valid
+    @NotNull(message = "Turnover range is mandatory")
+    private SweepRangeDto turnoverInThousands;
+
+    // Prázdné nebo chybějící = všechny hodnoty
+    private List<FinancialPerformance> financialPerformances;
+
+    @Valid
+    @NotNull(message = "Broker commission range is mandatory")
+    private SweepRangeDto brokerCommissionPercentage;
+}
@@ -0,0 +1,36 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * Výsledná matice pojistného: řádek = scénář, sloupec = limit (v pořadí {@code limitsInMillions}).
+ * Buňka je null, pokud by riziko bylo zamítnuto (limit nad maximem sazebníku nebo nad efektivním obratem).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SweepResponseDto {
+
+    private String tariffVersion;
+    private String activity;
+    private BigDecimal activityIndex;
+    private List<BigDecimal> limitsInMillions;
+    private List<Scenario> scenarios;
+    private int cellCount;
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Scenario {
+        private BigDecimal turnoverInThousands;
+        private FinancialPerformance financialPerformance;
+        private BigDecimal brokerCommissionPercentage;
+        private List<BigDecimal> nettoPremiums;
+    }
+}
@@ -0,0 +1,9 @@
+package cz.michalmusil.dnoratingsystem.dto;
+
+import java.time.Instant;
+
+/**
+ * Informace o aktuálně platném sazebníku.
+ */
+public record TariffInfoDto(String version, String location, Instant loadedAt) {
+}
@@ -0,0 +1,93 @@
+package cz.michalmusil.dnoratingsystem.metrics;
+
+import cz.michalmusil.dnoratingsystem.service.QuoteRejectedException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+import reactor.core.publisher.Mono;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+/**
+ * Metriky výpočtu pojistného: doba jednotlivých kroků (timer {@code rating.stage} s tagem {@code stage})
+ * a počty zamítnutých rizik podle důvodu (counter {@code rating.rejections} s tagem {@code reason}).
+ * Kroky výpočtu jsou čistě CPU, kroky klienta a uložení rizika jsou databázové -
+ * z jejich poměru je vidět, odkud pochází latence.
+ * <p>
+ * Databázové kroky měří provedení SQL (zápisy se v nich flushují), commit transakce do nich nepatří.
+ * Ve write-behind režimu ({@code rating.write-behind.enabled}) měří uložení rizika jen přidělení ID
+ * a zařazení do fronty - INSERT na pozadí už do {@code rating.stage} nepatří.
+ */
+@Component
+public class RatingMetrics {
+
+    public enum Stage {
+        VALIDATION("validation"),
+        CALCULATION("calculation"),
+        CLIENT_UPSERT("client_upsert"),
+        RISK_PERSISTENCE("risk_persistence");
+
+        private final String tag;
+
+        Stage(String tag) {
+            this.tag = tag;
+        }
+    }
+
+    private final Map<Stage, Timer> stageTimers = new EnumMap<>(Stage.class);
+    private final Map<QuoteRejectedException.Reason, Counter> rejectionCounters = new EnumMap<>(QuoteRejectedException.Reason.class);
+
+    public RatingMetrics(MeterRegistry meterRegistry) {
+        for (Stage stage : Stage.values()) {
+            stageTimers.put(stage, Timer.builder("rating.stage")
+                    .description("Doba kroku výpočtu a uložení pojistného")
+                    .tag("stage", stage.tag)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+        for (QuoteRejectedException.Reason reason : QuoteRejectedException.Reason.values()) {
+            rejectionCounters.put(reason, Counter.builder("rating.rejections")
+                    .description("Počet rizik zamítnutých při ocenění")
+                    .tag("reason", reason.name().toLowerCase())
+                    .register(meterRegistry));
+        }
+    }
+
+    /**
+     * Změří dobu kroku. Měří se i kroky ukončené výjimkou.
+     */
+    public <T> T time(Stage stage, Supplier<T> step) {
+        return stageTimers.get(stage).record(step);
+    }
+
+    public void time(Stage stage, Runnable step) {
+        stageTimers.get(stage).record(step);
+    }
+
+    /**
+     * Změří dobu reaktivního kroku - od přihlášení k {@code step} po jeho dokončení, chybu nebo zrušení.
+     * Doba se zapíše dřív, než výsledek dostane odběratel (doFinally by proběhl až po něm).
+     */
+    public <T> Mono<T> time(Stage stage, Mono<T> step) {
+        Timer timer = stageTimers.get(stage);
+        return Mono.defer(() -> {
+            long started = System.nanoTime();
+            AtomicBoolean recorded = new AtomicBoolean();
+            Runnable record = () -> {
+                if (recorded.compareAndSet(false, true)) {
+                    timer.record(System.nanoTime() - started, TimeUnit.NANOSECONDS);
+                }
+            };
+            return step.doOnTerminate(record).doOnCancel(record);
+        });
+    }
+
+    public void rejected(QuoteRejectedException.Reason reason) {
+        rejectionCounters.get(reason).increment();
+    }
+}
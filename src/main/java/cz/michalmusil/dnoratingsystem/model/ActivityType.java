@@ -0,0 +1,13 @@
+package cz.michalmusil.dnoratingsystem.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Činnost z číselníku aktivit (CZ-NACE).
+ *
+ * @param code Kód činnosti, např. "62.01". Hierarchie je daná prefixem kódu (62 -> 62.0 -> 62.01).
+ * @param name Název činnosti.
+ * @param index Index aktivity pro výpočet pojistného - vlastní, nebo zděděný od nejbližšího nadřazeného kódu.
+ */
+public record ActivityType(String code, String name, BigDecimal index) {
+}
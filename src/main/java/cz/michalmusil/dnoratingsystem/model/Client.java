@@ -2,20 +2,28 @@ package cz.michalmusil.dnoratingsystem.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.util.List;
 
 @Entity
 @Table(name = "clients")
-@Data
+// Stejně jako Risk bez @Data - vygenerované equals/hashCode by při vložení do HashSet
+// nebo při logování sahaly na kolekci rizik
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Client {
 
+    // Sekvence s pooled optimizerem (krok 50, viz migrace V2__pooled_sequences.sql)
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "clients_seq")
+    @SequenceGenerator(name = "clients_seq", sequenceName = "clients_seq", allocationSize = 50)
     private Long id;
 
     @Column(nullable = false)
@@ -41,6 +49,27 @@ public class Client {
     @Column(unique = true, nullable = false)
     private String ico;
 
-    @OneToMany(mappedBy = "client", cascade = CascadeType.ALL, orphanRemoval = true)
+    // Jen inverzní strana vazby pro dotazy - rizika se ukládají samostatně přes RiskRepository.
+    // Bez kaskád (merge/remove klienta by kolekci načetl) a vyloučená z toString.
+    // Historie klienta se čte stránkovaně projekcí, viz RiskRepository.findHistoryByClientId.
+    @OneToMany(mappedBy = "client", fetch = FetchType.LAZY)
+    @ToString.Exclude
     private List<Risk> risks;
+
+    // Identita podle ID jako u Risk
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Client other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Client.class.hashCode();
+    }
 }
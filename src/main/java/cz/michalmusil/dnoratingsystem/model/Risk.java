@@ -2,21 +2,40 @@ package cz.michalmusil.dnoratingsystem.model;
 
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Getter;
 import lombok.NoArgsConstructor;
+import lombok.Setter;
+import lombok.ToString;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime; // <-- DŮLEŽITÝ IMPORT
 
 @Entity
-@Table(name = "risks")
-@Data
+// Indexy odpovídají migracím V3__analytics.sql a V4__client_risk_history.sql (ddl-auto je vytvoří i ve vývojové databázi)
+@Table(name = "risks", indexes = {
+        @Index(name = "idx_risks_calculation_date", columnList = "calculation_date"),
+        @Index(name = "idx_risks_client_calculation_date", columnList = "client_id, calculation_date DESC, id DESC"),
+        @Index(name = "idx_risks_activity", columnList = "activity")
+})
+// Ne @Data: equals/hashCode podle ID (viz níže) a toString bez vazeb, takže porovnání ani logování
+// nikdy neprochází graf entit a nenačítá LAZY vazby
+@Getter
+@Setter
+@ToString
 @NoArgsConstructor
 @AllArgsConstructor
 public class Risk {
 
+    /**
+     * Krok sekvence risks_seq - jedno nextval rezervuje tolik ID (hodnota - krok + 1 .. hodnota).
+     * Musí odpovídat INCREMENT BY v migraci V2__pooled_sequences.sql.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
+    // Sekvence s pooled optimizerem - ID jsou známá před INSERTem, Hibernate tak může inserty dávkovat
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "risks_seq")
+    @SequenceGenerator(name = "risks_seq", sequenceName = "risks_seq", allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     @Column(nullable = false)
@@ -38,11 +57,34 @@ public class Risk {
     @Column(nullable = false, precision = 19, scale = 2)
     private BigDecimal nettoPremium;
 
+    // Verze sazebníku, podle které bylo pojistné spočítáno (u starších záznamů null)
+    @Column(name = "tariff_version", length = 32)
+    private String tariffVersion;
+
     @Column(name = "calculation_date", nullable = false) // Můžete nastavit nullable na false, pokud je vždy požadováno
     private LocalDateTime calculationDate;
 
-    @ManyToOne
+    // LAZY - výpisy čtou plochou projekci s joinem na klienta (RiskRowDto), entita klienta se tak nenačítá
+    @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name = "client_id", nullable = false)
+    @ToString.Exclude
     private Client client;
 
-}
\ No newline at end of file
+    // Entita je rovna jen sama sobě nebo entitě (i proxy) se stejným přiděleným ID.
+    // hashCode je konstantní, aby se neměnil při přidělení ID (persist) ani mezi entitou a proxy.
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (!(o instanceof Risk other)) {
+            return false;
+        }
+        return id != null && id.equals(other.getId());
+    }
+
+    @Override
+    public int hashCode() {
+        return Risk.class.hashCode();
+    }
+}
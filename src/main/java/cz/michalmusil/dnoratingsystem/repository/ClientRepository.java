@@ -1,12 +1,36 @@
 package cz.michalmusil.dnoratingsystem.repository;
 
+import cz.michalmusil.dnoratingsystem.dto.ClientResponseDto;
 import cz.michalmusil.dnoratingsystem.model.Client;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface ClientRepository extends JpaRepository<Client, Long> {
     Optional<Client> findByIco(String ico);
+
+    List<Client> findByIcoIn(Collection<String> icos);
+
+    @Query("select c.id from Client c where c.ico = :ico")
+    Optional<Long> findIdByIco(@Param("ico") String ico);
+
+    // Výpisy klientů rovnou do DTO - nevznikají entity, rizika se nemohou načíst ani omylem
+    String RESPONSE_DTO = "select new cz.michalmusil.dnoratingsystem.dto.ClientResponseDto(c.id, c.name, c.street, "
+            + "c.houseNumber, c.orientationNumber, c.city, c.postcode, c.state, c.ico) from Client c";
+
+    @Query(RESPONSE_DTO)
+    Slice<ClientResponseDto> findAllProjectedBy(Pageable pageable);
+
+    // Keyset stránkování podle ID
+    @Query(RESPONSE_DTO + " where c.id > :id order by c.id")
+    List<ClientResponseDto> findProjectedByIdGreaterThan(@Param("id") Long id, Limit limit);
 }
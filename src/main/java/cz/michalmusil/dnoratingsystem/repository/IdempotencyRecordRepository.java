@@ -0,0 +1,62 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Záznamy idempotentních požadavků v tabulce idempotency_keys (migrace V5__idempotency_keys.sql).
+ * Záznam se zakládá ve stejné transakci jako uložení kalkulace - souběžný požadavek se stejným
+ * klíčem na jiné instanci počká na unikátním indexu a pak přečte výsledek prvního.
+ * Zápisy musí volající spouštět v transakci - mimo ni by se v režimu virtuálních vláken (vypnutý auto-commit,
+ * viz DatabaseBulkheadConfig) zahodily.
+ */
+@Repository
+@ConditionalOnProperty(name = "rating.idempotency.database.enabled", havingValue = "true")
+public class IdempotencyRecordRepository {
+
+    // Založí záznam, nebo převezme vypršený; 0 řádků = klíč je platně obsazený
+    private static final String CLAIM_SQL = "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) "
+            + "VALUES (?, ?, ?) ON CONFLICT (idempotency_key) DO UPDATE SET request_hash = EXCLUDED.request_hash, "
+            + "response = NULL, created_at = EXCLUDED.created_at WHERE idempotency_keys.created_at < ?";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public IdempotencyRecordRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * @param expiredBefore Záznamy starší než tato hodnota se považují za vypršené.
+     * @return true, pokud klíč patří tomuto požadavku (nový nebo převzatý vypršený záznam).
+     */
+    public boolean claim(String key, String requestHash, Instant now, Instant expiredBefore) {
+        return jdbcTemplate.update(CLAIM_SQL, key, requestHash, Timestamp.from(now), Timestamp.from(expiredBefore)) == 1;
+    }
+
+    public void complete(String key, String responseJson) {
+        jdbcTemplate.update("UPDATE idempotency_keys SET response = ? WHERE idempotency_key = ?", responseJson, key);
+    }
+
+    public Optional<IdempotencyRecord> find(String key) {
+        return jdbcTemplate.query("SELECT request_hash, response FROM idempotency_keys WHERE idempotency_key = ?",
+                (rs, rowNum) -> new IdempotencyRecord(rs.getString(1), rs.getString(2)), key).stream().findFirst();
+    }
+
+    /**
+     * @return Počet smazaných vypršených záznamů.
+     */
+    public int deleteExpired(Instant expiredBefore) {
+        return jdbcTemplate.update("DELETE FROM idempotency_keys WHERE created_at < ?", Timestamp.from(expiredBefore));
+    }
+
+    /**
+     * @param response Uložená odpověď jako JSON, null dokud zpracování neskončilo.
+     */
+    public record IdempotencyRecord(String requestHash, String response) {
+    }
+}
@@ -0,0 +1,46 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+
+/**
+ * Expozice portfolia pro simulaci škod - za každého klienta jeho poslední kalkulace
+ * (index idx_risks_client_calculation_date), jen sloupce potřebné pro model škod.
+ * Řádky se předávají průběžně bez mezilehlého seznamu.
+ */
+@Repository
+public class PortfolioExposureRepository {
+
+    // Pořadí podle client_id - stejná data dají stejné pořadí rizik, a tedy i stejné výsledky simulace
+    private static final String LATEST_EXPOSURES_SQL = "SELECT DISTINCT ON (client_id) limit_amount, turnover, financial_performance "
+            + "FROM risks ORDER BY client_id, calculation_date DESC, id DESC";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public PortfolioExposureRepository(JdbcTemplate jdbcTemplate) {
+        // Vlastní instance s fetch size - PostgreSQL driver pak v transakci čte po blocích a nenačte vše najednou
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(1000);
+    }
+
+    @Transactional(readOnly = true)
+    public void forEachLatestExposure(ExposureHandler handler) {
+        jdbcTemplate.query(LATEST_EXPOSURES_SQL, rs -> {
+            handler.accept(rs.getBigDecimal(1), rs.getBigDecimal(2), FinancialPerformance.valueOf(rs.getString(3)));
+        });
+    }
+
+    @FunctionalInterface
+    public interface ExposureHandler {
+
+        /**
+         * @param limitAmount Limit pojistného plnění v plné výši (Kč).
+         * @param turnover Obrat v plné výši (Kč).
+         */
+        void accept(BigDecimal limitAmount, BigDecimal turnover, FinancialPerformance financialPerformance);
+    }
+}
@@ -0,0 +1,155 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import cz.michalmusil.dnoratingsystem.cache.CachedClient;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRowDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import io.r2dbc.spi.Readable;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Repository;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Neblokující přístup k tabulkám clients a risks přes R2DBC (reaktivní nasazení).
+ * Stejné schéma a stejné sekvence ID jako JPA entity, SQL je psané ručně.
+ */
+@Repository
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRiskRepository {
+
+    // Počet řádků načítaných kurzorem najednou - driver čte další až podle poptávky odběratele
+    private static final int FETCH_SIZE = 500;
+
+    private static final String SELECT_ROWS = "SELECT r.id, r.activity, r.turnover, r.limit_amount, r.financial_performance, "
+            + "r.broker_commission_percentage, r.netto_premium, r.tariff_version, r.calculation_date, "
+            + "c.id AS client_id, c.ico AS client_ico, c.name AS client_name "
+            + "FROM risks r JOIN clients c ON c.id = r.client_id ";
+
+    private final DatabaseClient databaseClient;
+    private final ReactiveSequenceAllocator clientIds;
+    private final ReactiveSequenceAllocator riskIds;
+
+    public ReactiveRiskRepository(DatabaseClient databaseClient) {
+        this.databaseClient = databaseClient;
+        this.clientIds = new ReactiveSequenceAllocator(databaseClient, "clients_seq", 50);
+        this.riskIds = new ReactiveSequenceAllocator(databaseClient, "risks_seq", Risk.ID_ALLOCATION_SIZE);
+    }
+
+    public Mono<CachedClient> findClientByIco(String ico) {
+        return databaseClient.sql("SELECT id, name, street, house_number, orientation_number, city, postcode, state "
+                        + "FROM clients WHERE ico = :ico")
+                .bind("ico", ico)
+                .map(row -> new CachedClient(row.get("id", Long.class), row.get("name", String.class),
+                        row.get("street", String.class), row.get("house_number", String.class),
+                        row.get("orientation_number", String.class), row.get("city", String.class),
+                        row.get("postcode", String.class), row.get("state", String.class)))
+                .one();
+    }
+
+    /**
+     * Založí klienta. Pokud klienta se stejným IČO mezitím založil jiný požadavek, nic nevloží.
+     *
+     * @return ID nového klienta, nebo prázdné Mono při konfliktu IČO.
+     */
+    public Mono<Long> insertClient(ClientRequestDto client) {
+        return clientIds.nextId().flatMap(id -> bindClient(databaseClient.sql(
+                        "INSERT INTO clients (id, name, street, house_number, orientation_number, city, postcode, state, ico) "
+                                + "VALUES (:id, :name, :street, :houseNumber, :orientationNumber, :city, :postcode, :state, :ico) "
+                                + "ON CONFLICT (ico) DO NOTHING RETURNING id")
+                        .bind("id", id), client)
+                .map(row -> row.get("id", Long.class))
+                .one());
+    }
+
+    public Mono<Void> updateClient(Long id, ClientRequestDto client) {
+        return bindClient(databaseClient.sql("UPDATE clients SET name = :name, street = :street, house_number = :houseNumber, "
+                        + "orientation_number = :orientationNumber, city = :city, postcode = :postcode, state = :state, ico = :ico "
+                        + "WHERE id = :id")
+                        .bind("id", id), client)
+                .then();
+    }
+
+    /**
+     * Vloží riziko s novým ID ze sekvence risks_seq a ID nastaví do entity.
+     * Klient rizika musí mít ID.
+     */
+    public Mono<Risk> insertRisk(Risk risk) {
+        return riskIds.nextId().flatMap(id -> {
+            risk.setId(id);
+            DatabaseClient.GenericExecuteSpec spec = databaseClient.sql("INSERT INTO risks (id, activity, turnover, limit_amount, "
+                            + "financial_performance, broker_commission_percentage, netto_premium, tariff_version, calculation_date, client_id) "
+                            + "VALUES (:id, :activity, :turnover, :limitAmount, :financialPerformance, :brokerCommissionPercentage, "
+                            + ":nettoPremium, :tariffVersion, :calculationDate, :clientId)")
+                    .bind("id", id)
+                    .bind("activity", risk.getActivity())
+                    .bind("turnover", risk.getTurnover())
+                    .bind("limitAmount", risk.getLimitAmount())
+                    .bind("financialPerformance", risk.getFinancialPerformance().name())
+                    .bind("brokerCommissionPercentage", risk.getBrokerCommissionPercentage())
+                    .bind("nettoPremium", risk.getNettoPremium())
+                    .bind("calculationDate", risk.getCalculationDate())
+                    .bind("clientId", risk.getClient().getId());
+            return bindNullable(spec, "tariffVersion", risk.getTariffVersion()).then().thenReturn(risk);
+        });
+    }
+
+    /**
+     * Keyset stránka rizik s ID větším než {@code after}, seřazená podle ID.
+     */
+    public Flux<RiskRowDto> findRowsAfter(long after, int limit) {
+        return databaseClient.sql(SELECT_ROWS + "WHERE r.id > :after ORDER BY r.id LIMIT :limit")
+                .bind("after", after)
+                .bind("limit", limit)
+                .map(ReactiveRiskRepository::toRow)
+                .all();
+    }
+
+    /**
+     * Všechna rizika seřazená podle ID. Čtou se kurzorem po {@value #FETCH_SIZE} řádcích
+     * podle poptávky odběratele (backpressure), v paměti se nedrží celá tabulka.
+     */
+    public Flux<RiskRowDto> streamAllRows() {
+        return databaseClient.sql(SELECT_ROWS + "ORDER BY r.id")
+                .filter((statement, next) -> next.execute(statement.fetchSize(FETCH_SIZE)))
+                .map(ReactiveRiskRepository::toRow)
+                .all();
+    }
+
+    private static DatabaseClient.GenericExecuteSpec bindClient(DatabaseClient.GenericExecuteSpec spec, ClientRequestDto client) {
+        spec = spec.bind("name", client.getName())
+                .bind("street", client.getStreet())
+                .bind("houseNumber", client.getHouseNumber())
+                .bind("city", client.getCity())
+                .bind("postcode", client.getPostcode())
+                .bind("state", client.getState())
+                .bind("ico", client.getIco());
+        return bindNullable(spec, "orientationNumber", client.getOrientationNumber());
+    }
+
+    // R2DBC nepřijímá null v bind() - null se musí svázat s typem
+    private static DatabaseClient.GenericExecuteSpec bindNullable(DatabaseClient.GenericExecuteSpec spec, String name, String value) {
+        return value != null ? spec.bind(name, value) : spec.bindNull(name, String.class);
+    }
+
+    private static RiskRowDto toRow(Readable row) {
+        return new RiskRowDto(
+                row.get("id", Long.class),
+                row.get("activity", String.class),
+                row.get("turnover", BigDecimal.class),
+                row.get("limit_amount", BigDecimal.class),
+                FinancialPerformance.valueOf(row.get("financial_performance", String.class)),
+                row.get("broker_commission_percentage", BigDecimal.class),
+                row.get("netto_premium", BigDecimal.class),
+                row.get("tariff_version", String.class),
+                row.get("calculation_date", LocalDateTime.class),
+                row.get("client_id", Long.class),
+                row.get("client_ico", String.class),
+                row.get("client_name", String.class));
+    }
+}
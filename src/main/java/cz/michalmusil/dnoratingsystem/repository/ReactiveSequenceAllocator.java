@@ -0,0 +1,64 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import org.springframework.r2dbc.core.DatabaseClient;
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Neblokující přidělování ID z pooled sekvence (jedno nextval = blok {@code allocationSize} ID,
+ * hodnota - allocationSize + 1 .. hodnota), stejně jako Hibernate pooled optimizer.
+ * Souběžné požadavky si v případě vyčerpání bloku mohou načíst každý vlastní blok - ID se neopakují,
+ * jen v sekvenci vznikne mezera.
+ */
+public class ReactiveSequenceAllocator {
+
+    private final DatabaseClient databaseClient;
+    private final String nextValueSql;
+    private final int allocationSize;
+    private final AtomicReference<Block> current = new AtomicReference<>(new Block(1, 0));
+
+    public ReactiveSequenceAllocator(DatabaseClient databaseClient, String sequenceName, int allocationSize) {
+        this.databaseClient = databaseClient;
+        this.nextValueSql = "SELECT nextval('" + sequenceName + "')";
+        this.allocationSize = allocationSize;
+    }
+
+    public Mono<Long> nextId() {
+        return Mono.defer(() -> {
+            long id = current.get().take();
+            if (id != Block.EXHAUSTED) {
+                return Mono.just(id);
+            }
+            return databaseClient.sql(nextValueSql)
+                    .map(row -> row.get(0, Long.class))
+                    .one()
+                    .map(hi -> {
+                        // Sekvence založená Hibernatem začíná na 1 - blok nesmí sahat pod 1
+                        Block block = new Block(Math.max(1, hi - allocationSize + 1), hi);
+                        long allocated = block.take();
+                        current.set(block);
+                        return allocated;
+                    });
+        });
+    }
+
+    private static final class Block {
+
+        static final long EXHAUSTED = -1;
+
+        private final AtomicLong next;
+        private final long hi;
+
+        Block(long lo, long hi) {
+            this.next = new AtomicLong(lo);
+            this.hi = hi;
+        }
+
+        long take() {
+            long id = next.getAndIncrement();
+            return id <= hi ? id : EXHAUSTED;
+        }
+    }
+}
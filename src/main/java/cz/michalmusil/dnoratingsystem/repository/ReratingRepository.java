@@ -0,0 +1,177 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Úlohy přecenění a jejich výsledky v tabulkách rerating_jobs a rerating_results
+ * (migrace V6__rerating.sql). Rizika se čtou přímo z tabulky risks po dávkách
+ * podle ID (keyset přes primární klíč), bez entit a bez joinu na klienty.
+ * Zápisy musí volající spouštět v transakci - mimo ni by se v režimu virtuálních vláken (vypnutý auto-commit,
+ * viz DatabaseBulkheadConfig) zahodily.
+ */
+@Repository
+@ConditionalOnProperty(name = "rating.rerating.enabled", havingValue = "true")
+public class ReratingRepository {
+
+    // Hranice úlohy (max ID) i počet rizik se zjistí jedním dotazem při založení
+    private static final String CREATE_SQL = "INSERT INTO rerating_jobs (status, tariff_version, max_risk_id, total_count, "
+            + "created_at, updated_at) SELECT 'RUNNING', ?, COALESCE(MAX(id), 0), COUNT(*), ?, ? FROM risks RETURNING id";
+
+    private static final String JOB_COLUMNS = "id, status, tariff_version, max_risk_id, total_count, last_risk_id, "
+            + "processed_count, failed_count, old_premium_total, new_premium_total, created_at, updated_at, finished_at, error";
+
+    private static final String CHUNK_SQL = "SELECT id, activity, turnover, limit_amount, financial_performance, "
+            + "broker_commission_percentage, netto_premium, tariff_version FROM risks WHERE id > ? AND id <= ? ORDER BY id LIMIT ?";
+
+    private static final String INSERT_RESULT_SQL = "INSERT INTO rerating_results (job_id, risk_id, old_premium, new_premium, "
+            + "old_tariff_version, error) VALUES (?, ?, ?, ?, ?, ?)";
+
+    // Posun checkpointu jen z očekávané hodnoty - úlohu mezitím nepřevzala jiná instance
+    private static final String CHECKPOINT_SQL = "UPDATE rerating_jobs SET last_risk_id = ?, processed_count = processed_count + ?, "
+            + "failed_count = failed_count + ?, old_premium_total = old_premium_total + ?, new_premium_total = new_premium_total + ?, "
+            + "updated_at = ? WHERE id = ? AND status = 'RUNNING' AND last_risk_id = ?";
+
+    private static final RowMapper<ReratingJob> JOB_MAPPER = (rs, rowNum) -> new ReratingJob(
+            rs.getLong("id"), ReratingJob.Status.valueOf(rs.getString("status")), rs.getString("tariff_version"),
+            rs.getLong("max_risk_id"), rs.getLong("total_count"), rs.getLong("last_risk_id"),
+            rs.getLong("processed_count"), rs.getLong("failed_count"),
+            rs.getBigDecimal("old_premium_total"), rs.getBigDecimal("new_premium_total"),
+            rs.getTimestamp("created_at").toLocalDateTime(), rs.getTimestamp("updated_at").toLocalDateTime(),
+            rs.getTimestamp("finished_at") == null ? null : rs.getTimestamp("finished_at").toLocalDateTime(),
+            rs.getString("error"));
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReratingRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Založí běžící úlohu nad všemi aktuálně uloženými riziky.
+     *
+     * @return ID úlohy.
+     * @throws org.springframework.dao.DuplicateKeyException pokud už jiná úloha běží.
+     */
+    public long create(String tariffVersion, Instant now) {
+        Timestamp timestamp = Timestamp.from(now);
+        return jdbcTemplate.queryForObject(CREATE_SQL, Long.class, tariffVersion, timestamp, timestamp);
+    }
+
+    public Optional<ReratingJob> find(long jobId) {
+        return jdbcTemplate.query("SELECT " + JOB_COLUMNS + " FROM rerating_jobs WHERE id = ?", JOB_MAPPER, jobId)
+                .stream().findFirst();
+    }
+
+    /**
+     * @return ID běžících úloh, jejichž checkpoint se neposunul od {@code staleBefore} (spadlá instance).
+     */
+    public List<Long> findStaleRunning(Instant staleBefore) {
+        return jdbcTemplate.queryForList("SELECT id FROM rerating_jobs WHERE status = 'RUNNING' AND updated_at < ?",
+                Long.class, Timestamp.from(staleBefore));
+    }
+
+    /**
+     * Převezme běžící úlohu, která se od {@code staleBefore} neposunula. Mezi instancemi vyhraje jen jedna.
+     *
+     * @return true, pokud úlohu převzala tato instance.
+     */
+    public boolean claimStale(long jobId, Instant staleBefore, Instant now) {
+        return jdbcTemplate.update("UPDATE rerating_jobs SET updated_at = ? WHERE id = ? AND status = 'RUNNING' AND updated_at < ?",
+                Timestamp.from(now), jobId, Timestamp.from(staleBefore)) == 1;
+    }
+
+    /**
+     * Další dávka rizik úlohy (ID v intervalu (afterId, maxRiskId]) seřazená podle ID.
+     */
+    public List<RiskToRerate> findChunk(long afterId, long maxRiskId, int limit) {
+        return jdbcTemplate.query(CHUNK_SQL, (rs, rowNum) -> new RiskToRerate(
+                rs.getLong(1), rs.getString(2), rs.getBigDecimal(3), rs.getBigDecimal(4),
+                FinancialPerformance.valueOf(rs.getString(5)), rs.getBigDecimal(6), rs.getBigDecimal(7), rs.getString(8)),
+                afterId, maxRiskId, limit);
+    }
+
+    /**
+     * Vloží výsledky jedné dávky jedním JDBC batchem.
+     */
+    public void insertResults(long jobId, List<ReratingResult> results) {
+        jdbcTemplate.batchUpdate(INSERT_RESULT_SQL, new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                ReratingResult result = results.get(i);
+                ps.setLong(1, jobId);
+                ps.setLong(2, result.riskId());
+                ps.setBigDecimal(3, result.oldPremium());
+                ps.setBigDecimal(4, result.newPremium());
+                ps.setString(5, result.oldTariffVersion());
+                ps.setString(6, result.error());
+            }
+
+            @Override
+            public int getBatchSize() {
+                return results.size();
+            }
+        });
+    }
+
+    /**
+     * Posune checkpoint úlohy a přičte souhrny dávky. Volá se ve stejné transakci jako {@link #insertResults}.
+     *
+     * @return false, pokud úloha už neběží nebo její checkpoint mezitím posunula jiná instance.
+     */
+    public boolean checkpoint(long jobId, long expectedLastRiskId, long lastRiskId, int processed, int failed,
+                              BigDecimal oldPremiumTotal, BigDecimal newPremiumTotal, Instant now) {
+        return jdbcTemplate.update(CHECKPOINT_SQL, lastRiskId, processed, failed, oldPremiumTotal, newPremiumTotal,
+                Timestamp.from(now), jobId, expectedLastRiskId) == 1;
+    }
+
+    public void finish(long jobId, ReratingJob.Status status, String error, Instant now) {
+        Timestamp timestamp = Timestamp.from(now);
+        jdbcTemplate.update("UPDATE rerating_jobs SET status = ?, error = ?, updated_at = ?, finished_at = ? WHERE id = ? AND status = 'RUNNING'",
+                status.name(), error, timestamp, timestamp, jobId);
+    }
+
+    /**
+     * Stav úlohy přecenění, jak je uložený v rerating_jobs.
+     */
+    public record ReratingJob(long id, Status status, String tariffVersion, long maxRiskId, long totalCount,
+                              long lastRiskId, long processedCount, long failedCount,
+                              BigDecimal oldPremiumTotal, BigDecimal newPremiumTotal,
+                              LocalDateTime createdAt, LocalDateTime updatedAt, LocalDateTime finishedAt, String error) {
+
+        public enum Status {
+            RUNNING,
+            COMPLETED,
+            FAILED
+        }
+    }
+
+    /**
+     * Vstupy uloženého rizika potřebné pro nový výpočet (limit a obrat v plné výši).
+     */
+    public record RiskToRerate(long id, String activity, BigDecimal turnover, BigDecimal limitAmount,
+                               FinancialPerformance financialPerformance, BigDecimal brokerCommissionPercentage,
+                               BigDecimal nettoPremium, String tariffVersion) {
+    }
+
+    /**
+     * @param newPremium Pojistné podle nového sazebníku, null pokud riziko nelze ocenit.
+     * @param error Důvod, proč riziko nelze ocenit (např. {@code LIMIT_ABOVE_MAXIMUM}), jinak null.
+     */
+    public record ReratingResult(long riskId, BigDecimal oldPremium, BigDecimal newPremium, String oldTariffVersion,
+                                 String error) {
+    }
+}
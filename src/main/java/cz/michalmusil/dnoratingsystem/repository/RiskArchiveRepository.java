@@ -0,0 +1,51 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+/**
+ * Zdroj dat pro archiv - rizika jednoho období calculation_date seřazená podle data a ID
+ * (index idx_risks_calculation_date). Řádky se předávají průběžně bez mezilehlého seznamu.
+ */
+@Repository
+@ConditionalOnProperty(name = "rating.archive.enabled", havingValue = "true")
+public class RiskArchiveRepository {
+
+    private static final String COLUMNS = "SELECT id, client_id, calculation_date, activity, financial_performance, "
+            + "turnover, limit_amount, netto_premium FROM risks ";
+    private static final String RANGE_SQL = COLUMNS + "WHERE calculation_date >= ? AND calculation_date < ? ORDER BY calculation_date, id";
+    private static final String BEFORE_SQL = COLUMNS + "WHERE calculation_date < ? ORDER BY calculation_date, id";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RiskArchiveRepository(JdbcTemplate jdbcTemplate) {
+        // Vlastní instance s fetch size - PostgreSQL driver pak v transakci čte po blocích a nenačte vše najednou
+        this.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+        this.jdbcTemplate.setFetchSize(5000);
+    }
+
+    /**
+     * @param from Začátek období (včetně), null = od nejstarší kalkulace.
+     * @param to Konec období (bez něj).
+     */
+    @Transactional(readOnly = true)
+    public void forEachRisk(LocalDateTime from, LocalDateTime to, ArchivedRiskHandler handler) {
+        Object[] args = from != null ? new Object[]{from, to} : new Object[]{to};
+        jdbcTemplate.query(from != null ? RANGE_SQL : BEFORE_SQL, rs -> {
+            handler.accept(rs.getLong(1), rs.getLong(2), rs.getObject(3, LocalDateTime.class), rs.getString(4),
+                    rs.getString(5), rs.getBigDecimal(6), rs.getBigDecimal(7), rs.getBigDecimal(8));
+        }, args);
+    }
+
+    @FunctionalInterface
+    public interface ArchivedRiskHandler {
+
+        void accept(long id, long clientId, LocalDateTime calculationDate, String activity, String financialPerformance,
+                    BigDecimal turnover, BigDecimal limitAmount, BigDecimal nettoPremium);
+    }
+}
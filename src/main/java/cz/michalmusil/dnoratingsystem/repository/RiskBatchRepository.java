@@ -0,0 +1,95 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.util.List;
+import java.util.stream.LongStream;
+
+/**
+ * Hromadné vkládání rizik přes JDBC batch, bez persistence contextu Hibernate.
+ * ID se přidělují ze sekvence risks_seq po blocích (stejně jako u Hibernate pooled optimizeru),
+ * takže se inserty posílají po dávkách jedním round tripem bez čekání na vygenerované klíče.
+ */
+@Repository
+public class RiskBatchRepository {
+
+    private static final String INSERT_SQL = "INSERT INTO risks (activity, turnover, limit_amount, financial_performance, "
+            + "broker_commission_percentage, netto_premium, tariff_version, calculation_date, client_id, id) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Několik hodnot sekvence jedním dotazem, každá rezervuje blok Risk.ID_ALLOCATION_SIZE ID
+    private static final String NEXT_VALUES_SQL = "SELECT nextval('risks_seq') FROM generate_series(1, ?)";
+
+    static final int BATCH_SIZE = 500;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public RiskBatchRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * Přidělí rizikům nová ID a vloží je v JDBC dávkách po {@value #BATCH_SIZE}.
+     * Klienti rizik už musí být uložení (mít ID).
+     */
+    public void insertAll(List<Risk> risks) {
+        long[] ids = allocateIds(risks.size());
+        for (int i = 0; i < risks.size(); i++) {
+            risks.get(i).setId(ids[i]);
+        }
+        insertAllWithIds(risks);
+    }
+
+    /**
+     * Vloží rizika s již přidělenými ID (viz {@link #allocateIds(int)}) v JDBC dávkách po {@value #BATCH_SIZE}.
+     * Klienti rizik už musí být uložení (mít ID).
+     */
+    public void insertAllWithIds(List<Risk> risks) {
+        for (int from = 0; from < risks.size(); from += BATCH_SIZE) {
+            List<Risk> chunk = risks.subList(from, Math.min(from + BATCH_SIZE, risks.size()));
+            jdbcTemplate.batchUpdate(INSERT_SQL, new RiskSetter(chunk));
+        }
+    }
+
+    /**
+     * Rezervuje alespoň {@code count} nových ID rizik ze sekvence risks_seq (zaokrouhleno nahoru
+     * na celé bloky). Hodnota sekvence v rezervuje ID v - 49 .. v, stejně jako pooled optimizer
+     * Hibernate, takže se ID nikdy nepotkají s ID přidělenými přes JPA ani mezi instancemi aplikace.
+     */
+    public long[] allocateIds(int count) {
+        int blocks = Math.max(1, (count + Risk.ID_ALLOCATION_SIZE - 1) / Risk.ID_ALLOCATION_SIZE);
+        List<Long> hiValues = jdbcTemplate.queryForList(NEXT_VALUES_SQL, Long.class, blocks);
+        return hiValues.stream()
+                // Sekvence založená Hibernatem začíná na 1 - blok nesmí sahat pod 1
+                .flatMapToLong(hi -> LongStream.rangeClosed(Math.max(1, hi - Risk.ID_ALLOCATION_SIZE + 1), hi))
+                .toArray();
+    }
+
+    private record RiskSetter(List<Risk> chunk) implements BatchPreparedStatementSetter {
+
+        @Override
+        public void setValues(PreparedStatement ps, int i) throws SQLException {
+            Risk risk = chunk.get(i);
+            ps.setString(1, risk.getActivity());
+            ps.setBigDecimal(2, risk.getTurnover());
+            ps.setBigDecimal(3, risk.getLimitAmount());
+            ps.setString(4, risk.getFinancialPerformance().name());
+            ps.setBigDecimal(5, risk.getBrokerCommissionPercentage());
+            ps.setBigDecimal(6, risk.getNettoPremium());
+            ps.setString(7, risk.getTariffVersion());
+            ps.setTimestamp(8, Timestamp.valueOf(risk.getCalculationDate()));
+            ps.setLong(9, risk.getClient().getId());
+            ps.setLong(10, risk.getId());
+        }
+
+        @Override
+        public int getBatchSize() {
+            return chunk.size();
+        }
+    }
+}
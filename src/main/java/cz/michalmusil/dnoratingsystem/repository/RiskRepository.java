@@ -1,11 +1,129 @@
 package cz.michalmusil.dnoratingsystem.repository;
 
+import cz.michalmusil.dnoratingsystem.dto.ClientRiskHistoryDto;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateView;
+import cz.michalmusil.dnoratingsystem.dto.RiskRowDto;
 import cz.michalmusil.dnoratingsystem.model.Risk;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Stream;
+
 @Repository
 public interface RiskRepository extends JpaRepository <Risk, Long> {
 
+    // Výpisy a export čtou plochou projekci (record) - žádné entity v persistence contextu,
+    // klient se nenačítá jako entita a nic se nehlídá pro dirty checking
+    String ROWS = "select new cz.michalmusil.dnoratingsystem.dto.RiskRowDto(r.id, r.activity, r.turnover, r.limitAmount, "
+            + "r.financialPerformance, r.brokerCommissionPercentage, r.nettoPremium, r.tariffVersion, r.calculationDate, "
+            + "c.id, c.ico, c.name) from Risk r join r.client c";
+
+    // Slice místo Page - nepotřebujeme COUNT(*) přes celou tabulku
+    @Query(ROWS)
+    Slice<RiskRowDto> findRowsBy(Pageable pageable);
+
+    // Keyset stránkování podle ID
+    @Query(ROWS + " where r.id > :id order by r.id")
+    List<RiskRowDto> findRowsByIdGreaterThan(@Param("id") Long id, Limit limit);
+
+    // Musí běžet v transakci; fetch size zajistí, že PostgreSQL driver čte po blocích a nenačte vše najednou
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query(ROWS + " order by r.id")
+    Stream<RiskRowDto> streamAllRows();
+
+    // --- Historie kalkulací klienta od nejnovějších, index idx_risks_client_calculation_date --- //
+
+    String CLIENT_HISTORY = "select new cz.michalmusil.dnoratingsystem.dto.ClientRiskHistoryDto(r.id, r.activity, r.turnover, "
+            + "r.limitAmount, r.financialPerformance, r.brokerCommissionPercentage, r.nettoPremium, r.tariffVersion, "
+            + "r.calculationDate) from Risk r where r.client.id = :clientId ";
+
+    @Query(CLIENT_HISTORY + "order by r.calculationDate desc, r.id desc")
+    List<ClientRiskHistoryDto> findHistoryByClientId(@Param("clientId") Long clientId, Limit limit);
+
+    // Keyset - kalkulace starší než (beforeDate, beforeId) z poslední položky předchozí stránky
+    @Query(CLIENT_HISTORY + "and (r.calculationDate, r.id) < (:beforeDate, :beforeId) order by r.calculationDate desc, r.id desc")
+    List<ClientRiskHistoryDto> findHistoryByClientIdBefore(@Param("clientId") Long clientId,
+                                                           @Param("beforeDate") LocalDateTime beforeDate,
+                                                           @Param("beforeId") Long beforeId, Limit limit);
+
+    // --- Agregace portfolia (GROUP BY v databázi). Interval [from, to), null = bez omezení. --- //
+
+    String AGGREGATES = "COUNT(*) AS quoteCount, SUM(r.netto_premium) AS totalNettoPremium, SUM(r.limit_amount) AS totalLimitAmount "
+            + "FROM risks r WHERE r.calculation_date >= COALESCE(CAST(:from AS timestamp), CAST('-infinity' AS timestamp)) "
+            + "AND r.calculation_date < COALESCE(CAST(:to AS timestamp), CAST('infinity' AS timestamp)) GROUP BY 1 ORDER BY 1";
+
+    /**
+     * Obratové pásmo = počet hranic ostře menších než efektivní obrat (stejně jako CompiledTariff.turnoverBand).
+     * width_bucket počítá hranice menší nebo rovné, proto se počítá nad zápornými hodnotami:
+     * #{t < x} = n - #{-t <= -x}. {@code negatedThresholds} jsou záporné hranice vzestupně, např. {-750,-500,-100}.
+     */
+    @Query(nativeQuery = true, value = "SELECT CAST(:thresholdCount - width_bucket(-LEAST(r.turnover, :turnoverCap), "
+            + "CAST(:negatedThresholds AS numeric[])) AS text) AS groupKey, " + AGGREGATES)
+    List<PortfolioAggregateView> aggregateByTurnoverBand(@Param("turnoverCap") BigDecimal turnoverCap,
+                                                         @Param("negatedThresholds") String negatedThresholds,
+                                                         @Param("thresholdCount") int thresholdCount,
+                                                         @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // Pásmo limitu podle posledního celého milionu (jako CompiledTariff.limitPremium), poslední pásmo je otevřené
+    @Query(nativeQuery = true, value = "SELECT CAST(LEAST(GREATEST(FLOOR((FLOOR(r.limit_amount / 1000000) - 1) / :bandWidthMillions), 0), "
+            + ":lastBand) AS text) AS groupKey, " + AGGREGATES)
+    List<PortfolioAggregateView> aggregateByLimitBand(@Param("bandWidthMillions") int bandWidthMillions,
+                                                      @Param("lastBand") int lastBand,
+                                                      @Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(nativeQuery = true, value = "SELECT r.financial_performance AS groupKey, " + AGGREGATES)
+    List<PortfolioAggregateView> aggregateByFinancialPerformance(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(nativeQuery = true, value = "SELECT r.activity AS groupKey, " + AGGREGATES)
+    List<PortfolioAggregateView> aggregateByActivity(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    @Query(nativeQuery = true, value = "SELECT to_char(r.calculation_date, 'YYYY-MM') AS groupKey, " + AGGREGATES)
+    List<PortfolioAggregateView> aggregateByMonth(@Param("from") LocalDateTime from, @Param("to") LocalDateTime to);
+
+    // --- Totéž ze souhrnné tabulky po měsících (viz db/migration/V3__analytics.sql), měsíce [fromMonth, toMonth] --- //
+
+    String SUMMARY_AGGREGATES = "SUM(s.quote_count) AS quoteCount, SUM(s.total_netto_premium) AS totalNettoPremium, "
+            + "SUM(s.total_limit_amount) AS totalLimitAmount "
+            + "FROM (SELECT * FROM risk_summary_monthly UNION ALL SELECT * FROM risk_summary_monthly_delta) s "
+            + "WHERE s.month >= COALESCE(CAST(:fromMonth AS date), CAST('-infinity' AS date)) "
+            + "AND s.month <= COALESCE(CAST(:toMonth AS date), CAST('infinity' AS date)) "
+            + "GROUP BY 1 HAVING SUM(s.quote_count) <> 0 ORDER BY 1";
+
+    @Query(nativeQuery = true, value = "SELECT s.financial_performance AS groupKey, " + SUMMARY_AGGREGATES)
+    List<PortfolioAggregateView> summaryByFinancialPerformance(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    @Query(nativeQuery = true, value = "SELECT s.activity AS groupKey, " + SUMMARY_AGGREGATES)
+    List<PortfolioAggregateView> summaryByActivity(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
+
+    @Query(nativeQuery = true, value = "SELECT to_char(s.month, 'YYYY-MM') AS groupKey, " + SUMMARY_AGGREGATES)
+    List<PortfolioAggregateView> summaryByMonth(@Param("fromMonth") LocalDate fromMonth, @Param("toMonth") LocalDate toMonth);
 
+    /**
+     * Přesune nasbírané přírůstky z risk_summary_monthly_delta do risk_summary_monthly jedním příkazem.
+     *
+     * @return Počet nově založených nebo aktualizovaných souhrnných řádků.
+     */
+    @Modifying
+    @Query(nativeQuery = true, value = "WITH moved AS (DELETE FROM risk_summary_monthly_delta RETURNING *) "
+            + "INSERT INTO risk_summary_monthly AS s "
+            + "SELECT month, financial_performance, activity, SUM(quote_count), SUM(total_netto_premium), SUM(total_limit_amount) "
+            + "FROM moved GROUP BY 1, 2, 3 "
+            + "ON CONFLICT (month, financial_performance, activity) DO UPDATE SET "
+            + "quote_count = s.quote_count + EXCLUDED.quote_count, "
+            + "total_netto_premium = s.total_netto_premium + EXCLUDED.total_netto_premium, "
+            + "total_limit_amount = s.total_limit_amount + EXCLUDED.total_limit_amount")
+    int compactSummary();
 }
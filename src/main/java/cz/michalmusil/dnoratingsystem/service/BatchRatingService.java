@@ -0,0 +1,135 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.BatchItemResultDto;
+import cz.michalmusil.dnoratingsystem.dto.BatchResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics.Stage;
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import cz.michalmusil.dnoratingsystem.repository.ClientRepository;
+import cz.michalmusil.dnoratingsystem.repository.RiskBatchRepository;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+/**
+ * Dávkové ocenění rizik (např. přecenění celého portfolia brokera).
+ * Položky se validují a počítají paralelně, chyba jedné položky neshodí celou dávku.
+ * Úspěšné položky se pak uloží najednou - klienti deduplikovaní podle IČO,
+ * rizika přes JDBC batch.
+ */
+@Service
+public class BatchRatingService {
+
+    private final RatingService ratingService;
+    private final ClientService clientService;
+    private final ClientRepository clientRepository;
+    private final RiskBatchRepository riskBatchRepository;
+    private final Validator validator;
+    private final RatingMetrics ratingMetrics;
+    private final int maxItems;
+
+    public BatchRatingService(RatingService ratingService, ClientService clientService, ClientRepository clientRepository,
+                              RiskBatchRepository riskBatchRepository, Validator validator,
+                              RatingMetrics ratingMetrics,
+                              @Value("${rating.batch.max-items:10000}") int maxItems) {
+        this.ratingService = ratingService;
+        this.clientService = clientService;
+        this.clientRepository = clientRepository;
+        this.riskBatchRepository = riskBatchRepository;
+        this.validator = validator;
+        this.ratingMetrics = ratingMetrics;
+        this.maxItems = maxItems;
+    }
+
+    /**
+     * Spočítá a uloží celou dávku rizik.
+     *
+     * @param requests Vstupní dávka, pořadí se zachová ve výsledku.
+     * @return Souhrn dávky s výsledkem nebo chybami pro každou položku.
+     * @throws IllegalArgumentException pokud je dávka prázdná nebo překračuje maximální velikost.
+     */
+    @Transactional
+    public BatchResponseDto calculateBatch(List<RiskRequestDto> requests) {
+        if (requests == null || requests.isEmpty()) {
+            throw new IllegalArgumentException("Batch must contain at least one item.");
+        }
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Batch size (" + requests.size() + ") cannot exceed " + maxItems + " items.");
+        }
+
+        // 1. Validace a výpočet - čistě CPU, paralelně přes ForkJoin common pool
+        List<BatchItemResultDto> items = IntStream.range(0, requests.size())
+                .parallel()
+                .mapToObj(i -> quoteItem(i, requests.get(i)))
+                .toList();
+
+        List<Integer> succeeded = new ArrayList<>();
+        List<ClientRequestDto> clients = new ArrayList<>();
+        for (BatchItemResultDto item : items) {
+            if (item.isSuccess()) {
+                succeeded.add(item.getIndex());
+                clients.add(requests.get(item.getIndex()).getClient());
+            }
+        }
+
+        if (!succeeded.isEmpty()) {
+            // 2. Klienti - jeden SELECT na celou dávku, každé IČO jen jednou
+            Map<String, Client> clientsByIco = ratingMetrics.time(Stage.CLIENT_UPSERT, () -> {
+                Map<String, Client> upserted = clientService.upsertAll(clients);
+                // Rizika se vkládají přes JDBC mimo Hibernate - noví klienti (INSERT odložený do flush,
+                // ID ze sekvence) musí být v databázi dřív, jinak INSERT rizika neprojde přes cizí klíč
+                clientRepository.flush();
+                return upserted;
+            });
+
+            // 3. Rizika - JDBC batch insert, provede se hned (krok měří skutečný zápis, ne až commit)
+            List<Risk> risks = new ArrayList<>(succeeded.size());
+            for (int index : succeeded) {
+                RiskRequestDto request = requests.get(index);
+                Client client = clientsByIco.get(request.getClient().getIco());
+                risks.add(ratingService.newRiskEntity(request, items.get(index).getResult(), client));
+            }
+            ratingMetrics.time(Stage.RISK_PERSISTENCE, () -> riskBatchRepository.insertAll(risks));
+
+            for (int i = 0; i < succeeded.size(); i++) {
+                RiskResponseDto result = items.get(succeeded.get(i)).getResult();
+                Risk risk = risks.get(i);
+                result.setId(risk.getId());
+                result.setClientId(risk.getClient().getId());
+            }
+        }
+
+        return new BatchResponseDto(requests.size(), succeeded.size(), requests.size() - succeeded.size(), items);
+    }
+
+    private BatchItemResultDto quoteItem(int index, RiskRequestDto request) {
+        if (request == null) {
+            return BatchItemResultDto.failure(index, List.of("Item must not be null"));
+        }
+        Set<ConstraintViolation<RiskRequestDto>> violations = ratingMetrics.time(Stage.VALIDATION, () -> validator.validate(request));
+        if (!violations.isEmpty()) {
+            List<String> errors = violations.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                    .sorted()
+                    .toList();
+            return BatchItemResultDto.failure(index, errors);
+        }
+        try {
+            return BatchItemResultDto.success(index, ratingService.quote(request));
+        } catch (IllegalArgumentException e) {
+            return BatchItemResultDto.failure(index, List.of(e.getMessage()));
+        }
+    }
+}
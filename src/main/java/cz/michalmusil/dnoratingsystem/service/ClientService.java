@@ -0,0 +1,157 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.cache.CacheStats;
+import cz.michalmusil.dnoratingsystem.cache.CachedClient;
+import cz.michalmusil.dnoratingsystem.cache.LruCache;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.repository.ClientRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Zakládání a aktualizace klientů podle IČO s cache uložených klientů.
+ * Pokud je klient v cache a jeho údaje se nezměnily, nevolá se databáze vůbec
+ * (riziko dostane jen referenci s ID). Změněné údaje se zapíší do databáze
+ * a do cache se promítnou až po commitu transakce.
+ */
+@Service
+public class ClientService {
+
+    private final ClientRepository clientRepository;
+    private final LruCache<String, CachedClient> clientCache;
+
+    public ClientService(ClientRepository clientRepository,
+                         @Value("${rating.client-cache.max-size:10000}") int clientCacheMaxSize) {
+        this.clientRepository = clientRepository;
+        this.clientCache = new LruCache<>("clients", clientCacheMaxSize);
+    }
+
+    /**
+     * Najde klienta podle IČO a aktualizuje jeho údaje, případně založí nového.
+     * UPDATE se provede jen při skutečné změně údajů. INSERT i UPDATE se do databáze pošlou hned (flush),
+     * ne až při commitu - doba zápisu klienta se tak neschová do uložení rizika.
+     *
+     * @param clientDto Data klienta z požadavku.
+     * @return Client entita s ID (u nezměněného klienta z cache jen neinicializovaná reference).
+     */
+    @Transactional
+    public Client upsert(ClientRequestDto clientDto) {
+        CachedClient cached = clientCache.get(clientDto.getIco());
+        if (cached != null && cached.matches(clientDto)) {
+            return clientRepository.getReferenceById(cached.id()); // Bez SQL dotazu
+        }
+
+        Client clientEntity = clientRepository.findByIco(clientDto.getIco()).orElse(null);
+        if (clientEntity == null) {
+            // Klient neexistuje, vytvoříme nového
+            clientEntity = clientRepository.saveAndFlush(newClient(clientDto)); // Uložíme nového klienta, aby získal ID
+        } else if (!CachedClient.of(clientEntity).matches(clientDto)) {
+            // Klient existuje a údaje se změnily - entita je managed, UPDATE se pošle při flush
+            applyChanges(clientEntity, clientDto);
+            clientRepository.flush();
+        }
+        cacheAfterCommit(clientEntity);
+        return clientEntity;
+    }
+
+    /**
+     * Hromadná varianta {@link #upsert(ClientRequestDto)} pro dávkové zpracování.
+     * Duplicitní IČO v dávce se sloučí (platí poslední výskyt), klienti, kteří nejsou
+     * v cache nebo se změnili, se načtou jedním dotazem.
+     *
+     * @param clientDtos Data klientů z dávky, mohou obsahovat stejné IČO vícekrát.
+     * @return Mapa IČO -> Client entita s ID.
+     */
+    @Transactional
+    public Map<String, Client> upsertAll(Collection<ClientRequestDto> clientDtos) {
+        Map<String, ClientRequestDto> byIco = new LinkedHashMap<>();
+        for (ClientRequestDto clientDto : clientDtos) {
+            byIco.put(clientDto.getIco(), clientDto);
+        }
+
+        Map<String, Client> result = new HashMap<>();
+        List<ClientRequestDto> unresolved = new ArrayList<>();
+        for (ClientRequestDto clientDto : byIco.values()) {
+            CachedClient cached = clientCache.get(clientDto.getIco());
+            if (cached != null && cached.matches(clientDto)) {
+                result.put(clientDto.getIco(), clientRepository.getReferenceById(cached.id()));
+            } else {
+                unresolved.add(clientDto);
+            }
+        }
+        if (unresolved.isEmpty()) {
+            return result;
+        }
+
+        Map<String, Client> existing = new HashMap<>();
+        for (Client client : clientRepository.findByIcoIn(unresolved.stream().map(ClientRequestDto::getIco).toList())) {
+            existing.put(client.getIco(), client);
+        }
+
+        List<Client> toInsert = new ArrayList<>();
+        for (ClientRequestDto clientDto : unresolved) {
+            Client clientEntity = existing.get(clientDto.getIco());
+            if (clientEntity == null) {
+                clientEntity = newClient(clientDto);
+                toInsert.add(clientEntity);
+            } else if (!CachedClient.of(clientEntity).matches(clientDto)) {
+                applyChanges(clientEntity, clientDto);
+            }
+            result.put(clientDto.getIco(), clientEntity);
+        }
+        clientRepository.saveAll(toInsert);
+
+        for (ClientRequestDto clientDto : unresolved) {
+            cacheAfterCommit(result.get(clientDto.getIco()));
+        }
+        return result;
+    }
+
+    public CacheStats cacheStats() {
+        return clientCache.stats();
+    }
+
+    // Do cache jen potvrzený stav - po rollbacku by v ní zůstalo ID neexistujícího klienta
+    private void cacheAfterCommit(Client clientEntity) {
+        String ico = clientEntity.getIco();
+        CachedClient snapshot = CachedClient.of(clientEntity);
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    clientCache.put(ico, snapshot);
+                }
+            });
+        } else {
+            clientCache.put(ico, snapshot);
+        }
+    }
+
+    private static Client newClient(ClientRequestDto clientDto) {
+        Client clientEntity = new Client();
+        applyChanges(clientEntity, clientDto);
+        clientEntity.setIco(clientDto.getIco());
+        return clientEntity;
+    }
+
+    private static void applyChanges(Client clientEntity, ClientRequestDto clientDto) {
+        clientEntity.setName(clientDto.getName());
+        clientEntity.setStreet(clientDto.getStreet());
+        clientEntity.setHouseNumber(clientDto.getHouseNumber());
+        clientEntity.setOrientationNumber(clientDto.getOrientationNumber());
+        clientEntity.setCity(clientDto.getCity());
+        clientEntity.setPostcode(clientDto.getPostcode());
+        clientEntity.setState(clientDto.getState());
+    }
+}
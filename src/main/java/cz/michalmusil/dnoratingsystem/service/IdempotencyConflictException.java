@@ -0,0 +1,24 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+/**
+ * Požadavek s Idempotency-Key nelze zpracovat - stejný klíč se právě zpracovává,
+ * nebo byl dříve použit pro jiný obsah požadavku.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public enum Reason {
+        IN_PROGRESS,
+        KEY_REUSED
+    }
+
+    private final Reason reason;
+
+    public IdempotencyConflictException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
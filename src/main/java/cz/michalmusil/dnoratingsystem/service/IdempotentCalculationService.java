@@ -0,0 +1,196 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.cache.CacheStats;
+import cz.michalmusil.dnoratingsystem.cache.LruCache;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.repository.IdempotencyRecordRepository;
+import cz.michalmusil.dnoratingsystem.repository.IdempotencyRecordRepository.IdempotencyRecord;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Idempotentní výpočet a uložení pojistného (POST /calculate). Opakovaný požadavek se stejným klíčem
+ * vrátí původní RiskResponseDto bez nového výpočtu a bez zápisu klienta či rizika.
+ * <p>
+ * Klíčem je hlavička Idempotency-Key; bez ní (pokud je zapnutá deduplikace podle obsahu)
+ * SHA-256 těla požadavku s kratší platností. Hotové výsledky drží omezená LRU cache s TTL,
+ * klíče z hlavičky volitelně i tabulka idempotency_keys, která platí napříč instancemi a restarty.
+ * Zamítnuté požadavky se neukládají - opakování projde validací znovu.
+ */
+@Service
+public class IdempotentCalculationService {
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotentCalculationService.class);
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final RatingService ratingService;
+    private final ObjectMapper objectMapper;
+    private final IdempotencyRecordRepository recordRepository; // null = jen paměť
+    private final TransactionTemplate transactionTemplate;
+    private final LruCache<String, StoredResponse> keyedResponses;
+    private final LruCache<String, StoredResponse> contentResponses;
+    private final boolean contentHashEnabled;
+    private final Duration ttl;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+
+    public IdempotentCalculationService(RatingService ratingService, ObjectMapper objectMapper,
+                                        ObjectProvider<IdempotencyRecordRepository> recordRepository,
+                                        PlatformTransactionManager transactionManager,
+                                        @Value("${rating.idempotency.max-size:10000}") int maxSize,
+                                        @Value("${rating.idempotency.ttl:24h}") Duration ttl,
+                                        @Value("${rating.idempotency.content-hash.enabled:true}") boolean contentHashEnabled,
+                                        @Value("${rating.idempotency.content-hash.ttl:2m}") Duration contentHashTtl) {
+        this.ratingService = ratingService;
+        this.objectMapper = objectMapper;
+        this.recordRepository = recordRepository.getIfAvailable();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.keyedResponses = new LruCache<>("idempotency_keys", maxSize, ttl);
+        this.contentResponses = new LruCache<>("idempotency_content", maxSize, contentHashTtl);
+        this.contentHashEnabled = contentHashEnabled;
+        this.ttl = ttl;
+    }
+
+    /**
+     * Spočítá a uloží pojistné, nebo vrátí výsledek dříve zpracovaného stejného požadavku.
+     *
+     * @param idempotencyKey Hodnota hlavičky Idempotency-Key, může být null.
+     * @param requestDto DTO obsahující data o riziku a klientovi.
+     * @return Výsledek a příznak, zda jde o zopakovanou odpověď.
+     * @throws IdempotencyConflictException pokud se stejný klíč právě zpracovává nebo patří jinému obsahu.
+     * @throws IllegalArgumentException pokud je klíč příliš dlouhý nebo riziko nesplňuje podmínky pro ocenění.
+     */
+    public Outcome calculate(String idempotencyKey, RiskRequestDto requestDto) {
+        if (idempotencyKey != null && (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH)) {
+            throw new IllegalArgumentException("Idempotency-Key must have 1 to " + MAX_KEY_LENGTH + " characters.");
+        }
+        if (idempotencyKey == null && !contentHashEnabled) {
+            return new Outcome(ratingService.calculateNettoPremium(requestDto), false);
+        }
+
+        String requestHash = hash(requestDto);
+        // Klíč z hlavičky a hash obsahu mají oddělené prostory i platnost
+        LruCache<String, StoredResponse> responses = idempotencyKey != null ? keyedResponses : contentResponses;
+        String key = idempotencyKey != null ? "key:" + idempotencyKey : "sha256:" + requestHash;
+
+        StoredResponse stored = responses.get(key);
+        if (stored != null) {
+            return replay(key, stored, requestHash);
+        }
+        if (!inFlight.add(key)) {
+            throw new IdempotencyConflictException(IdempotencyConflictException.Reason.IN_PROGRESS,
+                    "Request with the same idempotency key is still being processed.");
+        }
+        try {
+            // Tabulka jen pro klíče z hlavičky - hash obsahu je krátkodobá pojistka v rámci instance
+            Outcome outcome = recordRepository == null || idempotencyKey == null
+                    ? new Outcome(ratingService.calculateNettoPremium(requestDto), false)
+                    : transactionTemplate.execute(status -> calculateOnce(key, requestHash, requestDto));
+            responses.put(key, new StoredResponse(requestHash, outcome.response()));
+            return outcome;
+        } finally {
+            inFlight.remove(key);
+        }
+    }
+
+    /**
+     * Založení záznamu, výpočet s uložením rizika a uložení odpovědi proběhnou v jedné transakci.
+     * Pokud klíč už drží jiná (i souběžná) transakce, počká se na její commit a vrátí se její odpověď.
+     */
+    private Outcome calculateOnce(String key, String requestHash, RiskRequestDto requestDto) {
+        Instant now = Instant.now();
+        if (recordRepository.claim(key, requestHash, now, now.minus(ttl))) {
+            RiskResponseDto response = ratingService.calculateNettoPremium(requestDto);
+            recordRepository.complete(key, toJson(response));
+            return new Outcome(response, false);
+        }
+        IdempotencyRecord record = recordRepository.find(key).orElse(null);
+        if (record == null || record.response() == null) {
+            throw new IdempotencyConflictException(IdempotencyConflictException.Reason.IN_PROGRESS,
+                    "Request with the same idempotency key is still being processed.");
+        }
+        return replay(key, new StoredResponse(record.requestHash(), fromJson(record.response())), requestHash);
+    }
+
+    private Outcome replay(String key, StoredResponse stored, String requestHash) {
+        if (!stored.requestHash().equals(requestHash)) {
+            throw new IdempotencyConflictException(IdempotencyConflictException.Reason.KEY_REUSED,
+                    "Idempotency key was already used for a different request.");
+        }
+        log.debug("Replaying stored response for {}", key);
+        return new Outcome(stored.response(), true);
+    }
+
+    /**
+     * Periodicky maže vypršené záznamy z tabulky idempotency_keys (jen pokud je zapnutá).
+     */
+    @Scheduled(fixedDelayString = "${rating.idempotency.database.purge-interval:10m}")
+    public void purgeExpired() {
+        if (recordRepository == null) {
+            return;
+        }
+        // Auto-commit je vypnutý - DELETE mimo transakci by se při vrácení spojení do poolu zahodil
+        Integer deleted = transactionTemplate.execute(status -> recordRepository.deleteExpired(Instant.now().minus(ttl)));
+        if (deleted != null && deleted > 0) {
+            log.debug("Purged {} expired idempotency keys", deleted);
+        }
+    }
+
+    public CacheStats keyedStats() {
+        return keyedResponses.stats();
+    }
+
+    public CacheStats contentStats() {
+        return contentResponses.stats();
+    }
+
+    private String hash(RiskRequestDto requestDto) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            return HexFormat.of().formatHex(digest.digest(objectMapper.writeValueAsBytes(requestDto)));
+        } catch (JsonProcessingException | NoSuchAlgorithmException e) {
+            throw new IllegalStateException("Cannot hash request", e);
+        }
+    }
+
+    private String toJson(RiskResponseDto response) {
+        try {
+            return objectMapper.writeValueAsString(response);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot serialize response", e);
+        }
+    }
+
+    private RiskResponseDto fromJson(String json) {
+        try {
+            return objectMapper.readValue(json, RiskResponseDto.class);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Cannot deserialize stored response", e);
+        }
+    }
+
+    /**
+     * @param replayed true, pokud jde o uloženou odpověď dřívějšího požadavku.
+     */
+    public record Outcome(RiskResponseDto response, boolean replayed) {
+    }
+
+    private record StoredResponse(String requestHash, RiskResponseDto response) {
+    }
+}
@@ -0,0 +1,176 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.archive.ArchiveGrouping;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateDto;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateView;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioDimension;
+import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.IntFunction;
+import java.util.stream.Collectors;
+
+/**
+ * Agregace portfolia (počty, součty a průměrné pojistné na milion limitu) podle zvolené dimenze.
+ * Seskupení běží v databázi (GROUP BY), do aplikace se přenáší jen jeden řádek na skupinu.
+ * Obratová a limitní pásma se počítají podle hranic aktuálního sazebníku.
+ * Starší kalkulace lze agregovat i z archivu mimo databázi ({@link RiskArchiveService}).
+ */
+@Service
+public class PortfolioAnalyticsService {
+
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+
+    private final RiskRepository riskRepository;
+    private final PremiumEngine premiumEngine;
+    private final boolean summaryEnabled;
+    private final RiskArchiveService riskArchiveService; // null = archiv vypnutý
+
+    public PortfolioAnalyticsService(RiskRepository riskRepository, PremiumEngine premiumEngine,
+                                     ObjectProvider<RiskArchiveService> riskArchiveService,
+                                     @Value("${rating.analytics.summary.enabled:false}") boolean summaryEnabled) {
+        this.riskRepository = riskRepository;
+        this.premiumEngine = premiumEngine;
+        this.riskArchiveService = riskArchiveService.getIfAvailable();
+        this.summaryEnabled = summaryEnabled;
+    }
+
+    /**
+     * Agregace přímo nad tabulkou rizik.
+     *
+     * @param dimension Dimenze seskupení.
+     * @param from První den období (včetně), null = bez omezení.
+     * @param to Poslední den období (včetně), null = bez omezení.
+     */
+    @Transactional(readOnly = true)
+    public List<PortfolioAggregateDto> aggregate(PortfolioDimension dimension, LocalDate from, LocalDate to) {
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        return switch (dimension) {
+            case TURNOVER_BAND -> {
+                CompiledTariff tariff = premiumEngine.currentTariff();
+                List<BigDecimal> thresholds = tariff.getTurnoverThresholds();
+                // Záporné hranice vzestupně jako literál pole PostgreSQL, viz RiskRepository.aggregateByTurnoverBand
+                String negatedThresholds = thresholds.reversed().stream()
+                        .map(t -> t.negate().toPlainString())
+                        .collect(Collectors.joining(",", "{", "}"));
+                yield toBands(riskRepository.aggregateByTurnoverBand(tariff.getTurnoverCap(), negatedThresholds,
+                        thresholds.size(), fromTime, toTime), band -> turnoverBandLabel(thresholds, band));
+            }
+            case LIMIT_BAND -> {
+                CompiledTariff tariff = premiumEngine.currentTariff();
+                int width = tariff.getLimitBandWidthMillions();
+                int lastBand = tariff.getLimitBandCount() - 1;
+                yield toBands(riskRepository.aggregateByLimitBand(width, lastBand, fromTime, toTime),
+                        band -> (band * width + 1) + (band == lastBand ? "M+" : "-" + (band + 1) * width + "M"));
+            }
+            case FINANCIAL_PERFORMANCE -> toDtos(riskRepository.aggregateByFinancialPerformance(fromTime, toTime));
+            case ACTIVITY -> toDtos(riskRepository.aggregateByActivity(fromTime, toTime));
+            case MONTH -> toDtos(riskRepository.aggregateByMonth(fromTime, toTime));
+        };
+    }
+
+    /**
+     * Agregace ze souhrnné tabulky po měsících - nezávisí na velikosti tabulky rizik.
+     * Období se zaokrouhluje na celé kalendářní měsíce.
+     *
+     * @throws IllegalArgumentException pokud je souhrnná tabulka vypnutá nebo ji dimenze nepodporuje.
+     */
+    @Transactional(readOnly = true)
+    public List<PortfolioAggregateDto> aggregateFromSummary(PortfolioDimension dimension, LocalDate from, LocalDate to) {
+        if (!summaryEnabled) {
+            throw new IllegalArgumentException("Summary table is disabled (rating.analytics.summary.enabled).");
+        }
+        if (!dimension.isAvailableInSummary()) {
+            throw new IllegalArgumentException("Grouping by '" + dimension.getParam()
+                    + "' is not available from the summary table.");
+        }
+        LocalDate fromMonth = from != null ? from.withDayOfMonth(1) : null;
+        LocalDate toMonth = to != null ? to.withDayOfMonth(1) : null;
+
+        return switch (dimension) {
+            case FINANCIAL_PERFORMANCE -> toDtos(riskRepository.summaryByFinancialPerformance(fromMonth, toMonth));
+            case ACTIVITY -> toDtos(riskRepository.summaryByActivity(fromMonth, toMonth));
+            case MONTH -> toDtos(riskRepository.summaryByMonth(fromMonth, toMonth));
+            // Dimenze bez isAvailableInSummary jsou odmítnuté výše
+            default -> throw new IllegalStateException("Summary query missing for dimension " + dimension);
+        };
+    }
+
+    /**
+     * Agregace z archivu - jen archivovaná rizika (starší než rating.archive.min-age), databáze se nedotazuje.
+     * Skupiny a pásma jsou stejné jako u agregace nad tabulkou rizik.
+     *
+     * @throws IllegalArgumentException pokud je archiv vypnutý.
+     */
+    public List<PortfolioAggregateDto> aggregateFromArchive(PortfolioDimension dimension, LocalDate from, LocalDate to) throws IOException {
+        if (riskArchiveService == null) {
+            throw new IllegalArgumentException("Risk archive is disabled (rating.archive.enabled).");
+        }
+        LocalDateTime fromTime = from != null ? from.atStartOfDay() : null;
+        LocalDateTime toTime = to != null ? to.plusDays(1).atStartOfDay() : null;
+
+        return switch (dimension) {
+            case TURNOVER_BAND -> {
+                CompiledTariff tariff = premiumEngine.currentTariff();
+                List<BigDecimal> thresholds = tariff.getTurnoverThresholds();
+                yield toBands(riskArchiveService.aggregate(ArchiveGrouping.byTurnoverBand(thresholds, tariff.getTurnoverCap()),
+                        fromTime, toTime), band -> turnoverBandLabel(thresholds, band));
+            }
+            case LIMIT_BAND -> {
+                CompiledTariff tariff = premiumEngine.currentTariff();
+                int width = tariff.getLimitBandWidthMillions();
+                int lastBand = tariff.getLimitBandCount() - 1;
+                yield toBands(riskArchiveService.aggregate(ArchiveGrouping.byLimitBand(width, lastBand), fromTime, toTime),
+                        band -> (band * width + 1) + (band == lastBand ? "M+" : "-" + (band + 1) * width + "M"));
+            }
+            case FINANCIAL_PERFORMANCE -> toSortedDtos(riskArchiveService.aggregate(ArchiveGrouping.byFinancialPerformance(), fromTime, toTime));
+            case ACTIVITY -> toSortedDtos(riskArchiveService.aggregate(ArchiveGrouping.byActivity(), fromTime, toTime));
+            case MONTH -> toSortedDtos(riskArchiveService.aggregate(ArchiveGrouping.byMonth(), fromTime, toTime));
+        };
+    }
+
+    private static String turnoverBandLabel(List<BigDecimal> thresholds, int band) {
+        String lower = band == 0 ? "0" : thresholds.get(band - 1).toPlainString();
+        return band == thresholds.size() ? lower + "+" : lower + "-" + thresholds.get(band).toPlainString();
+    }
+
+    // Klíčem pásma je jeho index - řadí se číselně a převádí na čitelný rozsah
+    private static List<PortfolioAggregateDto> toBands(List<PortfolioAggregateView> rows, IntFunction<String> label) {
+        return rows.stream()
+                .sorted(Comparator.comparingInt(row -> Integer.parseInt(row.getGroupKey())))
+                .map(row -> toDto(label.apply(Integer.parseInt(row.getGroupKey())), row))
+                .collect(Collectors.toList());
+    }
+
+    // Skupiny z archivu nemají pořadí z databáze - řadí se podle klíče
+    private static List<PortfolioAggregateDto> toSortedDtos(List<PortfolioAggregateView> rows) {
+        return toDtos(rows.stream().sorted(Comparator.comparing(PortfolioAggregateView::getGroupKey)).toList());
+    }
+
+    private static List<PortfolioAggregateDto> toDtos(List<PortfolioAggregateView> rows) {
+        return rows.stream()
+                .map(row -> toDto(row.getGroupKey(), row))
+                .collect(Collectors.toList());
+    }
+
+    private static PortfolioAggregateDto toDto(String group, PortfolioAggregateView row) {
+        BigDecimal totalLimitInMillions = row.getTotalLimitAmount().divide(ONE_MILLION);
+        BigDecimal averagePremiumPerMillion = totalLimitInMillions.signum() == 0
+                ? null
+                : row.getTotalNettoPremium().divide(totalLimitInMillions, 2, RoundingMode.HALF_UP);
+        return new PortfolioAggregateDto(group, row.getQuoteCount(), row.getTotalNettoPremium(), averagePremiumPerMillion);
+    }
+}
@@ -0,0 +1,167 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.SimulationRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.SimulationResultDto;
+import cz.michalmusil.dnoratingsystem.repository.PortfolioExposureRepository;
+import cz.michalmusil.dnoratingsystem.simulation.LossModel;
+import cz.michalmusil.dnoratingsystem.simulation.LossSimulator;
+import cz.michalmusil.dnoratingsystem.simulation.PortfolioArrays;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Simulace rozdělení ročních škod portfolia (VaR/TVaR) nad uloženými riziky.
+ * Portfolio se z databáze načte jednou do primitivních polí ({@link PortfolioArrays}) a drží se,
+ * dokud nezestárne nebo se nezmění sazebník. Scénáře počítá {@link LossSimulator} na vlastním
+ * ForkJoin poolu, aby dlouhá simulace nebrala vlákna společnému poolu (paralelní streamy požadavků).
+ * Najednou běží nejvýše jedna simulace - jedna využije všechna jádra a drží pole škod všech scénářů.
+ */
+@Service
+public class PortfolioSimulationService {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioSimulationService.class);
+
+    private static final List<BigDecimal> DEFAULT_LEVELS = List.of(new BigDecimal("0.9"), new BigDecimal("0.95"),
+            new BigDecimal("0.99"), new BigDecimal("0.995"), new BigDecimal("0.999"));
+
+    private final PortfolioExposureRepository portfolioExposureRepository;
+    private final PremiumEngine premiumEngine;
+    private final LossModel lossModel;
+    private final int defaultTrials;
+    private final int maxTrials;
+    private final Duration portfolioMaxAge;
+    private final ForkJoinPool pool;
+    private final ReentrantLock running = new ReentrantLock();
+
+    private volatile Snapshot snapshot;
+
+    public PortfolioSimulationService(PortfolioExposureRepository portfolioExposureRepository, PremiumEngine premiumEngine,
+                                      @Value("${rating.simulation.base-frequency:0.02}") double baseFrequency,
+                                      @Value("${rating.simulation.severity-median-ratio:0.25}") double severityMedianRatio,
+                                      @Value("${rating.simulation.severity-sigma:1.2}") double severitySigma,
+                                      @Value("${rating.simulation.default-trials:100000}") int defaultTrials,
+                                      @Value("${rating.simulation.max-trials:10000000}") int maxTrials,
+                                      @Value("${rating.simulation.parallelism:0}") int parallelism,
+                                      @Value("${rating.simulation.portfolio-max-age:10m}") Duration portfolioMaxAge) {
+        this.portfolioExposureRepository = portfolioExposureRepository;
+        this.premiumEngine = premiumEngine;
+        this.lossModel = new LossModel(baseFrequency, severityMedianRatio, severitySigma);
+        this.defaultTrials = defaultTrials;
+        this.maxTrials = maxTrials;
+        this.portfolioMaxAge = portfolioMaxAge;
+        // 0 = podle počtu jader
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Nasimuluje roční škody portfolia a spočítá kvantily.
+     *
+     * @param request Počet scénářů, seed a hladiny spolehlivosti (vše volitelné).
+     * @return Rozdělení škod - střední hodnota, směrodatná odchylka, VaR a TVaR pro každou hladinu.
+     * @throws IllegalArgumentException pokud počet scénářů překračuje maximum.
+     * @throws IllegalStateException pokud už jiná simulace běží.
+     */
+    public SimulationResultDto simulate(SimulationRequestDto request) {
+        int trials = request.getTrials() != null ? request.getTrials() : defaultTrials;
+        if (trials > maxTrials) {
+            throw new IllegalArgumentException("Number of trials (" + trials + ") cannot exceed " + maxTrials + ".");
+        }
+        long seed = request.getSeed() != null ? request.getSeed() : ThreadLocalRandom.current().nextLong();
+        List<BigDecimal> levels = request.getLevels() == null || request.getLevels().isEmpty()
+                ? DEFAULT_LEVELS
+                : request.getLevels().stream().distinct().sorted().toList();
+
+        if (!running.tryLock()) {
+            throw new IllegalStateException("Another simulation is running.");
+        }
+        try {
+            long started = System.nanoTime();
+            Snapshot portfolio = currentSnapshot();
+            double[] losses = LossSimulator.simulate(portfolio.arrays(), trials, seed, pool);
+            Arrays.parallelSort(losses);
+            long elapsedMillis = (System.nanoTime() - started) / 1_000_000;
+            log.info("Simulated {} trials over {} risks in {} ms", trials, portfolio.arrays().size(), elapsedMillis);
+            return toResult(portfolio, trials, seed, levels, losses, elapsedMillis);
+        } finally {
+            running.unlock();
+        }
+    }
+
+    /**
+     * Vrátí načtené portfolio, nebo jej načte znovu, pokud je starší než portfolio-max-age
+     * nebo bylo připravené podle jiné verze sazebníku.
+     */
+    private Snapshot currentSnapshot() {
+        CompiledTariff tariff = premiumEngine.currentTariff();
+        Snapshot current = snapshot;
+        if (current != null && current.arrays().getTariffVersion().equals(tariff.getVersion())
+                && current.loadedAt().plus(portfolioMaxAge).isAfter(LocalDateTime.now())) {
+            return current;
+        }
+        PortfolioArrays.Builder builder = PortfolioArrays.builder(tariff, lossModel);
+        portfolioExposureRepository.forEachLatestExposure(builder::add);
+        current = new Snapshot(builder.build(), LocalDateTime.now());
+        snapshot = current;
+        log.info("Loaded portfolio of {} risks for simulation (tariff {})", current.arrays().size(), tariff.getVersion());
+        return current;
+    }
+
+    private static SimulationResultDto toResult(Snapshot portfolio, int trials, long seed, List<BigDecimal> levels,
+                                                double[] sortedLosses, long elapsedMillis) {
+        // Součty nad seřazeným polem - pořadí sčítání a tedy i výsledek je pro daný seed vždy stejný
+        double sum = 0;
+        for (double loss : sortedLosses) {
+            sum += loss;
+        }
+        double mean = sum / trials;
+        double squares = 0;
+        for (double loss : sortedLosses) {
+            squares += (loss - mean) * (loss - mean);
+        }
+        double standardDeviation = trials > 1 ? Math.sqrt(squares / (trials - 1)) : 0;
+
+        // Suma od konce - TVaR pro libovolnou hladinu je pak jedno dělení
+        double[] tailSums = new double[trials + 1];
+        for (int i = trials - 1; i >= 0; i--) {
+            tailSums[i] = tailSums[i + 1] + sortedLosses[i];
+        }
+        List<SimulationResultDto.Quantile> quantiles = new ArrayList<>(levels.size());
+        for (BigDecimal level : levels) {
+            int index = Math.max(0, (int) Math.ceil(level.doubleValue() * trials) - 1);
+            double tailValueAtRisk = tailSums[index] / (trials - index);
+            quantiles.add(new SimulationResultDto.Quantile(level, money(sortedLosses[index]), money(tailValueAtRisk)));
+        }
+
+        PortfolioArrays arrays = portfolio.arrays();
+        return new SimulationResultDto(arrays.getTariffVersion(), portfolio.loadedAt(), arrays.size(),
+                BigDecimal.valueOf(arrays.getTotalFrequency()).setScale(4, RoundingMode.HALF_UP), trials, seed,
+                money(mean), money(standardDeviation), money(sortedLosses[trials - 1]), quantiles, elapsedMillis);
+    }
+
+    private static BigDecimal money(double value) {
+        return BigDecimal.valueOf(value).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    private record Snapshot(PortfolioArrays arrays, LocalDateTime loadedAt) {
+    }
+}
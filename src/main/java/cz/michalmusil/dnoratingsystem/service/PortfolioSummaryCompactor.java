@@ -0,0 +1,36 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+/**
+ * Periodicky slučuje přírůstky souhrnné tabulky portfolia (risk_summary_monthly_delta),
+ * které zapisují triggery na tabulce rizik, do risk_summary_monthly.
+ * Triggery jen přidávají řádky, zápis rizika se tak nikdy nezdrží na zámku souhrnného řádku.
+ */
+@Component
+@ConditionalOnProperty(name = "rating.analytics.summary.enabled", havingValue = "true")
+public class PortfolioSummaryCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(PortfolioSummaryCompactor.class);
+
+    private final RiskRepository riskRepository;
+
+    public PortfolioSummaryCompactor(RiskRepository riskRepository) {
+        this.riskRepository = riskRepository;
+    }
+
+    @Scheduled(fixedDelayString = "${rating.analytics.summary-compaction-interval:60s}")
+    @Transactional
+    public void compact() {
+        int merged = riskRepository.compactSummary();
+        if (merged > 0) {
+            log.debug("Portfolio summary compacted: {} rows merged", merged);
+        }
+    }
+}
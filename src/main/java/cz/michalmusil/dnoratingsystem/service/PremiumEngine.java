@@ -0,0 +1,117 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import cz.michalmusil.dnoratingsystem.tariff.TariffRegistry;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Výpočetní jádro pojistného (kroky 4 až 8 původního výpočtu v RatingService).
+ * Sazby a slevy bere z předpočítaného sazebníku ({@link CompiledTariff}), samotný výpočet
+ * je tak O(počet pásem) místo smyčky přes každý milion limitu.
+ */
+@Component
+public class PremiumEngine {
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    // Slevy sazebníku 2025-06 - používá je jen referenční implementace níže
+    private static final BigDecimal DISCOUNT_10_20M = new BigDecimal("0.05"); // 5% sleva (tj. multiplikátor 0.95)
+    private static final BigDecimal DISCOUNT_20_30M = new BigDecimal("0.065"); // 6.5% sleva (tj. multiplikátor 0.935)
+    private static final BigDecimal DISCOUNT_30_40M = new BigDecimal("0.075"); // 7.5% sleva (tj. multiplikátor 0.925)
+    private static final BigDecimal DISCOUNT_40_50M = new BigDecimal("0.085"); // 8.5% sleva (tj. multiplikátor 0.915)
+
+    private final TariffRegistry tariffRegistry;
+
+    public PremiumEngine(TariffRegistry tariffRegistry) {
+        this.tariffRegistry = tariffRegistry;
+    }
+
+    /**
+     * @return Aktuálně platný sazebník. Pro jeden výpočet se má přečíst jen jednou.
+     */
+    public CompiledTariff currentTariff() {
+        return tariffRegistry.current();
+    }
+
+    public String getTariffVersion() {
+        return currentTariff().getVersion();
+    }
+
+    /**
+     * Vypočítá netto pojistné podle aktuálního sazebníku.
+     *
+     * @see #calculateNettoPremium(CompiledTariff, BigDecimal, BigDecimal, FinancialPerformance, BigDecimal, BigDecimal)
+     */
+    public BigDecimal calculateNettoPremium(BigDecimal limitAmount, BigDecimal effectiveTurnover,
+                                            FinancialPerformance financialPerformance, BigDecimal activityIndex,
+                                            BigDecimal brokerCommissionPercentage) {
+        return calculateNettoPremium(currentTariff(), limitAmount, effectiveTurnover, financialPerformance,
+                activityIndex, brokerCommissionPercentage);
+    }
+
+    /**
+     * Vypočítá netto pojistné pro již zvalidovaný limit a efektivní (capnutý) obrat.
+     *
+     * @param tariff Sazebník, podle kterého se počítá.
+     * @param limitAmount Limit pojistného plnění v plné výši (Kč).
+     * @param effectiveTurnover Obrat po aplikaci obratového capu (Kč).
+     * @param financialPerformance Finanční výkonnost klienta.
+     * @param activityIndex Index aktivity z číselníku činností.
+     * @param brokerCommissionPercentage Provize brokera v procentech.
+     * @return Netto pojistné zaokrouhlené na 2 desetinná místa.
+     */
+    public BigDecimal calculateNettoPremium(CompiledTariff tariff, BigDecimal limitAmount, BigDecimal effectiveTurnover,
+                                            FinancialPerformance financialPerformance, BigDecimal activityIndex,
+                                            BigDecimal brokerCommissionPercentage) {
+        // 4. + 5. Sazba dle obratového pásma a pojistné za limit se slevami pásem (ILF model)
+        BigDecimal totalLimitPremium = tariff.limitPremium(limitAmount, tariff.turnoverBand(effectiveTurnover));
+
+        // 6. Aplikace faktoru finanční výkonnosti
+        totalLimitPremium = totalLimitPremium.multiply(tariff.financialPerformanceFactor(financialPerformance));
+
+        // 7. Aplikace indexu aktivity
+        totalLimitPremium = totalLimitPremium.multiply(activityIndex);
+
+        // 8. Odečtení provize brokera
+        BigDecimal brokerCommissionFactor = BigDecimal.ONE.subtract(brokerCommissionPercentage.divide(ONE_HUNDRED, 4, RoundingMode.HALF_UP));
+        return totalLimitPremium.multiply(brokerCommissionFactor).setScale(2, RoundingMode.HALF_UP);
+    }
+
+    /**
+     * Původní výpočet pojistného za limit smyčkou přes každý milion (slevy sazebníku 2025-06).
+     * Ponechán jako referenční implementace pro ověření shody s {@link CompiledTariff#limitPremium(BigDecimal, int)}.
+     */
+    static BigDecimal referenceLimitPremium(BigDecimal limitAmount, BigDecimal turnoverCoefficient) {
+        BigDecimal baseRatePerMillion = new BigDecimal("1000000").multiply(turnoverCoefficient);
+
+        BigDecimal totalLimitPremium = BigDecimal.ZERO;
+        BigDecimal currentRatePerMillion = baseRatePerMillion;
+
+        for (int i = 1; i <= limitAmount.divide(new BigDecimal("1000000"), RoundingMode.HALF_UP).intValue(); i++) {
+            if (i == 11) {
+                currentRatePerMillion = baseRatePerMillion.multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M));
+            } else if (i == 21) {
+                currentRatePerMillion = baseRatePerMillion
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M));
+            } else if (i == 31) {
+                currentRatePerMillion = baseRatePerMillion
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_30_40M));
+            } else if (i == 41) {
+                currentRatePerMillion = baseRatePerMillion
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_30_40M))
+                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_40_50M));
+            }
+            totalLimitPremium = totalLimitPremium.add(currentRatePerMillion);
+        }
+        return totalLimitPremium;
+    }
+}
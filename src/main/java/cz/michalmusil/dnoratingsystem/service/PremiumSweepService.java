@@ -0,0 +1,156 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalogRegistry;
+import cz.michalmusil.dnoratingsystem.dto.SweepRangeDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepResponseDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Citlivostní analýza (what-if): pojistné pro celou mřížku limitů a scénářů jedním voláním, bez ukládání.
+ * Výsledky jsou shodné s {@link RatingService#quote}, počítá se ale jinak:
+ * pojistné za limit se spočítá jednou pro každé obratové pásmo jedním průchodem přes vzestupné limity
+ * ({@link CompiledTariff#limitPremiums(int[], int)}) a scénáře jej už jen násobí svým faktorem.
+ * Velké mřížky se počítají paralelně po scénářích (ForkJoin common pool).
+ */
+@Service
+public class PremiumSweepService {
+
+    private static final BigDecimal ONE_THOUSAND = new BigDecimal("1000");
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    private final PremiumEngine premiumEngine;
+    private final ActivityCatalogRegistry activityCatalogRegistry;
+    private final int maxCells;
+    private final int parallelThreshold;
+
+    public PremiumSweepService(PremiumEngine premiumEngine, ActivityCatalogRegistry activityCatalogRegistry,
+                               @Value("${rating.sweep.max-cells:100000}") int maxCells,
+                               @Value("${rating.sweep.parallel-threshold:2000}") int parallelThreshold) {
+        this.premiumEngine = premiumEngine;
+        this.activityCatalogRegistry = activityCatalogRegistry;
+        this.maxCells = maxCells;
+        this.parallelThreshold = parallelThreshold;
+    }
+
+    /**
+     * Spočítá matici pojistného pro všechny kombinace limitu, obratu, finanční výkonnosti a provize.
+     *
+     * @param request Rozsahy vstupů a činnost.
+     * @return Matice pojistného (scénáře x limity), zamítnuté kombinace mají null.
+     * @throws IllegalArgumentException pokud je rozsah neplatný nebo mřížka překračuje maximální počet buněk.
+     */
+    public SweepResponseDto sweep(SweepRequestDto request) {
+        List<BigDecimal> limits = expand(request.getLimitInMillions(), "Limit");
+        List<BigDecimal> turnovers = expand(request.getTurnoverInThousands(), "Turnover");
+        List<BigDecimal> commissions = expand(request.getBrokerCommissionPercentage(), "Broker commission");
+        List<FinancialPerformance> financialPerformances = request.getFinancialPerformances() == null
+                || request.getFinancialPerformances().isEmpty()
+                ? List.of(FinancialPerformance.values())
+                : request.getFinancialPerformances().stream().distinct().toList();
+
+        // Každý rozsah může mít až maxCells hodnot - součin se počítá v long a s kontrolou přetečení
+        long scenarioCount;
+        long cellCount;
+        try {
+            scenarioCount = Math.multiplyExact(Math.multiplyExact((long) turnovers.size(), financialPerformances.size()), commissions.size());
+            cellCount = Math.multiplyExact(scenarioCount, limits.size());
+        } catch (ArithmeticException e) {
+            throw new IllegalArgumentException("Sweep grid cannot exceed " + maxCells + " cells.");
+        }
+        if (cellCount > maxCells) {
+            throw new IllegalArgumentException("Sweep grid (" + cellCount + " cells) cannot exceed " + maxCells + " cells.");
+        }
+
+        // Sazebník a index aktivity se přečtou jednou - celá matice je podle stejné verze
+        CompiledTariff tariff = premiumEngine.currentTariff();
+        BigDecimal activityIndex = activityCatalogRegistry.current().activityIndex(request.getActivity());
+
+        BigDecimal[] limitAmounts = new BigDecimal[limits.size()];
+        int[] limitMillions = new int[limits.size()];
+        for (int i = 0; i < limitAmounts.length; i++) {
+            limitAmounts[i] = limits.get(i).multiply(ONE_MILLION);
+            limitMillions[i] = CompiledTariff.wholeMillions(limitAmounts[i]);
+        }
+
+        // Pojistné za limit (kroky 4 + 5) jen pro obratová pásma, která se v mřížce vyskytují
+        BigDecimal[][] limitPremiumsByBand = new BigDecimal[tariff.getTurnoverBandCount()][];
+        for (BigDecimal turnover : turnovers) {
+            int band = tariff.turnoverBand(turnover.multiply(ONE_THOUSAND).min(tariff.getTurnoverCap()));
+            if (limitPremiumsByBand[band] == null) {
+                limitPremiumsByBand[band] = tariff.limitPremiums(limitMillions, band);
+            }
+        }
+
+        int perTurnover = financialPerformances.size() * commissions.size();
+        IntStream scenarioIndexes = IntStream.range(0, (int) scenarioCount);
+        if (cellCount >= parallelThreshold) {
+            scenarioIndexes = scenarioIndexes.parallel();
+        }
+        List<SweepResponseDto.Scenario> scenarios = scenarioIndexes
+                .mapToObj(s -> scenario(tariff, activityIndex, limitAmounts, limitPremiumsByBand,
+                        turnovers.get(s / perTurnover),
+                        financialPerformances.get(s % perTurnover / commissions.size()),
+                        commissions.get(s % commissions.size())))
+                .toList();
+
+        return new SweepResponseDto(tariff.getVersion(), request.getActivity(), activityIndex, limits, scenarios, (int) cellCount);
+    }
+
+    private static SweepResponseDto.Scenario scenario(CompiledTariff tariff, BigDecimal activityIndex,
+                                                      BigDecimal[] limitAmounts, BigDecimal[][] limitPremiumsByBand,
+                                                      BigDecimal turnoverInThousands, FinancialPerformance financialPerformance,
+                                                      BigDecimal brokerCommissionPercentage) {
+        BigDecimal effectiveTurnover = turnoverInThousands.multiply(ONE_THOUSAND).min(tariff.getTurnoverCap());
+        BigDecimal[] limitPremiums = limitPremiumsByBand[tariff.turnoverBand(effectiveTurnover)];
+
+        // Kroky 6 - 8 jako v PremiumEngine; násobení BigDecimal je přesné, takže na pořadí nezáleží
+        BigDecimal brokerCommissionFactor = BigDecimal.ONE.subtract(brokerCommissionPercentage.divide(ONE_HUNDRED, 4, RoundingMode.HALF_UP));
+        BigDecimal factor = tariff.financialPerformanceFactor(financialPerformance)
+                .multiply(activityIndex)
+                .multiply(brokerCommissionFactor);
+
+        BigDecimal[] premiums = new BigDecimal[limitAmounts.length];
+        for (int i = 0; i < limitAmounts.length; i++) {
+            // Zamítnuté kombinace (stejné podmínky jako validace v RatingService) zůstanou null
+            if (limitAmounts[i].compareTo(tariff.getMaxLimitAmount()) <= 0 && limitAmounts[i].compareTo(effectiveTurnover) <= 0) {
+                premiums[i] = limitPremiums[i].multiply(factor).setScale(2, RoundingMode.HALF_UP);
+            }
+        }
+        return new SweepResponseDto.Scenario(turnoverInThousands, financialPerformance, brokerCommissionPercentage,
+                Arrays.asList(premiums));
+    }
+
+    private List<BigDecimal> expand(SweepRangeDto range, String name) {
+        int comparison = range.getFrom().compareTo(range.getTo());
+        if (comparison > 0) {
+            throw new IllegalArgumentException(name + " range start cannot be greater than its end.");
+        }
+        if (comparison == 0) {
+            return List.of(range.getFrom());
+        }
+        if (range.getStep() == null) {
+            throw new IllegalArgumentException(name + " range step is mandatory when start and end differ.");
+        }
+        BigDecimal steps = range.getTo().subtract(range.getFrom()).divide(range.getStep(), 0, RoundingMode.FLOOR);
+        if (steps.compareTo(BigDecimal.valueOf(maxCells)) >= 0) {
+            throw new IllegalArgumentException(name + " range cannot have more than " + maxCells + " values.");
+        }
+        List<BigDecimal> values = new ArrayList<>(steps.intValue() + 1);
+        for (int i = 0; i <= steps.intValue(); i++) {
+            values.add(range.getFrom().add(range.getStep().multiply(BigDecimal.valueOf(i))));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,74 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.cache.CacheStats;
+import cz.michalmusil.dnoratingsystem.cache.LruCache;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.function.Supplier;
+
+/**
+ * Cache vypočteného netto pojistného podle normalizovaných vstupů ratingu
+ * (obrat, limit, finanční výkonnost, index aktivity, provize) a verze sazebníku.
+ * Aktivita je v klíči zastoupena svým indexem - různé texty se stejným indexem sdílí záznam
+ * a změna indexu po přenačtení číselníku činností vede na jiný klíč.
+ * Identita klienta v klíči není - pojistné na ní nezávisí.
+ * Při změně verze sazebníku se cache vyprázdní.
+ */
+@Component
+public class QuoteCache {
+
+    private final LruCache<Key, BigDecimal> cache;
+    private final boolean enabled;
+    private volatile String tariffVersion;
+
+    public QuoteCache(@Value("${rating.quote-cache.enabled:true}") boolean enabled,
+                      @Value("${rating.quote-cache.max-size:50000}") int maxSize,
+                      @Value("${rating.quote-cache.ttl:10m}") Duration ttl) {
+        this.enabled = enabled;
+        this.cache = new LruCache<>("quotes", maxSize, ttl);
+    }
+
+    /**
+     * Vrátí pojistné z cache, nebo jej spočítá pomocí {@code calculation} a uloží.
+     * Volat až po validaci vstupu - výjimky z výpočtu se necachují.
+     */
+    public BigDecimal get(String tariffVersion, BigDecimal turnover, BigDecimal limitAmount,
+                          FinancialPerformance financialPerformance, BigDecimal activityIndex,
+                          BigDecimal brokerCommissionPercentage, Supplier<BigDecimal> calculation) {
+        if (!enabled) {
+            return calculation.get();
+        }
+        if (!tariffVersion.equals(this.tariffVersion)) {
+            // Nový sazebník - staré záznamy by již nikdy nebyly zasaženy, uvolníme je
+            cache.clear();
+            this.tariffVersion = tariffVersion;
+        }
+
+        Key key = new Key(tariffVersion, normalize(turnover), normalize(limitAmount), financialPerformance,
+                normalize(activityIndex), normalize(brokerCommissionPercentage));
+        BigDecimal nettoPremium = cache.get(key);
+        if (nettoPremium == null) {
+            nettoPremium = calculation.get();
+            cache.put(key, nettoPremium);
+        }
+        return nettoPremium;
+    }
+
+    public CacheStats stats() {
+        return cache.stats();
+    }
+
+    // BigDecimal.equals porovnává i škálu - 10 a 10.00 musí dát stejný klíč
+    private static BigDecimal normalize(BigDecimal value) {
+        return value == null ? null : value.stripTrailingZeros();
+    }
+
+    private record Key(String tariffVersion, BigDecimal turnover, BigDecimal limitAmount,
+                       FinancialPerformance financialPerformance, BigDecimal activityIndex,
+                       BigDecimal brokerCommissionPercentage) {
+    }
+}
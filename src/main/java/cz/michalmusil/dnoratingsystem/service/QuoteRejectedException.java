@@ -0,0 +1,24 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+/**
+ * Riziko nesplňuje podmínky sazebníku a nelze jej ocenit.
+ * Dědí z IllegalArgumentException, takže stávající ošetření chyb (400 Bad Request) platí beze změny.
+ */
+public class QuoteRejectedException extends IllegalArgumentException {
+
+    public enum Reason {
+        LIMIT_ABOVE_MAXIMUM,
+        LIMIT_ABOVE_TURNOVER
+    }
+
+    private final Reason reason;
+
+    public QuoteRejectedException(Reason reason, String message) {
+        super(message);
+        this.reason = reason;
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+}
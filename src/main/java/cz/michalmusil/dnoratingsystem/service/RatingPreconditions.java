@@ -0,0 +1,36 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+
+import java.math.BigDecimal;
+
+/**
+ * Podmínky sazebníku, které musí riziko splnit, aby šlo ocenit. Čistě výpočetní kontrola bez databáze -
+ * používá ji validace požadavku ({@link cz.michalmusil.dnoratingsystem.validation.RatableRisk}) i RatingService.
+ */
+public final class RatingPreconditions {
+
+    private RatingPreconditions() {
+    }
+
+    /**
+     * @param limitAmount Limit pojistného plnění v plné výši (Kč).
+     * @param turnover Obrat v plné výši (Kč), před aplikací obratového capu.
+     * @return Důvod zamítnutí, nebo null, pokud riziko podmínky splňuje.
+     */
+    public static QuoteRejectedException check(CompiledTariff tariff, BigDecimal limitAmount, BigDecimal turnover) {
+        // 1. Validace maximálního limitu
+        if (limitAmount.compareTo(tariff.getMaxLimitAmount()) > 0) {
+            return new QuoteRejectedException(QuoteRejectedException.Reason.LIMIT_ABOVE_MAXIMUM,
+                    "Limit amount (" + limitAmount + " CZK) cannot exceed " + tariff.getMaxLimitAmount() + " CZK.");
+        }
+
+        // 2. + 3. Limit nesmí být větší než obrat po aplikaci obratového capu
+        BigDecimal effectiveTurnover = turnover.min(tariff.getTurnoverCap());
+        if (limitAmount.compareTo(effectiveTurnover) > 0) {
+            return new QuoteRejectedException(QuoteRejectedException.Reason.LIMIT_ABOVE_TURNOVER,
+                    "Limit amount (" + limitAmount + " CZK) cannot be greater than effective turnover (" + effectiveTurnover + " CZK).");
+        }
+        return null;
+    }
+}
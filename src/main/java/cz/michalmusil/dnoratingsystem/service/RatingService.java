@@ -1,209 +1,191 @@
 package cz.michalmusil.dnoratingsystem.service;
 
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalogRegistry;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics.Stage;
 import cz.michalmusil.dnoratingsystem.model.Risk;
 import cz.michalmusil.dnoratingsystem.model.Client; // Nový import pro Client
 import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
-import cz.michalmusil.dnoratingsystem.repository.ClientRepository; // Nový import pro ClientRepository
-// import cz.michalmusil.dnoratingsystem.model.ActivityType; // Stále zakomentováno, dokud jej neimplementujeme
 import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
 import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
-import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
-import java.time.LocalDateTime;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
 
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.time.LocalDateTime;
-import java.util.Optional; // Pro práci s Optional z repository
 
 @Service
 public class RatingService {
 
     private final RiskRepository riskRepository;
-    private final ClientRepository clientRepository; // Nová závislost
-
-    public RatingService(RiskRepository riskRepository, ClientRepository clientRepository) { // Přidáno do konstruktoru
+    private final ClientService clientService;
+    private final PremiumEngine premiumEngine;
+    private final QuoteCache quoteCache;
+    private final ActivityCatalogRegistry activityCatalogRegistry;
+    private final RatingMetrics ratingMetrics;
+    private final RiskIdAllocator riskIdAllocator;
+    private final RiskWriteBehindWriter riskWriteBehindWriter;
+
+    public RatingService(RiskRepository riskRepository, ClientService clientService,
+                         PremiumEngine premiumEngine, QuoteCache quoteCache,
+                         ActivityCatalogRegistry activityCatalogRegistry, RatingMetrics ratingMetrics,
+                         RiskIdAllocator riskIdAllocator, RiskWriteBehindWriter riskWriteBehindWriter) {
         this.riskRepository = riskRepository;
-        this.clientRepository = clientRepository;
+        this.clientService = clientService;
+        this.premiumEngine = premiumEngine;
+        this.quoteCache = quoteCache;
+        this.activityCatalogRegistry = activityCatalogRegistry;
+        this.ratingMetrics = ratingMetrics;
+        this.riskIdAllocator = riskIdAllocator;
+        this.riskWriteBehindWriter = riskWriteBehindWriter;
     }
 
-    // --- Konfigurační konstanty pro rater ---
-    private static final BigDecimal MAX_LIMIT_AMOUNT = new BigDecimal("50000000"); // 50 milionů Kč
-    private static final BigDecimal TURNOVER_CAP = new BigDecimal("1000000000"); // 1 miliarda Kč
-
-    // Koeficienty pro obrat
-    private static final BigDecimal TURNOVER_THRESHOLD_100M = new BigDecimal("100000000"); // 100 milionů
-    private static final BigDecimal TURNOVER_THRESHOLD_500M = new BigDecimal("500000000"); // 500 milionů
-    private static final BigDecimal TURNOVER_THRESHOLD_750M = new BigDecimal("750000000"); // 750 milionů
-
-    // Koeficienty pro obrat
-    private static final BigDecimal COEFFICIENT_UP_TO_100M = new BigDecimal("0.001");
-    private static final BigDecimal COEFFICIENT_100M_TO_500M = new BigDecimal("0.0012");
-    private static final BigDecimal COEFFICIENT_500M_TO_750M = new BigDecimal("0.0015");
-    private static final BigDecimal COEFFICIENT_ABOVE_750M = new BigDecimal("0.0018");
-
-    // Slevové koeficienty pro pásma limitů
-    private static final BigDecimal DISCOUNT_10_20M = new BigDecimal("0.05"); // 5% sleva (tj. multiplikátor 0.95)
-    private static final BigDecimal DISCOUNT_20_30M = new BigDecimal("0.065"); // 6.5% sleva (tj. multiplikátor 0.935)
-    private static final BigDecimal DISCOUNT_30_40M = new BigDecimal("0.075"); // 7.5% sleva (tj. multiplikátor 0.925)
-    private static final BigDecimal DISCOUNT_40_50M = new BigDecimal("0.085"); // 8.5% sleva (tj. multiplikátor 0.915)
-
+    // Maximální limit, obratový cap, pásma i koeficienty jsou v sazebníku (TariffRegistry)
+    private static final BigDecimal ONE_THOUSAND = new BigDecimal("1000");
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+
+    /**
+     * Spočítá pojistné bez jakéhokoli přístupu k databázi (žádný klient ani riziko se neukládá).
+     * Vhodné pro opakované přepočty z UI. Vrácené DTO nemá vyplněné id ani clientId.
+     *
+     * @param requestDto DTO obsahující data o riziku a klientovi.
+     * @return RiskResponseDto s vypočítaným netto pojistným.
+     * @throws IllegalArgumentException pokud riziko nesplňuje podmínky pro ocenění.
+     */
+    public RiskResponseDto quote(RiskRequestDto requestDto) {
+        BigDecimal limitAmount = requestDto.getLimitInMillions().multiply(ONE_MILLION);
+        BigDecimal turnover = requestDto.getTurnoverInThousands().multiply(ONE_THOUSAND);
+        PremiumQuote premium = rate(requestDto, limitAmount, turnover);
+
+        return toResponseDto(requestDto, limitAmount, turnover, premium);
+    }
 
+    /**
+     * Spočítá pojistné a výsledek uloží - založí nebo aktualizuje klienta podle IČO a uloží Risk.
+     * Výpočet (včetně validací) proběhne před prvním přístupem do databáze,
+     * takže zamítnuté riziko nezpůsobí žádný zápis.
+     * V režimu write-behind ({@code rating.write-behind.enabled}) se riziko neukládá synchronně -
+     * dostane ID předem a zapíše se na pozadí ({@link RiskWriteBehindWriter}).
+     *
+     * @param requestDto DTO obsahující data o riziku a klientovi.
+     * @return RiskResponseDto s vypočítaným pojistným, ID uloženého rizika a ID klienta.
+     * @throws IllegalArgumentException pokud riziko nesplňuje podmínky pro ocenění.
+     */
+    @Transactional
     public RiskResponseDto calculateNettoPremium(RiskRequestDto requestDto) {
 
         // Konverze vstupních dat na BigDecimal a plné hodnoty
-        BigDecimal limitAmount = requestDto.getLimitInMillions().multiply(new BigDecimal("1000000"));
-        BigDecimal turnover = requestDto.getTurnoverInThousands().multiply(new BigDecimal("1000"));
-        BigDecimal brokerCommissionPercentage = new BigDecimal(String.valueOf(requestDto.getBrokerCommissionPercentage()));
-
-        // --- ZDE JE NOVÁ LOGIKA PRO PRÁCI S KLIENTEM ---
-        ClientRequestDto clientDto = requestDto.getClient();
-        Client clientEntity;
-
-        // Pokusíme se najít klienta podle IČO
-        Optional<Client> existingClient = clientRepository.findByIco(clientDto.getIco());
-
-        if (existingClient.isPresent()) {
-            // Klient existuje, použijeme ho
-            clientEntity = existingClient.get();
-            // Můžete zde volitelně aktualizovat ostatní údaje klienta, pokud se změnily
-            clientEntity.setName(clientDto.getName());
-            clientEntity.setStreet(clientDto.getStreet());
-            clientEntity.setHouseNumber(clientDto.getHouseNumber());
-            clientEntity.setOrientationNumber(clientDto.getOrientationNumber());
-            clientEntity.setCity(clientDto.getCity());
-            clientEntity.setPostcode(clientDto.getPostcode());
-            clientEntity.setState(clientDto.getState());
-            clientRepository.save(clientEntity); // Uložíme případné změny
-        } else {
-            // Klient neexistuje, vytvoříme nového
-            clientEntity = new Client();
-            clientEntity.setName(clientDto.getName());
-            clientEntity.setStreet(clientDto.getStreet());
-            clientEntity.setHouseNumber(clientDto.getHouseNumber());
-            clientEntity.setOrientationNumber(clientDto.getOrientationNumber());
-            clientEntity.setCity(clientDto.getCity());
-            clientEntity.setPostcode(clientDto.getPostcode());
-            clientEntity.setState(clientDto.getState());
-            clientEntity.setIco(clientDto.getIco());
-            clientEntity = clientRepository.save(clientEntity); // Uložíme nového klienta, aby získal ID
-        }
-        // ---------------------------------------------
+        BigDecimal limitAmount = requestDto.getLimitInMillions().multiply(ONE_MILLION);
+        BigDecimal turnover = requestDto.getTurnoverInThousands().multiply(ONE_THOUSAND);
 
-        // 1. Validace maximálního limitu
-        if (limitAmount.compareTo(MAX_LIMIT_AMOUNT) > 0) {
-            throw new IllegalArgumentException("Limit amount (" + limitAmount + " CZK) cannot exceed " + MAX_LIMIT_AMOUNT + " CZK.");
-        }
-
-        // 2. Aplikace obratového capu
-        BigDecimal effectiveTurnover = turnover.min(TURNOVER_CAP);
-
-        // 3. NOVÁ VALIDACE: LIMIT NESMÍ BÝT VĚTŠÍ NEŽ OBRAT
-        if (limitAmount.compareTo(effectiveTurnover) > 0) {
-            throw new IllegalArgumentException("Limit amount (" + limitAmount + " CZK) cannot be greater than effective turnover (" + effectiveTurnover + " CZK).");
-        }
+        // 1. - 8. Validace a výpočet pojistného (bez databáze)
+        PremiumQuote premium = rate(requestDto, limitAmount, turnover);
+        RiskResponseDto responseDto = toResponseDto(requestDto, limitAmount, turnover, premium);
 
-        // 4. Určení základní sazby za milion dle pasma
-        BigDecimal turnoverCoefficient;
-        if (effectiveTurnover.compareTo(TURNOVER_THRESHOLD_100M) <= 0) {
-            turnoverCoefficient = COEFFICIENT_UP_TO_100M;
-        } else if (effectiveTurnover.compareTo(TURNOVER_THRESHOLD_500M) <= 0) {
-            turnoverCoefficient = COEFFICIENT_100M_TO_500M;
-        } else if (effectiveTurnover.compareTo(TURNOVER_THRESHOLD_750M) <= 0) {
-            turnoverCoefficient = COEFFICIENT_500M_TO_750M;
-        } else {
-            turnoverCoefficient = COEFFICIENT_ABOVE_750M;
-        }
+        // Založení nebo aktualizace klienta podle IČO
+        Client clientEntity = ratingMetrics.time(Stage.CLIENT_UPSERT, () -> clientService.upsert(requestDto.getClient()));
 
-        BigDecimal baseRatePerMillion = new BigDecimal("1000000").multiply(turnoverCoefficient);
-
-        // 5. Výpočet celkové prémie na základě limitu a pásmových slev (ILF model)
-        BigDecimal totalLimitPremium = BigDecimal.ZERO;
-        BigDecimal currentRatePerMillion = baseRatePerMillion;
-
-        for (int i = 1; i <= limitAmount.divide(new BigDecimal("1000000"), RoundingMode.HALF_UP).intValue(); i++) {
-            if (i == 11) {
-                currentRatePerMillion = baseRatePerMillion.multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M));
-            } else if (i == 21) {
-                currentRatePerMillion = baseRatePerMillion
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M));
-            } else if (i == 31) {
-                currentRatePerMillion = baseRatePerMillion
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_30_40M));
-            } else if (i == 41) {
-                currentRatePerMillion = baseRatePerMillion
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_10_20M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_20_30M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_30_40M))
-                        .multiply(BigDecimal.ONE.subtract(DISCOUNT_40_50M));
+        // 9. Vytvoření a uložení Risk entity
+        Risk riskEntity = newRiskEntity(requestDto, responseDto, clientEntity);
+        ratingMetrics.time(Stage.RISK_PERSISTENCE, () -> {
+            if (riskWriteBehindWriter.isEnabled()) {
+                // Write-behind: ID předem ze sekvence, INSERT proběhne na pozadí po commitu.
+                // Krok pak měří jen přidělení ID a zařazení do fronty, ne zápis do databáze.
+                riskEntity.setId(riskIdAllocator.nextId());
+                riskWriteBehindWriter.submit(riskEntity);
+            } else {
+                // INSERT hned (flush), ne až při commitu - jinak by krok měřil jen zařazení entity do persistence contextu
+                riskRepository.saveAndFlush(riskEntity);
             }
-            totalLimitPremium = totalLimitPremium.add(currentRatePerMillion);
-        }
-
-        // 6. Aplikace faktoru finanční výkonnosti
-        BigDecimal financialPerformanceFactor;
-        switch (requestDto.getFinancialPerformance()) {
-            case BELOW_AVERAGE: financialPerformanceFactor = new BigDecimal("1.2"); break;
-            case ABOVE_AVERAGE: financialPerformanceFactor = new BigDecimal("0.8"); break;
-            case AVERAGE: default: financialPerformanceFactor = BigDecimal.ONE; break;
-        }
-        totalLimitPremium = totalLimitPremium.multiply(financialPerformanceFactor);
+        });
 
-        // 7. Aplikace indexu aktivity - PROZATÍM PEVNĚ NA 1.0
-        BigDecimal activityIndex = BigDecimal.ONE;
-        totalLimitPremium = totalLimitPremium.multiply(activityIndex);
+        // 10. Doplnění ID do RiskResponseDto
+        responseDto.setId(riskEntity.getId()); // Získáváme ID z uložené entity
+        responseDto.setClientId(clientEntity.getId()); // Vezmeme ID z uložené Client entity
+        return responseDto;
+    }
 
-        // 8. Odečtení provize brokera
-        BigDecimal brokerCommissionFactor = BigDecimal.ONE.subtract(brokerCommissionPercentage.divide(new BigDecimal("100"), 4, RoundingMode.HALF_UP));
-        BigDecimal nettoPremium = totalLimitPremium.multiply(brokerCommissionFactor);
+    /**
+     * Validace vstupu a výpočet netto pojistného. Nesahá na žádné repository.
+     * Sazebník se přečte jednou, validace i výpočet tak vždy proběhnou podle stejné verze,
+     * i když se sazebník mezitím přenačte.
+     */
+    private PremiumQuote rate(RiskRequestDto requestDto, BigDecimal limitAmount, BigDecimal turnover) {
+        CompiledTariff tariff = premiumEngine.currentTariff();
+
+        // 1. - 3. Validace limitu proti sazebníku a obratu
+        BigDecimal effectiveTurnover = ratingMetrics.time(Stage.VALIDATION, () -> validate(tariff, limitAmount, turnover));
+
+        // 4. - 8. Sazba dle obratu, pojistné za limit se slevami pásem, finanční výkonnost,
+        // index aktivity a provize brokera - počítá PremiumEngine nad předpočítaným sazebníkem,
+        // stejné kombinace vstupů se berou z cache výsledků
+        BigDecimal nettoPremium = ratingMetrics.time(Stage.CALCULATION, () -> {
+            // Index aktivity z číselníku činností v paměti (neznámá aktivita má výchozí index)
+            BigDecimal activityIndex = activityCatalogRegistry.current().activityIndex(requestDto.getActivity());
+            return quoteCache.get(tariff.getVersion(), effectiveTurnover, limitAmount,
+                    requestDto.getFinancialPerformance(), activityIndex, requestDto.getBrokerCommissionPercentage(),
+                    () -> premiumEngine.calculateNettoPremium(tariff, limitAmount, effectiveTurnover,
+                            requestDto.getFinancialPerformance(), activityIndex, requestDto.getBrokerCommissionPercentage()));
+        });
+        return new PremiumQuote(nettoPremium, tariff.getVersion());
+    }
 
-        nettoPremium = nettoPremium.setScale(2, RoundingMode.HALF_UP);
+    /**
+     * @return Efektivní obrat (po aplikaci obratového capu).
+     * @throws QuoteRejectedException pokud limit překračuje maximum sazebníku nebo efektivní obrat.
+     */
+    private BigDecimal validate(CompiledTariff tariff, BigDecimal limitAmount, BigDecimal turnover) {
+        // 1. - 3. Stejné podmínky kontroluje už validace požadavku (@RatableRisk); tady zůstávají kvůli
+        // volajícím bez Bean Validation a kvůli přenačtení sazebníku mezi validací a výpočtem
+        QuoteRejectedException rejection = RatingPreconditions.check(tariff, limitAmount, turnover);
+        if (rejection != null) {
+            ratingMetrics.rejected(rejection.getReason());
+            throw rejection;
+        }
+        return turnover.min(tariff.getTurnoverCap());
+    }
 
-        // 9. Vytvoření a uložení Risk entity
+    /**
+     * Sestaví (neuloženou) Risk entitu pro již spočítané pojistné.
+     */
+    Risk newRiskEntity(RiskRequestDto requestDto, RiskResponseDto quote, Client clientEntity) {
         Risk riskEntity = new Risk();
-        riskEntity.setClient(clientEntity); // *** ZDE JE KLÍČOVÁ ZMĚNA ***
-        //riskEntity.setClientName(requestDto.getClient().getName()); // TOTO UŽ NENÍ POTŘEBA
-        //riskEntity.setClientId(requestDto.getClient().getIco()); // TOTO UŽ NENÍ POTŘEBA
-
+        riskEntity.setClient(clientEntity);
         riskEntity.setActivity(requestDto.getActivity());
-        riskEntity.setTurnover(turnover);
-        riskEntity.setLimitAmount(limitAmount);
+        riskEntity.setTurnover(requestDto.getTurnoverInThousands().multiply(ONE_THOUSAND));
+        riskEntity.setLimitAmount(requestDto.getLimitInMillions().multiply(ONE_MILLION));
         riskEntity.setFinancialPerformance(requestDto.getFinancialPerformance());
-        // Zde by mělo být nastaveno `brokerCommission` (bez "percentage")
-        // Ale v RiskRequestDto to máš jako "brokerCommissionPercentage", což je správné pro vstup
-        // Takže to jen mapuj na správné pole v Risk entitě.
-        // Dle tvého Risk.java: private BigDecimal brokerCommission;
-        riskEntity.setBrokerCommissionPercentage(brokerCommissionPercentage); // Zde se ukládá procento provize
-
-        riskEntity.setNettoPremium(nettoPremium);
-        riskEntity.setCalculationDate(LocalDateTime.now()); // Vyžaduje import LocalDateTime
-
-        riskRepository.save(riskEntity);
+        riskEntity.setBrokerCommissionPercentage(requestDto.getBrokerCommissionPercentage()); // Zde se ukládá procento provize
+        riskEntity.setNettoPremium(quote.getNettoPremium());
+        riskEntity.setTariffVersion(quote.getTariffVersion());
+        riskEntity.setCalculationDate(LocalDateTime.now());
+        return riskEntity;
+    }
 
-        // 10. Vrácení RiskResponseDto
+    private RiskResponseDto toResponseDto(RiskRequestDto requestDto, BigDecimal limitAmount, BigDecimal turnover, PremiumQuote premium) {
         RiskResponseDto responseDto = new RiskResponseDto(); // Použijeme prázdný konstruktor
-        responseDto.setId(riskEntity.getId()); // Získáváme ID z uložené entity
-        responseDto.setActivity(riskEntity.getActivity()); // Získáváme aktivitu z entity
+        responseDto.setActivity(requestDto.getActivity());
         responseDto.setTurnoverInThousands(
-                turnover.divide(new BigDecimal("1000"), 2, RoundingMode.HALF_UP)
+                turnover.divide(ONE_THOUSAND, 2, RoundingMode.HALF_UP)
         );
         responseDto.setLimitInMillions(
-                limitAmount.divide(new BigDecimal("1000000"), 2, RoundingMode.HALF_UP)
+                limitAmount.divide(ONE_MILLION, 2, RoundingMode.HALF_UP)
         );
         responseDto.setFinancialPerformance(requestDto.getFinancialPerformance()); // Ponecháme jako enum, RiskResponseDto jej přijímá
-        responseDto.setBrokerCommissionPercentage(brokerCommissionPercentage); // Toto je již BigDecimal
-        responseDto.setNettoPremium(nettoPremium); // Toto je již BigDecimal
+        responseDto.setBrokerCommissionPercentage(requestDto.getBrokerCommissionPercentage()); // Toto je již BigDecimal
+        responseDto.setNettoPremium(premium.nettoPremium()); // Toto je již BigDecimal
+        responseDto.setTariffVersion(premium.tariffVersion());
 
-        // Nastavení informací o klientovi z requestDto (nebo přímo z clientEntity, pokud je potřeba)
+        // Nastavení informací o klientovi z requestDto
         if (requestDto.getClient() != null) {
-            responseDto.setClientId(clientEntity.getId()); // Vezmeme ID z uložené Client entity
             responseDto.setClientIco(requestDto.getClient().getIco());
             responseDto.setClientName(requestDto.getClient().getName());
         }
-
         return responseDto;
     }
-}
\ No newline at end of file
+
+    private record PremiumQuote(BigDecimal nettoPremium, String tariffVersion) {
+    }
+}
@@ -0,0 +1,90 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.cache.CachedClient;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics.Stage;
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.repository.ReactiveRiskRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.r2dbc.connection.R2dbcTransactionManager;
+import org.springframework.r2dbc.core.DatabaseClient;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.reactive.TransactionalOperator;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+/**
+ * Neblokující varianta {@link RatingService#calculateNettoPremium} pro reaktivní nasazení
+ * ({@code spring.main.web-application-type=reactive}). Výpočet (validace, sazebník, cache výsledků)
+ * je společný - {@link RatingService#quote}, je čistě CPU a trvá mikrosekundy, proto běží
+ * přímo na event loopu. Klient a riziko se ukládají přes R2DBC v jedné reaktivní transakci.
+ * Kroky se měří stejnými timery jako blokující varianta ({@link RatingMetrics}) - validaci a výpočet
+ * měří {@link RatingService#quote}, uložení klienta a rizika tato třída.
+ */
+@Service
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveRatingService {
+
+    private final RatingService ratingService;
+    private final ReactiveRiskRepository reactiveRiskRepository;
+    private final RatingMetrics ratingMetrics;
+    private final TransactionalOperator transactionalOperator;
+
+    // Transakční manager R2DBC není bean - vedle JpaTransactionManageru by @Transactional nevěděl, který použít
+    public ReactiveRatingService(RatingService ratingService, ReactiveRiskRepository reactiveRiskRepository,
+                                 RatingMetrics ratingMetrics, DatabaseClient reactiveDatabaseClient) {
+        this.ratingService = ratingService;
+        this.reactiveRiskRepository = reactiveRiskRepository;
+        this.ratingMetrics = ratingMetrics;
+        this.transactionalOperator = TransactionalOperator.create(new R2dbcTransactionManager(reactiveDatabaseClient.getConnectionFactory()));
+    }
+
+    /**
+     * Spočítá pojistné a výsledek uloží (klient podle IČO, riziko). Sémantika jako u blokující varianty.
+     *
+     * @return Mono s RiskResponseDto včetně ID rizika a klienta; chyba IllegalArgumentException,
+     * pokud riziko nesplňuje podmínky pro ocenění.
+     */
+    public Mono<RiskResponseDto> calculateNettoPremium(RiskRequestDto requestDto) {
+        return Mono.fromCallable(() -> ratingService.quote(requestDto))
+                .flatMap(responseDto -> ratingMetrics.time(Stage.CLIENT_UPSERT, upsertClient(requestDto.getClient()))
+                        .flatMap(clientId -> {
+                            Client client = new Client();
+                            client.setId(clientId);
+                            return ratingMetrics.time(Stage.RISK_PERSISTENCE,
+                                    reactiveRiskRepository.insertRisk(ratingService.newRiskEntity(requestDto, responseDto, client)));
+                        })
+                        .map(risk -> {
+                            responseDto.setId(risk.getId());
+                            responseDto.setClientId(risk.getClient().getId());
+                            return responseDto;
+                        })
+                        .as(transactionalOperator::transactional));
+    }
+
+    public Mono<RiskResponseDto> quote(RiskRequestDto requestDto) {
+        return Mono.fromCallable(() -> ratingService.quote(requestDto));
+    }
+
+    public Flux<RiskResponseDto> findRisksAfter(long after, int limit) {
+        return reactiveRiskRepository.findRowsAfter(after, limit).map(RiskResponseDto::fromRow);
+    }
+
+    public Flux<RiskResponseDto> streamAllRisks() {
+        return reactiveRiskRepository.streamAllRows().map(RiskResponseDto::fromRow);
+    }
+
+    // Stejná pravidla jako ClientService.upsert: UPDATE jen při změně údajů, souběžné založení téhož IČO řeší ON CONFLICT
+    private Mono<Long> upsertClient(ClientRequestDto clientDto) {
+        return reactiveRiskRepository.findClientByIco(clientDto.getIco())
+                .flatMap(existing -> existing.matches(clientDto)
+                        ? Mono.just(existing.id())
+                        : reactiveRiskRepository.updateClient(existing.id(), clientDto).thenReturn(existing.id()))
+                .switchIfEmpty(Mono.defer(() -> reactiveRiskRepository.insertClient(clientDto)
+                        .switchIfEmpty(Mono.defer(() -> reactiveRiskRepository.findClientByIco(clientDto.getIco())
+                                .map(CachedClient::id)))));
+    }
+}
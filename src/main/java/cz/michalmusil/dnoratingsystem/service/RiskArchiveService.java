@@ -0,0 +1,174 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.archive.ArchiveGrouping;
+import cz.michalmusil.dnoratingsystem.archive.ArchiveSegment;
+import cz.michalmusil.dnoratingsystem.archive.RiskArchive;
+import cz.michalmusil.dnoratingsystem.dto.ArchiveStatusDto;
+import cz.michalmusil.dnoratingsystem.dto.PortfolioAggregateView;
+import cz.michalmusil.dnoratingsystem.repository.RiskArchiveRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Archiv starších kalkulací mimo databázi (reporting nad historií nezatěžuje PostgreSQL s živým oceňováním).
+ * <p>
+ * Export pravidelně připojí do archivu rizika s calculation_date od konce archivu do hranice stáří
+ * (celé dny starší než min-age), seřazená podle data - po segmentech o zhruba segment-rows řádcích.
+ * Rizika se v databázi ponechávají (historie klienta, přecenění). Kalkulace uložené dodatečně
+ * s datem před koncem archivu (import historických dat) se do archivu už nedostanou.
+ * <p>
+ * Agregace nad archivem běží na vlastním ForkJoin poolu, segmenty se čtou z namapovaných souborů.
+ */
+@Service
+@ConditionalOnProperty(name = "rating.archive.enabled", havingValue = "true")
+public class RiskArchiveService {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskArchiveService.class);
+
+    private final RiskArchiveRepository riskArchiveRepository;
+    private final RiskArchive archive;
+    private final Duration minAge;
+    private final int segmentRows;
+    private final ForkJoinPool pool;
+
+    public RiskArchiveService(RiskArchiveRepository riskArchiveRepository,
+                              @Value("${rating.archive.directory:data/archive}") Path directory,
+                              @Value("${rating.archive.min-age:365d}") Duration minAge,
+                              @Value("${rating.archive.segment-rows:1000000}") int segmentRows,
+                              @Value("${rating.archive.scan-parallelism:0}") int parallelism) throws IOException {
+        if (segmentRows < 1 || segmentRows > ArchiveSegment.MAX_ROWS / 2) {
+            throw new IllegalArgumentException("rating.archive.segment-rows must be between 1 and " + ArchiveSegment.MAX_ROWS / 2 + ".");
+        }
+        this.riskArchiveRepository = riskArchiveRepository;
+        this.archive = new RiskArchive(directory);
+        this.minAge = minAge;
+        this.segmentRows = segmentRows;
+        // 0 = podle počtu jader
+        this.pool = new ForkJoinPool(parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors());
+        log.info("Risk archive in {}: {} segments, covered up to {}", directory.toAbsolutePath(),
+                archive.segments().size(), archive.coveredTo());
+    }
+
+    @Scheduled(initialDelayString = "${rating.archive.export-interval:1h}", fixedDelayString = "${rating.archive.export-interval:1h}")
+    public void scheduledExport() {
+        try {
+            export();
+        } catch (IllegalStateException e) {
+            log.info("Archive export skipped: {}", e.getMessage());
+        } catch (RuntimeException | IOException e) {
+            log.error("Archive export failed, it will be retried from the end of the archive", e);
+        }
+    }
+
+    /**
+     * Připojí do archivu rizika od konce archivu do hranice stáří. Segment je v archivu až po úplném
+     * zapsání, přerušený export proto pokračuje od posledního zapsaného segmentu.
+     *
+     * @return Stav archivu po exportu.
+     * @throws IllegalStateException pokud do archivu právě zapisuje jiný export.
+     */
+    public ArchiveStatusDto export() throws IOException {
+        try (RiskArchive.AppendLock lock = archive.tryLock()) {
+            if (lock == null) {
+                throw new IllegalStateException("Another archive export is running.");
+            }
+            archive.refresh();
+            LocalDateTime from = archive.coveredTo();
+            LocalDateTime cutoff = LocalDateTime.now().minus(minAge).truncatedTo(ChronoUnit.DAYS);
+            if (from != null && !from.isBefore(cutoff)) {
+                return status(0);
+            }
+            long started = System.nanoTime();
+            SegmentSink sink = new SegmentSink(from);
+            riskArchiveRepository.forEachRisk(from, cutoff, sink::add);
+            sink.flush(cutoff);
+            if (sink.exportedRows > 0) {
+                log.info("Archived {} risks up to {} in {} ms", sink.exportedRows, cutoff, (System.nanoTime() - started) / 1_000_000);
+            }
+            return status(sink.exportedRows);
+        }
+    }
+
+    public ArchiveStatusDto status() throws IOException {
+        archive.refresh();
+        return status(0);
+    }
+
+    /**
+     * Agregace archivovaných rizik s calculation_date v [from, to).
+     */
+    public List<PortfolioAggregateView> aggregate(ArchiveGrouping grouping, LocalDateTime from, LocalDateTime to) throws IOException {
+        archive.refresh();
+        return archive.aggregate(grouping, from, to, pool);
+    }
+
+    private ArchiveStatusDto status(long exportedRows) {
+        List<ArchiveSegment> segments = archive.segments();
+        return new ArchiveStatusDto(archive.getDirectory().toAbsolutePath().toString(), segments.size(),
+                segments.stream().mapToLong(ArchiveSegment::getRowCount).sum(),
+                segments.stream().mapToLong(ArchiveSegment::getSizeBytes).sum(),
+                segments.isEmpty() ? null : segments.getFirst().getCoveredFrom(),
+                archive.coveredTo(), exportedRows);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdownNow();
+    }
+
+    /**
+     * Skládá řádky exportu do segmentů. Plný segment se uzavře až na změně calculation_date - řádky
+     * se stejným datem tak nejsou nikdy ve dvou segmentech a hranice segmentů jsou přesné.
+     */
+    private final class SegmentSink {
+
+        private ArchiveSegment.Builder builder = ArchiveSegment.builder();
+        private LocalDateTime segmentFrom;
+        private long exportedRows;
+
+        private SegmentSink(LocalDateTime from) {
+            this.segmentFrom = from;
+        }
+
+        void add(long id, long clientId, LocalDateTime calculationDate, String activity, String financialPerformance,
+                 BigDecimal turnover, BigDecimal limitAmount, BigDecimal nettoPremium) {
+            if (builder.size() >= segmentRows && !calculationDate.equals(builder.lastCalculationDate())) {
+                flush(calculationDate);
+            }
+            if (segmentFrom == null) {
+                // První export - archiv začíná nejstarší kalkulací
+                segmentFrom = calculationDate;
+            }
+            builder.add(id, clientId, calculationDate, activity, financialPerformance, turnover, limitAmount, nettoPremium);
+        }
+
+        void flush(LocalDateTime segmentTo) {
+            if (builder.size() == 0) {
+                return;
+            }
+            try {
+                archive.append(builder, segmentFrom, segmentTo);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            exportedRows += builder.size();
+            builder = ArchiveSegment.builder();
+            segmentFrom = segmentTo;
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRowDto;
+import cz.michalmusil.dnoratingsystem.repository.RiskRepository;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Export všech rizik jako NDJSON (jeden JSON objekt na řádek) nebo CBOR sequence (položky za sebou).
+ * Řádky se čtou kurzorem po blocích a rovnou zapisují do výstupu,
+ * v paměti tak nikdy není celá tabulka ani žádné entity.
+ */
+@Service
+public class RiskExportService {
+
+    private static final int FLUSH_EVERY_ROWS = 1000;
+
+    private final RiskRepository riskRepository;
+    private final ObjectWriter ndjsonWriter;
+    private final ObjectWriter cborWriter;
+
+    public RiskExportService(RiskRepository riskRepository, ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.riskRepository = riskRepository;
+        this.ndjsonWriter = objectMapper.writerFor(RiskResponseDto.class)
+                .withRootValueSeparator("\n")
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        // CBOR položky jsou samy ohraničené, oddělovač se nepíše
+        this.cborWriter = cborConverter.getObjectMapper().writerFor(RiskResponseDto.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    }
+
+    /**
+     * Zapíše všechna rizika (seřazená podle ID) do výstupu ve formátu NDJSON.
+     *
+     * @param out Výstupní stream, metoda jej nezavírá.
+     * @return Počet zapsaných řádků.
+     */
+    @Transactional(readOnly = true)
+    public long writeNdjson(OutputStream out) throws IOException {
+        long count = writeAll(ndjsonWriter, out);
+        if (count > 0) {
+            out.write('\n'); // Oddělovač se píše jen mezi hodnoty, ukončíme i poslední řádek
+        }
+        return count;
+    }
+
+    /**
+     * Zapíše všechna rizika (seřazená podle ID) do výstupu jako CBOR sequence (RFC 8742).
+     *
+     * @param out Výstupní stream, metoda jej nezavírá.
+     * @return Počet zapsaných položek.
+     */
+    @Transactional(readOnly = true)
+    public long writeCborSequence(OutputStream out) throws IOException {
+        return writeAll(cborWriter, out);
+    }
+
+    private long writeAll(ObjectWriter writer, OutputStream out) throws IOException {
+        long count = 0;
+        try (Stream<RiskRowDto> rows = riskRepository.streamAllRows();
+             SequenceWriter sequenceWriter = writer.writeValues(out)) {
+            Iterator<RiskRowDto> iterator = rows.iterator();
+            while (iterator.hasNext()) {
+                sequenceWriter.write(RiskResponseDto.fromRow(iterator.next()));
+                if (++count % FLUSH_EVERY_ROWS == 0) {
+                    sequenceWriter.flush();
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,47 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.repository.RiskBatchRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Přiděluje ID rizik předem, bez čekání na INSERT. ID se berou ze sekvence risks_seq
+ * po blocích - jeden dotaz do databáze na {@code blockSize} rizik (zaokrouhleno na celé bloky sekvence).
+ * Nevyužitá ID z bloku při restartu propadnou (v sekvenci vzniknou mezery).
+ * Zámek je ReentrantLock, ne synchronized - dotaz do databáze pod zámkem tak na starších JDK
+ * neblokuje nosné vlákno virtuálních vláken.
+ */
+@Component
+public class RiskIdAllocator {
+
+    private final RiskBatchRepository riskBatchRepository;
+    private final int blockSize;
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private long[] block = new long[0];
+    private int next;
+
+    public RiskIdAllocator(RiskBatchRepository riskBatchRepository,
+                           @Value("${rating.write-behind.id-block-size:100}") int blockSize) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("ID block size must be positive, got " + blockSize);
+        }
+        this.riskBatchRepository = riskBatchRepository;
+        this.blockSize = blockSize;
+    }
+
+    public long nextId() {
+        lock.lock();
+        try {
+            if (next == block.length) {
+                block = riskBatchRepository.allocateIds(blockSize);
+                next = 0;
+            }
+            return block[next++];
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import cz.michalmusil.dnoratingsystem.dto.ImportResultDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskImportDto;
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceException;
+import jakarta.validation.ConstraintViolation;
+import jakarta.validation.Validator;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Hromadný import historických kalkulací z NDJSON (jeden RiskImportDto na řádek) nebo CBOR sequence.
+ * Vstup se čte průběžně, každých {@value #CHUNK_SIZE} řádků se uloží ve vlastní transakci:
+ * klienti jedním dotazem přes {@link ClientService#upsertAll}, rizika přes persist
+ * s dávkováním JDBC (ID ze sekvence) a poté flush + clear persistence contextu.
+ * Neplatné řádky se přeskočí a vrátí v seznamu chyb. Část, kterou databáze odmítne (např. hodnota
+ * mimo rozsah sloupce), se celá vrátí jako neuložená a import pokračuje další částí.
+ */
+@Service
+public class RiskImportService {
+
+    static final int CHUNK_SIZE = 1000;
+    private static final int MAX_REPORTED_ERRORS = 100;
+    private static final BigDecimal ONE_THOUSAND = new BigDecimal("1000");
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+
+    private final EntityManager entityManager;
+    private final ClientService clientService;
+    private final Validator validator;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectReader lineReader;
+    private final ObjectReader cborItemReader;
+
+    public RiskImportService(EntityManager entityManager, ClientService clientService, Validator validator,
+                             PlatformTransactionManager transactionManager, ObjectMapper objectMapper,
+                             MappingJackson2CborHttpMessageConverter cborConverter) {
+        this.entityManager = entityManager;
+        this.clientService = clientService;
+        this.validator = validator;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lineReader = objectMapper.readerFor(RiskImportDto.class);
+        this.cborItemReader = cborConverter.getObjectMapper().readerFor(RiskImportDto.class);
+    }
+
+    /**
+     * Naimportuje rizika z NDJSON. Již uložené části importu zůstanou uložené i při pozdější chybě.
+     *
+     * @param in Vstupní stream (UTF-8), metoda jej nezavírá.
+     * @return Počet uložených a odmítnutých řádků s chybami.
+     */
+    public ImportResultDto importNdjson(InputStream in) throws IOException {
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        ImportProgress progress = new ImportProgress();
+        long lineNumber = 0;
+
+        String line;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank()) {
+                continue;
+            }
+            try {
+                progress.accept("Line " + lineNumber, lineReader.readValue(line));
+            } catch (JsonProcessingException e) {
+                progress.reject("Line " + lineNumber, e.getOriginalMessage());
+            }
+        }
+        return progress.finish();
+    }
+
+    /**
+     * Naimportuje rizika z CBOR sequence (RFC 8742) - položky RiskImportDto za sebou, čtené průběžně.
+     * Položka s neplatným obsahem se přeskočí jako neplatný řádek NDJSON. Poškozené kódování
+     * (konec položky nelze určit) import ukončí - předchozí položky se ještě uloží.
+     *
+     * @param in Vstupní stream, metoda jej nezavírá.
+     * @return Počet uložených a odmítnutých položek s chybami.
+     */
+    public ImportResultDto importCborSequence(InputStream in) throws IOException {
+        ImportProgress progress = new ImportProgress();
+        long itemNumber = 0;
+        try (MappingIterator<RiskImportDto> items = cborItemReader.readValues(in)) {
+            while (true) {
+                itemNumber++;
+                try {
+                    if (!items.hasNextValue()) {
+                        break;
+                    }
+                    progress.accept("Item " + itemNumber, items.nextValue());
+                } catch (JsonParseException e) {
+                    progress.reject("Item " + itemNumber, e.getOriginalMessage());
+                    break;
+                } catch (JsonProcessingException e) {
+                    // Chyba mapování - parser zůstal v konzistentním stavu, zbytek položky se přeskočí
+                    progress.reject("Item " + itemNumber, e.getOriginalMessage());
+                }
+            }
+        }
+        return progress.finish();
+    }
+
+    private String validate(RiskImportDto dto) {
+        if (dto == null) {
+            return "Item must not be null";
+        }
+        Set<ConstraintViolation<RiskImportDto>> violations = validator.validate(dto);
+        if (violations.isEmpty()) {
+            return null;
+        }
+        return violations.stream()
+                .map(v -> v.getPropertyPath() + ": " + v.getMessage())
+                .sorted()
+                .collect(Collectors.joining(", "));
+    }
+
+    private void saveChunk(List<RiskImportDto> chunk) {
+        transactionTemplate.executeWithoutResult(status -> {
+            Map<String, Client> clientsByIco = clientService.upsertAll(chunk.stream().map(RiskImportDto::getClient).toList());
+            for (RiskImportDto dto : chunk) {
+                entityManager.persist(toEntity(dto, clientsByIco.get(dto.getClient().getIco())));
+            }
+            // Odeslání dávkových INSERTů a uvolnění entit - paměť nezávisí na velikosti importu
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+
+    /**
+     * Průběh jednoho importu - validní položky se sbírají po {@value #CHUNK_SIZE} a ukládají,
+     * neplatné se počítají a prvních několik chyb se vrací.
+     */
+    private final class ImportProgress {
+
+        private final List<RiskImportDto> chunk = new ArrayList<>(CHUNK_SIZE);
+        private final List<String> chunkPositions = new ArrayList<>(CHUNK_SIZE);
+        private final List<String> errors = new ArrayList<>();
+        private long imported;
+        private long failed;
+
+        void accept(String position, RiskImportDto dto) {
+            String error = validate(dto);
+            if (error != null) {
+                reject(position, error);
+                return;
+            }
+            chunk.add(dto);
+            chunkPositions.add(position);
+            if (chunk.size() == CHUNK_SIZE) {
+                flush();
+            }
+        }
+
+        void reject(String position, String error) {
+            failed++;
+            if (errors.size() < MAX_REPORTED_ERRORS) {
+                errors.add(position + ": " + error);
+            }
+        }
+
+        ImportResultDto finish() {
+            if (!chunk.isEmpty()) {
+                flush();
+            }
+            return new ImportResultDto(imported, failed, errors);
+        }
+
+        private void flush() {
+            try {
+                saveChunk(chunk);
+                imported += chunk.size();
+            } catch (DataAccessException | PersistenceException e) {
+                // Transakce části se odvolala - neuložený je celý rozsah, ne jen vadný řádek
+                failed += chunk.size();
+                if (errors.size() < MAX_REPORTED_ERRORS) {
+                    String range = chunkPositions.getFirst() + " - " + chunkPositions.getLast();
+                    errors.add(range + ": " + chunk.size() + " items not saved: " + NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+                }
+            } finally {
+                chunk.clear();
+                chunkPositions.clear();
+            }
+        }
+    }
+
+    private static Risk toEntity(RiskImportDto dto, Client client) {
+        Risk risk = new Risk();
+        risk.setClient(client);
+        risk.setActivity(dto.getActivity());
+        risk.setTurnover(dto.getTurnoverInThousands().multiply(ONE_THOUSAND));
+        risk.setLimitAmount(dto.getLimitInMillions().multiply(ONE_MILLION));
+        risk.setFinancialPerformance(dto.getFinancialPerformance());
+        risk.setBrokerCommissionPercentage(dto.getBrokerCommissionPercentage());
+        risk.setNettoPremium(dto.getNettoPremium());
+        risk.setTariffVersion(dto.getTariffVersion());
+        risk.setCalculationDate(dto.getCalculationDate());
+        return risk;
+    }
+}
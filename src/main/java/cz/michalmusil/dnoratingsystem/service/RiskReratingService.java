@@ -0,0 +1,307 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalog;
+import cz.michalmusil.dnoratingsystem.activity.ActivityCatalogRegistry;
+import cz.michalmusil.dnoratingsystem.dto.ReratingJobDto;
+import cz.michalmusil.dnoratingsystem.repository.ReratingRepository;
+import cz.michalmusil.dnoratingsystem.repository.ReratingRepository.ReratingJob;
+import cz.michalmusil.dnoratingsystem.repository.ReratingRepository.ReratingResult;
+import cz.michalmusil.dnoratingsystem.repository.ReratingRepository.RiskToRerate;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Přecenění všech uložených rizik podle aktuálního sazebníku (dopad změny sazebníku na portfolio, obnovy).
+ * <p>
+ * Úloha běží na pozadí: rizika čte po dávkách podle ID (keyset), každou dávku spočítá paralelně
+ * na pracovním poolu a výsledky (staré a nové pojistné) zapíše JDBC batchem do rerating_results.
+ * Ve stejné transakci posune checkpoint (last_risk_id), takže po pádu instance se pokračuje
+ * přesně za poslední zapsanou dávkou - běžící úlohu bez posunu checkpointu převezme
+ * periodická kontrola na kterékoli instanci.
+ * <p>
+ * Auto-commit je vypnutý - každý zápis přes {@link ReratingRepository} proto běží v transakci (transactionTemplate).
+ */
+@Service
+@ConditionalOnProperty(name = "rating.rerating.enabled", havingValue = "true")
+public class RiskReratingService {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskReratingService.class);
+
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    private final ReratingRepository reratingRepository;
+    private final PremiumEngine premiumEngine;
+    private final ActivityCatalogRegistry activityCatalogRegistry;
+    private final TransactionTemplate transactionTemplate;
+    private final int chunkSize;
+    private final int workerCount;
+    private final Duration staleAfter;
+    private final ExecutorService jobExecutor;
+    private final ExecutorService workers;
+    private final Counter ratedCounter;
+    private final Counter failedCounter;
+
+    // Úloha běžící na této instanci (nejvýše jedna)
+    private final AtomicReference<RunStats> currentRun = new AtomicReference<>();
+
+    public RiskReratingService(ReratingRepository reratingRepository, PremiumEngine premiumEngine,
+                               ActivityCatalogRegistry activityCatalogRegistry, PlatformTransactionManager transactionManager,
+                               MeterRegistry meterRegistry,
+                               @Value("${rating.rerating.chunk-size:1000}") int chunkSize,
+                               @Value("${rating.rerating.workers:0}") int workers,
+                               @Value("${rating.rerating.stale-after:2m}") Duration staleAfter) {
+        this.reratingRepository = reratingRepository;
+        this.premiumEngine = premiumEngine;
+        this.activityCatalogRegistry = activityCatalogRegistry;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.chunkSize = chunkSize;
+        // 0 = podle počtu jader, výpočet je čistě CPU
+        this.workerCount = workers > 0 ? workers : Runtime.getRuntime().availableProcessors();
+        this.staleAfter = staleAfter;
+        this.jobExecutor = Executors.newSingleThreadExecutor(Thread.ofPlatform().name("rerating-job").factory());
+        this.workers = Executors.newFixedThreadPool(workerCount, Thread.ofPlatform().name("rerating-worker-", 0).factory());
+        this.ratedCounter = Counter.builder("rating.rerating.risks").tag("result", "rated")
+                .description("Počet přeceněných rizik podle výsledku").register(meterRegistry);
+        this.failedCounter = Counter.builder("rating.rerating.risks").tag("result", "rejected")
+                .description("Počet přeceněných rizik podle výsledku").register(meterRegistry);
+    }
+
+    /**
+     * Založí a na pozadí spustí přecenění všech aktuálně uložených rizik podle aktuálního sazebníku.
+     *
+     * @return Stav založené úlohy.
+     * @throws IllegalStateException pokud už nějaká úloha přecenění běží (na kterékoli instanci).
+     */
+    public ReratingJobDto start() {
+        String tariffVersion = premiumEngine.currentTariff().getVersion();
+        ReratingJob job;
+        try {
+            // Úloha musí být commitnutá dřív, než ji začne zpracovávat vlákno úlohy
+            job = transactionTemplate.execute(status -> {
+                long jobId = reratingRepository.create(tariffVersion, Instant.now());
+                return reratingRepository.find(jobId).orElseThrow();
+            });
+        } catch (DuplicateKeyException e) {
+            throw new IllegalStateException("A re-rating job is already running.");
+        }
+        log.info("Re-rating job {} created: {} risks up to id {}, tariff {}", job.id(), job.totalCount(), job.maxRiskId(), tariffVersion);
+        submit(job.id());
+        return toDto(job);
+    }
+
+    public Optional<ReratingJobDto> status(long jobId) {
+        return reratingRepository.find(jobId).map(this::toDto);
+    }
+
+    /**
+     * Převezme běžící úlohy, jejichž checkpoint se dlouho neposunul (instance spadla nebo byla vypnuta).
+     */
+    @Scheduled(fixedDelayString = "${rating.rerating.resume-check-interval:60s}")
+    public void resumeStale() {
+        if (currentRun.get() != null) {
+            return;
+        }
+        Instant now = Instant.now();
+        Instant staleBefore = now.minus(staleAfter);
+        for (long jobId : reratingRepository.findStaleRunning(staleBefore)) {
+            if (Boolean.TRUE.equals(transactionTemplate.execute(status -> reratingRepository.claimStale(jobId, staleBefore, now)))) {
+                log.info("Resuming stale re-rating job {}", jobId);
+                submit(jobId);
+                return;
+            }
+        }
+    }
+
+    private void submit(long jobId) {
+        jobExecutor.execute(() -> {
+            try {
+                run(jobId);
+            } catch (RuntimeException e) {
+                // Úloha zůstává RUNNING - po stale-after ji převezme resumeStale od posledního checkpointu
+                log.error("Re-rating job {} interrupted, it will be resumed from the last checkpoint", jobId, e);
+            } finally {
+                currentRun.set(null);
+            }
+        });
+    }
+
+    private void run(long jobId) {
+        ReratingJob job = reratingRepository.find(jobId).orElseThrow();
+        CompiledTariff tariff = premiumEngine.currentTariff();
+        if (!tariff.getVersion().equals(job.tariffVersion())) {
+            // Výsledky jedné úlohy musí být podle jednoho sazebníku
+            finish(jobId, ReratingJob.Status.FAILED,
+                    "Tariff changed from " + job.tariffVersion() + " to " + tariff.getVersion() + ", start a new job.");
+            return;
+        }
+        ActivityCatalog catalog = activityCatalogRegistry.current();
+        RunStats stats = new RunStats(jobId, System.nanoTime());
+        currentRun.set(stats);
+
+        long lastRiskId = job.lastRiskId();
+        while (!Thread.currentThread().isInterrupted()) {
+            List<RiskToRerate> chunk = reratingRepository.findChunk(lastRiskId, job.maxRiskId(), chunkSize);
+            if (chunk.isEmpty()) {
+                finish(jobId, ReratingJob.Status.COMPLETED, null);
+                log.info("Re-rating job {} completed", jobId);
+                return;
+            }
+            List<ReratingResult> results = rerateChunk(tariff, catalog, chunk);
+            long expectedLastRiskId = lastRiskId;
+            long newLastRiskId = chunk.get(chunk.size() - 1).id();
+            ChunkTotals totals = ChunkTotals.of(results);
+
+            boolean owned = Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+                reratingRepository.insertResults(jobId, results);
+                if (reratingRepository.checkpoint(jobId, expectedLastRiskId, newLastRiskId, results.size(), totals.failed(),
+                        totals.oldPremium(), totals.newPremium(), Instant.now())) {
+                    return true;
+                }
+                status.setRollbackOnly();
+                return false;
+            }));
+            if (!owned) {
+                log.warn("Re-rating job {} was finished or taken over by another instance, stopping", jobId);
+                return;
+            }
+            lastRiskId = newLastRiskId;
+            stats.processed().addAndGet(results.size());
+            ratedCounter.increment(results.size() - totals.failed());
+            failedCounter.increment(totals.failed());
+        }
+    }
+
+    private void finish(long jobId, ReratingJob.Status status, String error) {
+        transactionTemplate.executeWithoutResult(tx -> reratingRepository.finish(jobId, status, error, Instant.now()));
+    }
+
+    /**
+     * Spočítá dávku na pracovním poolu - dávka se rozdělí na souvislé úseky po jednom na vlákno,
+     * výsledky zůstávají v pořadí rizik.
+     */
+    private List<ReratingResult> rerateChunk(CompiledTariff tariff, ActivityCatalog catalog, List<RiskToRerate> chunk) {
+        int sliceSize = (chunk.size() + workerCount - 1) / workerCount;
+        List<Future<List<ReratingResult>>> futures = new ArrayList<>(workerCount);
+        for (int from = 0; from < chunk.size(); from += sliceSize) {
+            List<RiskToRerate> slice = chunk.subList(from, Math.min(from + sliceSize, chunk.size()));
+            futures.add(workers.submit(() -> slice.stream().map(risk -> rerate(tariff, catalog, risk)).toList()));
+        }
+        List<ReratingResult> results = new ArrayList<>(chunk.size());
+        try {
+            for (Future<List<ReratingResult>> future : futures) {
+                results.addAll(future.get());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            futures.forEach(future -> future.cancel(true));
+            throw new IllegalStateException("Re-rating interrupted", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Re-rating of a chunk failed", e.getCause());
+        }
+        return results;
+    }
+
+    /**
+     * Stejné kroky jako {@link RatingService} (podmínky sazebníku, obratový cap, PremiumEngine),
+     * jen bez cache výsledků - jednorázový průchod portfoliem by ji vytlačil.
+     */
+    private ReratingResult rerate(CompiledTariff tariff, ActivityCatalog catalog, RiskToRerate risk) {
+        QuoteRejectedException rejection = RatingPreconditions.check(tariff, risk.limitAmount(), risk.turnover());
+        if (rejection != null) {
+            return new ReratingResult(risk.id(), risk.nettoPremium(), null, risk.tariffVersion(), rejection.getReason().name());
+        }
+        BigDecimal newPremium = premiumEngine.calculateNettoPremium(tariff, risk.limitAmount(),
+                risk.turnover().min(tariff.getTurnoverCap()), risk.financialPerformance(),
+                catalog.activityIndex(risk.activity()), risk.brokerCommissionPercentage());
+        return new ReratingResult(risk.id(), risk.nettoPremium(), newPremium, risk.tariffVersion(), null);
+    }
+
+    private ReratingJobDto toDto(ReratingJob job) {
+        BigDecimal progress = job.totalCount() == 0
+                ? (job.status() == ReratingJob.Status.COMPLETED ? ONE_HUNDRED : BigDecimal.ZERO)
+                : BigDecimal.valueOf(job.processedCount()).multiply(ONE_HUNDRED)
+                        .divide(BigDecimal.valueOf(job.totalCount()), 2, RoundingMode.HALF_UP).min(ONE_HUNDRED);
+        return new ReratingJobDto(job.id(), job.status().name(), job.tariffVersion(), job.totalCount(),
+                job.processedCount(), job.failedCount(), progress, throughput(job),
+                job.oldPremiumTotal(), job.newPremiumTotal(), job.createdAt(), job.updatedAt(), job.finishedAt(), job.error());
+    }
+
+    /**
+     * Propustnost aktuálního běhu, pokud úloha běží na této instanci, jinak průměr za celou dobu úlohy.
+     */
+    private BigDecimal throughput(ReratingJob job) {
+        RunStats run = currentRun.get();
+        double seconds;
+        long processed;
+        if (run != null && run.jobId() == job.id()) {
+            seconds = (System.nanoTime() - run.startedNanos()) / 1e9;
+            processed = run.processed().get();
+        } else {
+            LocalDateTime end = job.finishedAt() != null ? job.finishedAt() : job.updatedAt();
+            seconds = Duration.between(job.createdAt(), end).toMillis() / 1e3;
+            processed = job.processedCount();
+        }
+        return seconds > 0 ? BigDecimal.valueOf(processed / seconds).setScale(1, RoundingMode.HALF_UP) : BigDecimal.ZERO;
+    }
+
+    /**
+     * Rozpracovaná dávka se nezapíše, úloha zůstane RUNNING a po restartu se převezme od checkpointu.
+     */
+    @PreDestroy
+    public void shutdown() {
+        jobExecutor.shutdownNow();
+        workers.shutdownNow();
+    }
+
+    private record RunStats(long jobId, long startedNanos, AtomicLong processed) {
+
+        RunStats(long jobId, long startedNanos) {
+            this(jobId, startedNanos, new AtomicLong());
+        }
+    }
+
+    private record ChunkTotals(int failed, BigDecimal oldPremium, BigDecimal newPremium) {
+
+        // Součty pojistného jen za rizika ocenitelná podle nového sazebníku - staré a nové jsou pak srovnatelné
+        static ChunkTotals of(List<ReratingResult> results) {
+            int failed = 0;
+            BigDecimal oldPremium = BigDecimal.ZERO;
+            BigDecimal newPremium = BigDecimal.ZERO;
+            for (ReratingResult result : results) {
+                if (result.newPremium() == null) {
+                    failed++;
+                } else {
+                    oldPremium = oldPremium.add(result.oldPremium());
+                    newPremium = newPremium.add(result.newPremium());
+                }
+            }
+            return new ChunkTotals(failed, oldPremium, newPremium);
+        }
+    }
+}
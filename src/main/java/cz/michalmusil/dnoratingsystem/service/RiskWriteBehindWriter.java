@@ -0,0 +1,312 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import cz.michalmusil.dnoratingsystem.repository.RiskBatchRepository;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Odložený (write-behind) zápis spočítaných rizik. Riziko s předem přiděleným ID
+ * se po commitu transakce požadavku (klient už je uložený) zařadí do omezené fronty
+ * a zapisovací vlákno je ukládá do tabulky risks JDBC dávkami.
+ * <p>
+ * Backpressure: když je fronta plná ani po {@code offerTimeout}, riziko uloží přímo
+ * volající vlákno. Při vypnutí aplikace se fronta před zavřením databázového poolu vyprázdní.
+ * <p>
+ * Záznam se nikdy nezahodí: dávka, která selže i po opakování, se zkusí vložit po řádcích, aby
+ * jeden vadný řádek nepotopil ostatní. Rizika, která nejdou uložit ani tak (vadný řádek nebo
+ * nedostupná databáze), se připíšou jako JSON řádky do dead-letter souboru
+ * {@code rating.write-behind.dead-letter-file}, odkud je lze po odstranění příčiny dohrát.
+ */
+@Component
+public class RiskWriteBehindWriter implements SmartLifecycle {
+
+    private static final Logger log = LoggerFactory.getLogger(RiskWriteBehindWriter.class);
+
+    private static final int MAX_ATTEMPTS = 3;
+
+    private final RiskBatchRepository riskBatchRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<Risk> queue;
+    private final int batchSize;
+    private final Duration flushInterval;
+    private final Duration offerTimeout;
+    private final Duration shutdownTimeout;
+    private final Counter callerRuns;
+    private final Counter deadLettered;
+    private final ObjectMapper objectMapper;
+    private final Path deadLetterFile;
+    private final boolean enabled;
+
+    private volatile boolean running;
+    private Thread writerThread;
+
+    public RiskWriteBehindWriter(RiskBatchRepository riskBatchRepository, PlatformTransactionManager transactionManager,
+                                 MeterRegistry meterRegistry, ObjectMapper objectMapper,
+                                 @Value("${rating.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${rating.write-behind.queue-capacity:10000}") int queueCapacity,
+                                 @Value("${rating.write-behind.batch-size:500}") int batchSize,
+                                 @Value("${rating.write-behind.flush-interval:200ms}") Duration flushInterval,
+                                 @Value("${rating.write-behind.offer-timeout:50ms}") Duration offerTimeout,
+                                 @Value("${rating.write-behind.shutdown-timeout:30s}") Duration shutdownTimeout,
+                                 @Value("${rating.write-behind.dead-letter-file:data/write-behind-dead-letter.jsonl}") Path deadLetterFile) {
+        this.riskBatchRepository = riskBatchRepository;
+        this.enabled = enabled;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.batchSize = batchSize;
+        this.flushInterval = flushInterval;
+        this.offerTimeout = offerTimeout;
+        this.shutdownTimeout = shutdownTimeout;
+        this.objectMapper = objectMapper;
+        this.deadLetterFile = deadLetterFile;
+        Gauge.builder("rating.write_behind.queue.size", queue, BlockingQueue::size)
+                .description("Počet rizik čekajících na zápis")
+                .register(meterRegistry);
+        this.callerRuns = Counter.builder("rating.write_behind.caller_runs")
+                .description("Počet rizik uložených přímo volajícím kvůli plné frontě")
+                .register(meterRegistry);
+        this.deadLettered = Counter.builder("rating.write_behind.dead_lettered")
+                .description("Počet rizik zapsaných do dead-letter souboru místo databáze")
+                .register(meterRegistry);
+    }
+
+    /**
+     * @return Zda je zapnutý režim write-behind. Vypnutý zapisovač se nespouští.
+     */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Zařadí riziko k zápisu. Uvnitř transakce až po jejím commitu - riziko odkazuje na klienta,
+     * který do té doby není v databázi viditelný. Po rollbacku se riziko nezapíše.
+     *
+     * @param risk Riziko s přiděleným ID a uloženým klientem.
+     */
+    public void submit(Risk risk) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    enqueue(risk);
+                }
+            });
+        } else {
+            enqueue(risk);
+        }
+    }
+
+    private void enqueue(Risk risk) {
+        try {
+            if (running && queue.offer(risk, offerTimeout.toNanos(), TimeUnit.NANOSECONDS)) {
+                return;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        // Fronta je plná nebo zapisovač neběží - uloží volající vlákno
+        callerRuns.increment();
+        write(List.of(risk));
+    }
+
+    private void runWriter() {
+        List<Risk> batch = new ArrayList<>(batchSize);
+        while (running || !queue.isEmpty()) {
+            try {
+                Risk first = queue.poll(flushInterval.toNanos(), TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, batchSize - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                // Přerušení jen urychlí konec - zbytek fronty se ještě dopíše
+                running = false;
+            } catch (RuntimeException e) {
+                log.error("Write-behind batch of {} risks failed", batch.size(), e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void write(List<Risk> risks) {
+        try {
+            insertWithRetry(risks);
+        } catch (RuntimeException e) {
+            if (risks.size() == 1) {
+                deadLetter(risks, e);
+                return;
+            }
+            log.warn("Write-behind batch of {} risks failed, inserting row by row", risks.size(), e);
+            insertRowByRow(risks);
+        }
+    }
+
+    private void insertWithRetry(List<Risk> risks) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                transactionTemplate.executeWithoutResult(status -> riskBatchRepository.insertAllWithIds(risks));
+                return;
+            } catch (RuntimeException e) {
+                if (attempt == MAX_ATTEMPTS || isRowFailure(e)) {
+                    throw e;
+                }
+                log.warn("Write-behind insert of {} risks failed (attempt {}/{}), retrying", risks.size(), attempt, MAX_ATTEMPTS, e);
+                try {
+                    Thread.sleep(100L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+    }
+
+    private void insertRowByRow(List<Risk> risks) {
+        for (int i = 0; i < risks.size(); i++) {
+            Risk risk = risks.get(i);
+            try {
+                transactionTemplate.executeWithoutResult(status -> riskBatchRepository.insertAllWithIds(List.of(risk)));
+            } catch (RuntimeException e) {
+                if (isRowFailure(e)) {
+                    deadLetter(List.of(risk), e);
+                } else {
+                    // Databáze je nedostupná - zbytek dávky by jen čekal na timeouty
+                    deadLetter(risks.subList(i, risks.size()), e);
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return Zda chyba patří ke konkrétnímu řádku (porušené omezení, neplatná hodnota) a opakování nepomůže.
+     * Nedostupná databáze nebo vyčerpaný pool se za chybu řádku nepovažuje.
+     */
+    private static boolean isRowFailure(RuntimeException e) {
+        return e instanceof NonTransientDataAccessException && !(e instanceof DataAccessResourceFailureException);
+    }
+
+    /**
+     * Připíše rizika jako JSON řádky do dead-letter souboru a vynutí zápis na disk. Volá ho zapisovací
+     * vlákno i volající vlákna při plné frontě, proto synchronizovaně.
+     */
+    private synchronized void deadLetter(List<Risk> risks, RuntimeException cause) {
+        StringBuilder lines = new StringBuilder();
+        try {
+            for (Risk risk : risks) {
+                lines.append(objectMapper.writeValueAsString(DeadLetter.of(risk, cause))).append('\n');
+            }
+            Path parent = deadLetterFile.toAbsolutePath().getParent();
+            if (parent != null) {
+                Files.createDirectories(parent);
+            }
+            try (FileChannel channel = FileChannel.open(deadLetterFile, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(true);
+            }
+        } catch (IOException e) {
+            // Poslední možnost - ID a vstupy neuložených rizik zůstanou aspoň v logu
+            risks.forEach(risk -> log.error("Risk {} was not persisted: {}", risk.getId(), risk));
+            throw new UncheckedIOException("Cannot write dead-letter file " + deadLetterFile, e);
+        }
+        deadLettered.increment(risks.size());
+        log.error("{} risks could not be persisted and were written to {}", risks.size(), deadLetterFile, cause);
+    }
+
+    /**
+     * Řádek dead-letter souboru - všechny sloupce tabulky risks a důvod selhání.
+     */
+    private record DeadLetter(Long id, Long clientId, String activity, BigDecimal turnover, BigDecimal limitAmount,
+                              FinancialPerformance financialPerformance, BigDecimal brokerCommissionPercentage,
+                              BigDecimal nettoPremium, String tariffVersion, LocalDateTime calculationDate, String error) {
+
+        static DeadLetter of(Risk risk, RuntimeException cause) {
+            return new DeadLetter(risk.getId(), risk.getClient().getId(), risk.getActivity(), risk.getTurnover(),
+                    risk.getLimitAmount(), risk.getFinancialPerformance(), risk.getBrokerCommissionPercentage(),
+                    risk.getNettoPremium(), risk.getTariffVersion(), risk.getCalculationDate(), cause.getMessage());
+        }
+    }
+
+    @Override
+    public synchronized void start() {
+        running = true;
+        writerThread = new Thread(this::runWriter, "risk-write-behind");
+        writerThread.start();
+    }
+
+    @Override
+    public synchronized void stop() {
+        if (writerThread == null) {
+            return;
+        }
+        running = false;
+        try {
+            writerThread.join(shutdownTimeout.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (writerThread.isAlive()) {
+            log.error("Write-behind writer did not drain within {}, {} risks left in queue", shutdownTimeout, queue.size());
+        }
+    }
+
+    @Override
+    public boolean isAutoStartup() {
+        return enabled;
+    }
+
+    @Override
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Startuje před webovým serverem a zastavuje se až po něm (fáze serveru je DEFAULT_PHASE - 2048),
+     * takže při vyprazdňování fronty už nepřibývají nové požadavky. Databázový pool se zavírá
+     * až při likvidaci beanů, tedy po zastavení všech lifecycle komponent.
+     */
+    @Override
+    public int getPhase() {
+        return SmartLifecycle.DEFAULT_PHASE - 4096;
+    }
+}
@@ -0,0 +1,24 @@
+package cz.michalmusil.dnoratingsystem.simulation;
+
+/**
+ * Parametry modelu ročních škod jednoho rizika (frekvence x závažnost).
+ * <ul>
+ *     <li>Počet škod je Poissonův se střední hodnotou {@code baseFrequency} x relativní riskovost
+ *     podle sazebníku (koeficient obratového pásma vůči prvnímu pásmu x faktor finanční výkonnosti).</li>
+ *     <li>Závažnost škody je lognormální s mediánem {@code severityMedianRatio} x limit
+ *     a parametrem rozptylu {@code severitySigma}. Plnění za rok je omezené limitem pojistky (agregátně).</li>
+ * </ul>
+ *
+ * @param baseFrequency Očekávaný počet škod za rok pro riziko v prvním obratovém pásmu s faktorem výkonnosti 1.
+ * @param severityMedianRatio Medián závažnosti škody jako podíl limitu.
+ * @param severitySigma Směrodatná odchylka logaritmu závažnosti.
+ */
+public record LossModel(double baseFrequency, double severityMedianRatio, double severitySigma) {
+
+    public LossModel {
+        if (!(baseFrequency > 0) || !(severityMedianRatio > 0) || !(severitySigma >= 0)) {
+            throw new IllegalArgumentException("Loss model parameters must be positive: frequency=" + baseFrequency
+                    + ", severity median ratio=" + severityMedianRatio + ", severity sigma=" + severitySigma);
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package cz.michalmusil.dnoratingsystem.simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Generátor Poissonova rozdělení s pevnou střední hodnotou (počet škod portfolia za rok).
+ * Pro malé lambda násobením uniformních čísel, pro lambda >= 10 transformovanou rejekcí
+ * (PTRS, Hörmann 1993) - konstantní počet kroků nezávisle na velikosti lambda.
+ * Konstanty se spočítají jednou, instance je neměnná a sdílená mezi vlákny.
+ */
+final class PoissonSampler {
+
+    private static final double PTRS_THRESHOLD = 10;
+    private static final int LOG_FACTORIAL_TABLE_SIZE = 256;
+    private static final double[] LOG_FACTORIAL = new double[LOG_FACTORIAL_TABLE_SIZE];
+
+    static {
+        for (int k = 1; k < LOG_FACTORIAL_TABLE_SIZE; k++) {
+            LOG_FACTORIAL[k] = LOG_FACTORIAL[k - 1] + Math.log(k);
+        }
+    }
+
+    private final double lambda;
+    private final double expMinusLambda;
+    private final double logLambda;
+    private final double a;
+    private final double b;
+    private final double logInvAlpha;
+    private final double vr;
+
+    PoissonSampler(double lambda) {
+        if (!(lambda >= 0) || Double.isInfinite(lambda)) {
+            throw new IllegalArgumentException("Poisson mean must be a finite non-negative number: " + lambda);
+        }
+        this.lambda = lambda;
+        this.expMinusLambda = Math.exp(-lambda);
+        this.logLambda = Math.log(lambda);
+        this.b = 0.931 + 2.53 * Math.sqrt(lambda);
+        this.a = -0.059 + 0.02483 * b;
+        this.logInvAlpha = Math.log(1.1239 + 1.1328 / (b - 3.4));
+        this.vr = 0.9277 - 3.6224 / (b - 2);
+    }
+
+    int sample(SplittableRandom random) {
+        return lambda < PTRS_THRESHOLD ? sampleByMultiplication(random) : sampleByRejection(random);
+    }
+
+    private int sampleByMultiplication(SplittableRandom random) {
+        int count = 0;
+        double product = random.nextDouble();
+        while (product > expMinusLambda) {
+            count++;
+            product *= random.nextDouble();
+        }
+        return count;
+    }
+
+    private int sampleByRejection(SplittableRandom random) {
+        while (true) {
+            double u = random.nextDouble() - 0.5;
+            double v = random.nextDouble();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + lambda + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return (int) k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v) + logInvAlpha - Math.log(a / (us * us) + b) <= -lambda + k * logLambda - logFactorial(k)) {
+                return (int) k;
+            }
+        }
+    }
+
+    // ln(k!) - tabulka pro malá k, jinak Stirlingova řada (chyba pod 1e-10 pro k >= 256)
+    static double logFactorial(long k) {
+        if (k < LOG_FACTORIAL_TABLE_SIZE) {
+            return LOG_FACTORIAL[(int) k];
+        }
+        double n = k;
+        return n * Math.log(n) - n + 0.5 * Math.log(2 * Math.PI * n) + 1 / (12 * n) - 1 / (360 * n * n * n);
+    }
+}
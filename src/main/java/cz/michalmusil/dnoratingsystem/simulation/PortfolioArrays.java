@@ -0,0 +1,185 @@
+package cz.michalmusil.dnoratingsystem.simulation;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+
+import java.math.BigDecimal;
+import java.math.MathContext;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Portfolio připravené pro simulaci - jedno pole na atribut (structure of arrays), žádné entity.
+ * Simulace čte jen {@code limits} a {@code logMedianSeverities} podle indexu rizika,
+ * výběr rizika, kterému škoda připadne, je O(1) přes alias tabulku (Vose) nad frekvencemi rizik.
+ * Instance je po sestavení neměnná a sdílí se mezi vlákny i mezi simulacemi.
+ */
+public final class PortfolioArrays {
+
+    private final String tariffVersion;
+    private final LossModel model;
+    private final int size;
+    private final double[] limits;
+    private final double[] logMedianSeverities;
+    private final double totalFrequency;
+    private final double[] aliasThresholds;
+    private final int[] aliases;
+
+    private PortfolioArrays(String tariffVersion, LossModel model, int size, double[] limits,
+                            double[] logMedianSeverities, double[] frequencies) {
+        this.tariffVersion = tariffVersion;
+        this.model = model;
+        this.size = size;
+        this.limits = limits;
+        this.logMedianSeverities = logMedianSeverities;
+        double total = 0;
+        for (int i = 0; i < size; i++) {
+            total += frequencies[i];
+        }
+        this.totalFrequency = total;
+        this.aliasThresholds = new double[size];
+        this.aliases = new int[size];
+        buildAliasTable(frequencies);
+    }
+
+    public static Builder builder(CompiledTariff tariff, LossModel model) {
+        return new Builder(tariff, model);
+    }
+
+    public String getTariffVersion() {
+        return tariffVersion;
+    }
+
+    public LossModel getModel() {
+        return model;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Očekávaný počet škod celého portfolia za rok (součet frekvencí rizik).
+     */
+    public double getTotalFrequency() {
+        return totalFrequency;
+    }
+
+    double limit(int risk) {
+        return limits[risk];
+    }
+
+    double logMedianSeverity(int risk) {
+        return logMedianSeverities[risk];
+    }
+
+    /**
+     * Náhodně vybere riziko s pravděpodobností úměrnou jeho frekvenci.
+     */
+    int sampleRisk(SplittableRandom random) {
+        int column = random.nextInt(size);
+        return random.nextDouble() < aliasThresholds[column] ? column : aliases[column];
+    }
+
+    private void buildAliasTable(double[] frequencies) {
+        if (size == 0) {
+            return;
+        }
+        double[] scaled = new double[size];
+        int[] small = new int[size];
+        int[] large = new int[size];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < size; i++) {
+            scaled[i] = frequencies[i] * size / totalFrequency;
+            if (scaled[i] < 1) {
+                small[smallCount++] = i;
+            } else {
+                large[largeCount++] = i;
+            }
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            aliasThresholds[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) {
+                small[smallCount++] = more;
+            } else {
+                large[largeCount++] = more;
+            }
+        }
+        // Zbytky (i kvůli zaokrouhlení) mají celý sloupec pro sebe
+        while (largeCount > 0) {
+            aliasThresholds[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            aliasThresholds[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * Postupné plnění polí po jednotlivých rizicích (např. při streamování z databáze).
+     * Frekvence pro každou kombinaci obratového pásma a finanční výkonnosti se spočítá předem.
+     */
+    public static final class Builder {
+
+        private static final int INITIAL_CAPACITY = 1024;
+
+        private final CompiledTariff tariff;
+        private final LossModel model;
+        private final double[][] frequencyByBand;
+        private final double logSeverityMedianRatio;
+        private int size;
+        private double[] limits = new double[INITIAL_CAPACITY];
+        private double[] logMedianSeverities = new double[INITIAL_CAPACITY];
+        private double[] frequencies = new double[INITIAL_CAPACITY];
+
+        private Builder(CompiledTariff tariff, LossModel model) {
+            this.tariff = tariff;
+            this.model = model;
+            this.logSeverityMedianRatio = Math.log(model.severityMedianRatio());
+            FinancialPerformance[] performances = FinancialPerformance.values();
+            BigDecimal firstBandCoefficient = tariff.getTurnoverCoefficient(0);
+            frequencyByBand = new double[tariff.getTurnoverBandCount()][performances.length];
+            for (int band = 0; band < frequencyByBand.length; band++) {
+                BigDecimal bandRelativity = tariff.getTurnoverCoefficient(band).divide(firstBandCoefficient, MathContext.DECIMAL64);
+                for (FinancialPerformance performance : performances) {
+                    frequencyByBand[band][performance.ordinal()] = model.baseFrequency()
+                            * bandRelativity.multiply(tariff.financialPerformanceFactor(performance)).doubleValue();
+                }
+            }
+        }
+
+        /**
+         * Přidá riziko. Riziko s nulovým limitem nemá žádnou expozici a přeskočí se.
+         *
+         * @param limitAmount Limit pojistného plnění v plné výši (Kč).
+         * @param turnover Obrat v plné výši (Kč), obratový cap sazebníku se aplikuje zde.
+         */
+        public Builder add(BigDecimal limitAmount, BigDecimal turnover, FinancialPerformance financialPerformance) {
+            double limit = limitAmount.doubleValue();
+            if (!(limit > 0)) {
+                return this;
+            }
+            if (size == limits.length) {
+                int capacity = size * 2;
+                limits = Arrays.copyOf(limits, capacity);
+                logMedianSeverities = Arrays.copyOf(logMedianSeverities, capacity);
+                frequencies = Arrays.copyOf(frequencies, capacity);
+            }
+            int band = tariff.turnoverBand(turnover.min(tariff.getTurnoverCap()));
+            limits[size] = limit;
+            logMedianSeverities[size] = Math.log(limit) + logSeverityMedianRatio;
+            frequencies[size] = frequencyByBand[band][financialPerformance.ordinal()];
+            size++;
+            return this;
+        }
+
+        public PortfolioArrays build() {
+            return new PortfolioArrays(tariff.getVersion(), model, size, Arrays.copyOf(limits, size),
+                    Arrays.copyOf(logMedianSeverities, size), frequencies);
+        }
+    }
+}
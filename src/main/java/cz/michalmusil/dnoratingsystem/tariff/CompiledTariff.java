@@ -0,0 +1,259 @@
+package cz.michalmusil.dnoratingsystem.tariff;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Neměnná, předpočítaná podoba sazebníku pro výpočet pojistného.
+ * Hranice obratových pásem jsou v seřazeném poli (binární vyhledávání), pro každé obratové pásmo
+ * jsou předpočítané sazby za milion v každém pásmu limitu i kumulativní pojistné plných pásem,
+ * takže pojistné za limit je jedno sčítání a jedno násobení.
+ * Instance se po vytvoření nemění, lze ji tedy bezpečně sdílet mezi vlákny a atomicky vyměnit.
+ */
+public final class CompiledTariff {
+
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+
+    private final TariffDefinition definition;
+    private final String version;
+    private final BigDecimal maxLimitAmount;
+    private final BigDecimal turnoverCap;
+    // Horní hranice (včetně) všech pásem kromě posledního, vzestupně
+    private final BigDecimal[] turnoverThresholds;
+    private final BigDecimal[] turnoverCoefficients;
+    private final int limitBandWidthMillions;
+    // [obratové pásmo][pásmo limitu] -> sazba za jeden milion v daném pásmu
+    private final BigDecimal[][] bandRates;
+    // [obratové pásmo][pásmo limitu] -> součet pojistného všech plných pásem před daným pásmem
+    private final BigDecimal[][] bandCumulativePremiums;
+    private final Map<FinancialPerformance, BigDecimal> financialPerformanceFactors;
+
+    private CompiledTariff(TariffDefinition definition) {
+        this.definition = definition;
+        this.version = definition.version();
+        this.maxLimitAmount = definition.maxLimitAmount();
+        this.turnoverCap = definition.turnoverCap();
+        this.limitBandWidthMillions = definition.limitBandWidthMillions();
+
+        List<TariffDefinition.TurnoverBand> bands = definition.turnoverBands();
+        int turnoverBands = bands.size();
+        this.turnoverThresholds = new BigDecimal[turnoverBands - 1];
+        this.turnoverCoefficients = new BigDecimal[turnoverBands];
+        for (int t = 0; t < turnoverBands; t++) {
+            turnoverCoefficients[t] = bands.get(t).coefficient();
+            if (t < turnoverBands - 1) {
+                turnoverThresholds[t] = bands.get(t).upTo();
+            }
+        }
+
+        List<BigDecimal> discounts = definition.limitBandDiscounts();
+        int limitBands = discounts.size();
+        BigDecimal bandWidth = BigDecimal.valueOf(limitBandWidthMillions);
+        this.bandRates = new BigDecimal[turnoverBands][limitBands];
+        this.bandCumulativePremiums = new BigDecimal[turnoverBands][limitBands];
+        for (int t = 0; t < turnoverBands; t++) {
+            BigDecimal rate = ONE_MILLION.multiply(turnoverCoefficients[t]);
+            BigDecimal cumulative = BigDecimal.ZERO;
+            for (int b = 0; b < limitBands; b++) {
+                if (discounts.get(b).signum() != 0) {
+                    rate = rate.multiply(BigDecimal.ONE.subtract(discounts.get(b)));
+                }
+                bandRates[t][b] = rate;
+                bandCumulativePremiums[t][b] = cumulative;
+                cumulative = cumulative.add(rate.multiply(bandWidth));
+            }
+        }
+
+        this.financialPerformanceFactors = new EnumMap<>(definition.financialPerformanceFactors());
+    }
+
+    /**
+     * Zvaliduje definici sazebníku a předpočítá z ní vyhledávací struktury.
+     *
+     * @throws IllegalArgumentException pokud definice není konzistentní.
+     */
+    public static CompiledTariff compile(TariffDefinition definition) {
+        validate(definition);
+        return new CompiledTariff(definition);
+    }
+
+    public TariffDefinition getDefinition() {
+        return definition;
+    }
+
+    public String getVersion() {
+        return version;
+    }
+
+    public BigDecimal getMaxLimitAmount() {
+        return maxLimitAmount;
+    }
+
+    public BigDecimal getTurnoverCap() {
+        return turnoverCap;
+    }
+
+    public int getTurnoverBandCount() {
+        return turnoverCoefficients.length;
+    }
+
+    /**
+     * @return Horní hranice (včetně) všech obratových pásem kromě posledního, vzestupně.
+     */
+    public List<BigDecimal> getTurnoverThresholds() {
+        return List.of(turnoverThresholds);
+    }
+
+    public BigDecimal getTurnoverCoefficient(int turnoverBand) {
+        return turnoverCoefficients[turnoverBand];
+    }
+
+    /**
+     * Index obratového pásma pro efektivní obrat (horní hranice pásma je včetně).
+     */
+    public int turnoverBand(BigDecimal effectiveTurnover) {
+        int low = 0;
+        int high = turnoverThresholds.length - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            if (turnoverThresholds[mid].compareTo(effectiveTurnover) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Pojistné za limit pro dané obratové pásmo v uzavřeném tvaru:
+     * kumulativní pojistné plných pásem + sazba aktuálního pásma * zbývající miliony.
+     */
+    public BigDecimal limitPremium(BigDecimal limitAmount, int turnoverBand) {
+        int millions = wholeMillions(limitAmount);
+        if (millions <= 0) {
+            return BigDecimal.ZERO;
+        }
+        BigDecimal[] rates = bandRates[turnoverBand];
+        // Poslední pásmo je shora otevřené
+        int limitBand = Math.min((millions - 1) / limitBandWidthMillions, rates.length - 1);
+        int millionsInBand = millions - limitBand * limitBandWidthMillions;
+        return bandCumulativePremiums[turnoverBand][limitBand]
+                .add(rates[limitBand].multiply(BigDecimal.valueOf(millionsInBand)));
+    }
+
+    /**
+     * Pojistné za limit pro vzestupnou řadu limitů (v celých milionech) v jednom průchodu -
+     * ke každému limitu se přičtou jen miliony navíc oproti předchozímu, po pásmech.
+     * Výsledky jsou shodné s {@link #limitPremium(BigDecimal, int)}.
+     *
+     * @throws IllegalArgumentException pokud řada není neklesající.
+     */
+    public BigDecimal[] limitPremiums(int[] ascendingMillions, int turnoverBand) {
+        BigDecimal[] rates = bandRates[turnoverBand];
+        int lastBand = rates.length - 1;
+        BigDecimal[] premiums = new BigDecimal[ascendingMillions.length];
+        BigDecimal premium = BigDecimal.ZERO;
+        int covered = 0; // Miliony již započtené v premium
+        for (int i = 0; i < ascendingMillions.length; i++) {
+            int millions = ascendingMillions[i];
+            if (i > 0 && millions < ascendingMillions[i - 1]) {
+                throw new IllegalArgumentException("Limits must be in ascending order.");
+            }
+            while (covered < millions) {
+                int limitBand = Math.min(covered / limitBandWidthMillions, lastBand);
+                int bandEnd = limitBand == lastBand ? millions : Math.min(millions, (limitBand + 1) * limitBandWidthMillions);
+                premium = premium.add(rates[limitBand].multiply(BigDecimal.valueOf(bandEnd - covered)));
+                covered = bandEnd;
+            }
+            premiums[i] = premium;
+        }
+        return premiums;
+    }
+
+    /**
+     * Sazba za jeden milion limitu v daném obratovém pásmu a pásmu limitu.
+     */
+    public BigDecimal bandRate(int turnoverBand, int limitBand) {
+        BigDecimal[] rates = bandRates[turnoverBand];
+        return rates[Math.min(limitBand, rates.length - 1)];
+    }
+
+    public int getLimitBandWidthMillions() {
+        return limitBandWidthMillions;
+    }
+
+    public int getLimitBandCount() {
+        return bandRates[0].length;
+    }
+
+    public BigDecimal financialPerformanceFactor(FinancialPerformance financialPerformance) {
+        BigDecimal factor = financialPerformance == null ? null : financialPerformanceFactors.get(financialPerformance);
+        return factor != null ? factor : BigDecimal.ONE;
+    }
+
+    // Počet milionů limitu přesně tak, jak jej počítala původní smyčka (HALF_UP ve škále limitu)
+    public static int wholeMillions(BigDecimal limitAmount) {
+        return limitAmount.divide(ONE_MILLION, RoundingMode.HALF_UP).intValue();
+    }
+
+    private static void validate(TariffDefinition definition) {
+        if (definition.version() == null || definition.version().isBlank()) {
+            throw new IllegalArgumentException("Tariff version is mandatory.");
+        }
+        if (definition.maxLimitAmount() == null || definition.maxLimitAmount().signum() <= 0) {
+            throw new IllegalArgumentException("Tariff maxLimitAmount must be positive.");
+        }
+        if (definition.turnoverCap() == null || definition.turnoverCap().signum() <= 0) {
+            throw new IllegalArgumentException("Tariff turnoverCap must be positive.");
+        }
+
+        List<TariffDefinition.TurnoverBand> bands = definition.turnoverBands();
+        if (bands == null || bands.isEmpty()) {
+            throw new IllegalArgumentException("Tariff must define at least one turnover band.");
+        }
+        BigDecimal previous = null;
+        for (int i = 0; i < bands.size(); i++) {
+            TariffDefinition.TurnoverBand band = bands.get(i);
+            boolean last = i == bands.size() - 1;
+            if (band.coefficient() == null || band.coefficient().signum() <= 0) {
+                throw new IllegalArgumentException("Turnover band " + i + " must have a positive coefficient.");
+            }
+            if (last != (band.upTo() == null)) {
+                throw new IllegalArgumentException("Only the last turnover band must be open-ended (upTo = null).");
+            }
+            if (!last) {
+                if (previous != null && band.upTo().compareTo(previous) <= 0) {
+                    throw new IllegalArgumentException("Turnover band thresholds must be strictly ascending.");
+                }
+                previous = band.upTo();
+            }
+        }
+
+        if (definition.limitBandWidthMillions() <= 0) {
+            throw new IllegalArgumentException("Tariff limitBandWidthMillions must be positive.");
+        }
+        List<BigDecimal> discounts = definition.limitBandDiscounts();
+        if (discounts == null || discounts.isEmpty()) {
+            throw new IllegalArgumentException("Tariff must define at least one limit band discount.");
+        }
+        for (BigDecimal discount : discounts) {
+            if (discount == null || discount.signum() < 0 || discount.compareTo(BigDecimal.ONE) >= 0) {
+                throw new IllegalArgumentException("Limit band discounts must be in the range [0, 1).");
+            }
+        }
+
+        Map<FinancialPerformance, BigDecimal> factors = definition.financialPerformanceFactors();
+        for (FinancialPerformance financialPerformance : FinancialPerformance.values()) {
+            BigDecimal factor = factors == null ? null : factors.get(financialPerformance);
+            if (factor == null || factor.signum() <= 0) {
+                throw new IllegalArgumentException("Tariff must define a positive factor for " + financialPerformance + ".");
+            }
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package cz.michalmusil.dnoratingsystem.tariff;
+
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Sazebník tak, jak je zapsaný v souboru (JSON). Před použitím se zkompiluje do {@link CompiledTariff}.
+ *
+ * @param version Verze sazebníku, ukládá se ke každému ocenění rizika.
+ * @param maxLimitAmount Maximální limit pojistného plnění (Kč).
+ * @param turnoverCap Obrat nad touto hranicí se pro výpočet nezohledňuje (Kč).
+ * @param turnoverBands Obratová pásma seřazená vzestupně, poslední pásmo má upTo = null.
+ * @param limitBandWidthMillions Šířka pásma limitu v milionech.
+ * @param limitBandDiscounts Sleva platná od začátku každého pásma limitu (kumulativně násobená).
+ * @param financialPerformanceFactors Faktor pro každou finanční výkonnost.
+ */
+public record TariffDefinition(
+        String version,
+        BigDecimal maxLimitAmount,
+        BigDecimal turnoverCap,
+        List<TurnoverBand> turnoverBands,
+        int limitBandWidthMillions,
+        List<BigDecimal> limitBandDiscounts,
+        Map<FinancialPerformance, BigDecimal> financialPerformanceFactors
+) {
+
+    /**
+     * @param upTo Horní hranice obratu včetně (Kč), u posledního pásma null.
+     * @param coefficient Koeficient obratu - sazba za milion limitu je 1 000 000 * coefficient.
+     */
+    public record TurnoverBand(BigDecimal upTo, BigDecimal coefficient) {
+    }
+}
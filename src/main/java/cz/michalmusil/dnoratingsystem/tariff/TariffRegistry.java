@@ -0,0 +1,126 @@
+package cz.michalmusil.dnoratingsystem.tariff;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Drží aktuálně platný sazebník. Sazebník se načítá ze souboru ({@code rating.tariff.location}),
+ * kompiluje do {@link CompiledTariff} a vyměňuje atomicky - rozpracované výpočty dopočítají
+ * se sazebníkem, který si na začátku přečetly, nové výpočty už vidí nový. Čtení je bez zámků.
+ * Neplatný soubor se odmítne a zůstává platit předchozí sazebník.
+ */
+@Component
+public class TariffRegistry {
+
+    private static final Logger log = LoggerFactory.getLogger(TariffRegistry.class);
+
+    private final Resource location;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<LoadedTariff> current = new AtomicReference<>();
+
+    public TariffRegistry(@Value("${rating.tariff.location:classpath:tariff/tariff.json}") Resource location,
+                          ObjectMapper objectMapper) {
+        this.location = location;
+        this.objectMapper = objectMapper.copy().enable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+        LoadedTariff initial = load();
+        current.set(initial);
+        log.info("Loaded tariff {} from {}", initial.tariff().getVersion(), location);
+    }
+
+    /**
+     * @return Aktuálně platný sazebník. Volající si jej má přečíst jednou a použít pro celý výpočet.
+     */
+    public CompiledTariff current() {
+        return current.get().tariff();
+    }
+
+    public Instant getLoadedAt() {
+        return current.get().loadedAt();
+    }
+
+    public String getLocation() {
+        return location.getDescription();
+    }
+
+    /**
+     * Znovu načte sazebník ze souboru a atomicky jej vymění.
+     * Změněný obsah musí mít novou verzi - verze je součástí klíče cache výsledků a ukládá se k rizikům.
+     *
+     * @return Nově platný sazebník.
+     * @throws IllegalArgumentException pokud soubor není platný sazebník nebo změnil obsah bez změny verze.
+     */
+    public synchronized CompiledTariff reload() {
+        LoadedTariff loaded = load();
+        LoadedTariff previousLoaded = current.get();
+        CompiledTariff previous = previousLoaded.tariff();
+        if (loaded.tariff().getVersion().equals(previous.getVersion())) {
+            if (!loaded.tariff().getDefinition().equals(previous.getDefinition())) {
+                throw new IllegalArgumentException("Tariff " + previous.getVersion() + " changed without a version change.");
+            }
+            // Stejný obsah - jen si zapamatujeme čas změny souboru, aby se znovu nenačítal
+            current.set(new LoadedTariff(previous, previousLoaded.loadedAt(), loaded.sourceLastModified()));
+            return previous;
+        }
+        current.set(loaded);
+        log.info("Tariff reloaded: {} -> {}", previous.getVersion(), loaded.tariff().getVersion());
+        return loaded.tariff();
+    }
+
+    /**
+     * Periodicky zkontroluje, zda se soubor sazebníku změnil, a případně jej znovu načte.
+     * U zdrojů, které nejsou soubor (např. classpath uvnitř JAR), se nic nedělá.
+     */
+    @Scheduled(fixedDelayString = "${rating.tariff.reload-interval:30s}")
+    public void reloadIfModified() {
+        long lastModified;
+        try {
+            if (!location.isFile()) {
+                return;
+            }
+            lastModified = location.lastModified();
+        } catch (IOException e) {
+            return;
+        }
+        if (lastModified <= current.get().sourceLastModified()) {
+            return;
+        }
+        try {
+            reload();
+        } catch (RuntimeException e) {
+            log.error("Tariff reload from {} failed, keeping tariff {}: {}", location, current().getVersion(), e.getMessage());
+        }
+    }
+
+    private LoadedTariff load() {
+        long lastModified = lastModifiedOrZero();
+        try (InputStream in = location.getInputStream()) {
+            TariffDefinition definition = objectMapper.readValue(in, TariffDefinition.class);
+            return new LoadedTariff(CompiledTariff.compile(definition), Instant.now(), lastModified);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Cannot read tariff from " + location, e);
+        }
+    }
+
+    private long lastModifiedOrZero() {
+        try {
+            return location.isFile() ? location.lastModified() : 0L;
+        } catch (IOException e) {
+            return 0L;
+        }
+    }
+
+    private record LoadedTariff(CompiledTariff tariff, Instant loadedAt, long sourceLastModified) {
+    }
+}
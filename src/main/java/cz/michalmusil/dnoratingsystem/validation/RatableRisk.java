@@ -0,0 +1,27 @@
+package cz.michalmusil.dnoratingsystem.validation;
+
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Riziko musí splňovat podmínky aktuálního sazebníku (maximální limit, limit nejvýše do efektivního obratu).
+ * Kontroluje se při validaci požadavku, tedy dřív, než se sáhne na databázi.
+ */
+@Documented
+@Constraint(validatedBy = RatableRiskValidator.class)
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface RatableRisk {
+
+    String message() default "Risk does not meet the tariff conditions";
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
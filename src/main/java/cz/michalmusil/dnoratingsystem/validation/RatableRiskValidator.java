@@ -0,0 +1,48 @@
+package cz.michalmusil.dnoratingsystem.validation;
+
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics;
+import cz.michalmusil.dnoratingsystem.service.PremiumEngine;
+import cz.michalmusil.dnoratingsystem.service.QuoteRejectedException;
+import cz.michalmusil.dnoratingsystem.service.RatingPreconditions;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+/**
+ * Validátor {@link RatableRisk} - Spring jej vytváří přes SpringConstraintValidatorFactory,
+ * takže dostane sazebník i metriky konstruktorem. Chyba se váže na pole limitInMillions.
+ */
+public class RatableRiskValidator implements ConstraintValidator<RatableRisk, RiskRequestDto> {
+
+    private final PremiumEngine premiumEngine;
+    private final RatingMetrics ratingMetrics;
+
+    public RatableRiskValidator(PremiumEngine premiumEngine, RatingMetrics ratingMetrics) {
+        this.premiumEngine = premiumEngine;
+        this.ratingMetrics = ratingMetrics;
+    }
+
+    @Override
+    public boolean isValid(RiskRequestDto request, ConstraintValidatorContext context) {
+        // Chybějící hodnoty hlásí @NotNull na polích
+        if (request == null || request.getLimitInMillions() == null || request.getTurnoverInThousands() == null) {
+            return true;
+        }
+        QuoteRejectedException rejection = RatingPreconditions.check(premiumEngine.currentTariff(),
+                request.getLimitInFullAmount(), request.getTurnoverInFullAmount());
+        if (rejection == null) {
+            return true;
+        }
+        ratingMetrics.rejected(rejection.getReason());
+        context.disableDefaultConstraintViolation();
+        context.buildConstraintViolationWithTemplate(escape(rejection.getMessage()))
+                .addPropertyNode("limitInMillions")
+                .addConstraintViolation();
+        return false;
+    }
+
+    // Zpráva jde do šablony Bean Validation - {, } a $ by se interpretovaly
+    private static String escape(String message) {
+        return message.replace("\\", "\\\\").replace("{", "\\{").replace("}", "\\}").replace("$", "\\$");
+    }
+}
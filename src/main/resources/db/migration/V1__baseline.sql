@@ -0,0 +1,28 @@
+-- Výchozí schéma (stav vytvořený Hibernate ddl-auto=update před přechodem na sekvence).
+-- IF NOT EXISTS - na existující databázi nic nemění.
+
+CREATE TABLE IF NOT EXISTS clients (
+    id                 BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    name               VARCHAR(255) NOT NULL,
+    street             VARCHAR(255) NOT NULL,
+    house_number       VARCHAR(255) NOT NULL,
+    orientation_number VARCHAR(255),
+    city               VARCHAR(255) NOT NULL,
+    state              VARCHAR(255) NOT NULL,
+    postcode           VARCHAR(255) NOT NULL,
+    ico                VARCHAR(255) NOT NULL UNIQUE
+);
+
+CREATE TABLE IF NOT EXISTS risks (
+    id                           BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    activity                     VARCHAR(255)   NOT NULL,
+    turnover                     NUMERIC(19, 2) NOT NULL,
+    limit_amount                 NUMERIC(19, 2) NOT NULL,
+    financial_performance        VARCHAR(255)   NOT NULL
+        CHECK (financial_performance IN ('BELOW_AVERAGE', 'AVERAGE', 'ABOVE_AVERAGE')),
+    broker_commission_percentage NUMERIC(7, 5)  NOT NULL,
+    netto_premium                NUMERIC(19, 2) NOT NULL,
+    tariff_version               VARCHAR(32),
+    calculation_date             TIMESTAMP(6)   NOT NULL,
+    client_id                    BIGINT         NOT NULL REFERENCES clients (id)
+);
@@ -0,0 +1,17 @@
+-- Přechod ID z IDENTITY na sekvence s krokem 50 (Hibernate pooled optimizer).
+-- Jedno nextval rezervuje blok ID (hodnota - 49 .. hodnota), Hibernate tak může inserty dávkovat
+-- a nemusí pro každý řádek čekat na vygenerované ID.
+-- Spustit před nasazením verze se sekvencemi - jinak by Hibernate (ddl-auto=update)
+-- založil sekvence od 1 a kolidoval s existujícími ID.
+
+ALTER TABLE risks ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE risks ALTER COLUMN id DROP DEFAULT;
+ALTER TABLE clients ALTER COLUMN id DROP IDENTITY IF EXISTS;
+ALTER TABLE clients ALTER COLUMN id DROP DEFAULT;
+
+CREATE SEQUENCE IF NOT EXISTS clients_seq INCREMENT BY 50 START WITH 50 MINVALUE 50;
+CREATE SEQUENCE IF NOT EXISTS risks_seq INCREMENT BY 50 START WITH 50 MINVALUE 50;
+
+-- První nextval vrátí max(id) + 50, první přidělený blok je tedy max(id) + 1 .. max(id) + 50
+SELECT setval('clients_seq', COALESCE(MAX(id), 0) + 50, false) FROM clients;
+SELECT setval('risks_seq', COALESCE(MAX(id), 0) + 50, false) FROM risks;
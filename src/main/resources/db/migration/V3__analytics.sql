@@ -0,0 +1,66 @@
+-- Indexy pro filtrování a agregace portfolia
+CREATE INDEX IF NOT EXISTS idx_risks_calculation_date ON risks (calculation_date);
+CREATE INDEX IF NOT EXISTS idx_risks_client_id ON risks (client_id);
+CREATE INDEX IF NOT EXISTS idx_risks_activity ON risks (activity);
+
+-- Souhrn portfolia po měsících (měsíc x finanční výkonnost x aktivita) pro dashboardy.
+-- Triggery na risks zapisují jen přírůstky do append-only tabulky delta (žádné zámky sdílených řádků
+-- mezi souběžnými inserty), PortfolioSummaryCompactor je periodicky slučuje do risk_summary_monthly.
+-- Dotazy čtou součet obou tabulek, výsledek je tedy vždy aktuální.
+CREATE TABLE IF NOT EXISTS risk_summary_monthly (
+    month                 DATE           NOT NULL,
+    financial_performance VARCHAR(255)   NOT NULL,
+    activity              VARCHAR(255)   NOT NULL,
+    quote_count           BIGINT         NOT NULL,
+    total_netto_premium   NUMERIC(21, 2) NOT NULL,
+    total_limit_amount    NUMERIC(23, 2) NOT NULL,
+    PRIMARY KEY (month, financial_performance, activity)
+);
+
+CREATE TABLE IF NOT EXISTS risk_summary_monthly_delta (
+    month                 DATE           NOT NULL,
+    financial_performance VARCHAR(255)   NOT NULL,
+    activity              VARCHAR(255)   NOT NULL,
+    quote_count           BIGINT         NOT NULL,
+    total_netto_premium   NUMERIC(21, 2) NOT NULL,
+    total_limit_amount    NUMERIC(23, 2) NOT NULL
+);
+
+-- Statement-level triggery s transition tables - jeden INSERT do delta na celý příkaz (i na JDBC dávku)
+CREATE OR REPLACE FUNCTION risk_summary_monthly_track() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP IN ('INSERT', 'UPDATE') THEN
+        INSERT INTO risk_summary_monthly_delta
+        SELECT date_trunc('month', calculation_date)::date, financial_performance, activity,
+               COUNT(*), SUM(netto_premium), SUM(limit_amount)
+        FROM new_rows
+        GROUP BY 1, 2, 3;
+    END IF;
+    IF TG_OP IN ('DELETE', 'UPDATE') THEN
+        INSERT INTO risk_summary_monthly_delta
+        SELECT date_trunc('month', calculation_date)::date, financial_performance, activity,
+               -COUNT(*), -SUM(netto_premium), -SUM(limit_amount)
+        FROM old_rows
+        GROUP BY 1, 2, 3;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS risks_summary_insert ON risks;
+DROP TRIGGER IF EXISTS risks_summary_update ON risks;
+DROP TRIGGER IF EXISTS risks_summary_delete ON risks;
+CREATE TRIGGER risks_summary_insert AFTER INSERT ON risks
+    REFERENCING NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION risk_summary_monthly_track();
+CREATE TRIGGER risks_summary_update AFTER UPDATE ON risks
+    REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows FOR EACH STATEMENT EXECUTE FUNCTION risk_summary_monthly_track();
+CREATE TRIGGER risks_summary_delete AFTER DELETE ON risks
+    REFERENCING OLD TABLE AS old_rows FOR EACH STATEMENT EXECUTE FUNCTION risk_summary_monthly_track();
+
+-- Počáteční naplnění z existujících dat
+TRUNCATE risk_summary_monthly, risk_summary_monthly_delta;
+INSERT INTO risk_summary_monthly
+SELECT date_trunc('month', calculation_date)::date, financial_performance, activity,
+       COUNT(*), SUM(netto_premium), SUM(limit_amount)
+FROM risks
+GROUP BY 1, 2, 3;
@@ -0,0 +1,5 @@
+-- Historie kalkulací klienta (GET /api/clients/{ico}/risks) - stránkuje se od nejnovějších
+-- podle (calculation_date, id), index pokrývá filtr i řazení, takže se nic netřídí.
+-- Samostatný index na client_id je pak zbytečný (je prefixem nového indexu).
+CREATE INDEX IF NOT EXISTS idx_risks_client_calculation_date ON risks (client_id, calculation_date DESC, id DESC);
+DROP INDEX IF EXISTS idx_risks_client_id;
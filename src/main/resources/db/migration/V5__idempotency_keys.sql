@@ -0,0 +1,10 @@
+-- Idempotentní POST /api/risks/calculate (rating.idempotency.database.enabled=true).
+-- Klíč je hodnota hlavičky Idempotency-Key nebo hash obsahu požadavku, response je RiskResponseDto jako JSON.
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(255) PRIMARY KEY,
+    request_hash    CHAR(64)     NOT NULL,
+    response        TEXT,
+    created_at      TIMESTAMP    NOT NULL
+);
+
+CREATE INDEX IF NOT EXISTS idx_idempotency_keys_created_at ON idempotency_keys (created_at);
@@ -0,0 +1,33 @@
+-- Přecenění uložených rizik podle aktuálního sazebníku (POST /api/risks/rerating, rating.rerating.enabled=true).
+-- last_risk_id je checkpoint - ukládá se ve stejné transakci jako výsledky dávky, po pádu se pokračuje za ním.
+-- Rizika se berou jen do max_risk_id (stav při založení úlohy), kalkulace uložené během běhu se nepřeceňují.
+CREATE TABLE IF NOT EXISTS rerating_jobs (
+    id                BIGSERIAL PRIMARY KEY,
+    status            VARCHAR(20)    NOT NULL,
+    tariff_version    VARCHAR(32)    NOT NULL,
+    max_risk_id       BIGINT         NOT NULL,
+    total_count       BIGINT         NOT NULL,
+    last_risk_id      BIGINT         NOT NULL DEFAULT 0,
+    processed_count   BIGINT         NOT NULL DEFAULT 0,
+    failed_count      BIGINT         NOT NULL DEFAULT 0,
+    old_premium_total NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    new_premium_total NUMERIC(19, 2) NOT NULL DEFAULT 0,
+    created_at        TIMESTAMP      NOT NULL,
+    updated_at        TIMESTAMP      NOT NULL,
+    finished_at       TIMESTAMP,
+    error             TEXT
+);
+
+-- Nejvýše jedna běžící úloha napříč instancemi
+CREATE UNIQUE INDEX IF NOT EXISTS idx_rerating_jobs_running ON rerating_jobs ((true)) WHERE status = 'RUNNING';
+
+-- new_premium je NULL, pokud riziko podle nového sazebníku nelze ocenit (důvod v error)
+CREATE TABLE IF NOT EXISTS rerating_results (
+    job_id             BIGINT         NOT NULL REFERENCES rerating_jobs (id) ON DELETE CASCADE,
+    risk_id            BIGINT         NOT NULL,
+    old_premium        NUMERIC(19, 2),
+    new_premium        NUMERIC(19, 2),
+    old_tariff_version VARCHAR(32),
+    error              VARCHAR(50),
+    PRIMARY KEY (job_id, risk_id)
+);
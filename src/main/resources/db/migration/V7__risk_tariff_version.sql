@@ -0,0 +1,4 @@
+-- Sloupce přidané do entit po výchozím schématu. V1 zakládá tabulky jen pokud neexistují, na databázi
+-- vytvořené původní aplikací (bez tariff_version) je proto nedoplní - bez sloupce by selhal každý INSERT rizika.
+-- Na schématu založeném přes V1 sloupec už je a příkaz nic nemění.
+ALTER TABLE risks ADD COLUMN IF NOT EXISTS tariff_version VARCHAR(32);
@@ -0,0 +1,100 @@
+package cz.michalmusil.dnoratingsystem;
+
+import cz.michalmusil.dnoratingsystem.dto.BatchResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.service.BatchRatingService;
+import cz.michalmusil.dnoratingsystem.service.RatingService;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Přechod existující databáze (schéma původní aplikace bez historie Flyway) na migrace profilu prod:
+ * baseline na verzi 0, pak V1.. Hibernate schéma po migraci validuje a oba způsoby zápisu rizik (JPA i JDBC) projdou.
+ */
+@SpringBootTest
+@ActiveProfiles("prod")
+class BaselineMigrationTest {
+
+    private static final EmbeddedPostgres POSTGRES = startWithBaselineSchema();
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private BatchRatingService batchRatingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> POSTGRES.getJdbcUrl("postgres", "postgres") + "&reWriteBatchedInserts=true");
+        registry.add("spring.datasource.username", () -> "postgres");
+        registry.add("spring.datasource.password", () -> "");
+        registry.add("spring.jpa.hibernate.ddl-auto", () -> "validate");
+        registry.add("spring.jpa.properties.hibernate.boot.allow_jdbc_metadata_access", () -> "true");
+    }
+
+    @Test
+    void migratedBaselineDatabaseStoresRisks() {
+        RiskResponseDto single = ratingService.calculateNettoPremium(request("87670001"));
+        BatchResponseDto batch = batchRatingService.calculateBatch(List.of(request("87670002"), request("87670003")));
+
+        assertThat(batch.getSucceeded()).isEqualTo(2);
+        // Sekvence navazují na ID původních řádků
+        assertThat(single.getId()).isGreaterThan(1L);
+        assertThat(single.getClientId()).isGreaterThan(1L);
+        assertThat(jdbcTemplate.queryForList("SELECT tariff_version FROM risks WHERE id IN (?, ?, ?)", String.class,
+                single.getId(), batch.getItems().get(0).getResult().getId(), batch.getItems().get(1).getResult().getId()))
+                .hasSize(3).allMatch(version -> version.equals(single.getTariffVersion()));
+        assertThat(jdbcTemplate.queryForObject("SELECT tariff_version FROM risks WHERE id = 1", String.class)).isNull();
+        assertThat(jdbcTemplate.queryForObject("SELECT MAX(version) FROM flyway_schema_history", String.class)).isEqualTo("7");
+    }
+
+    private static EmbeddedPostgres startWithBaselineSchema() {
+        try {
+            EmbeddedPostgres postgres = EmbeddedPostgres.start();
+            try (Connection connection = postgres.getPostgresDatabase().getConnection()) {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource("db/baseline-339cc8b.sql"));
+                // Data zapsaná původní aplikací
+                connection.createStatement().execute("INSERT INTO clients (name, street, house_number, city, state, postcode, ico) "
+                        + "VALUES ('Původní s.r.o.', 'Národní', '1', 'Praha', 'CZ', '11000', '87670000')");
+                connection.createStatement().execute("INSERT INTO risks (activity, turnover, limit_amount, financial_performance, "
+                        + "broker_commission_percentage, netto_premium, calculation_date, client_id) "
+                        + "VALUES ('62.01 Programování', 500000000, 10000000, 'AVERAGE', 10, 12345.67, now(), 1)");
+            }
+            return postgres;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static RiskRequestDto request(String ico) {
+        ClientRequestDto client = new ClientRequestDto("Migrace " + ico + " s.r.o.", "Národní", "1", null,
+                "Praha", "11000", "CZ", ico);
+        return new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal("10"),
+                FinancialPerformance.AVERAGE, new BigDecimal("10"), client);
+    }
+}
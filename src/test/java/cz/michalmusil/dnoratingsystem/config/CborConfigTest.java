@@ -0,0 +1,64 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CborConfigTest {
+
+    private final CborConfig cborConfig = new CborConfig();
+
+    @Test
+    void reactiveWritersPreferJsonWhenClientAcceptsAnything() {
+        ServerCodecConfigurer configurer = ServerCodecConfigurer.create();
+        cborConfig.cborCodecCustomizer(cborConfig.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder()), new ObjectMapper())
+                .customize(configurer);
+
+        // WebFlux u Accept */* bere první konkrétní typ v pořadí writerů
+        ResolvableType type = ResolvableType.forClass(RiskResponseDto.class);
+        List<MediaType> producible = configurer.getWriters().stream()
+                .filter(writer -> writer.canWrite(type, null))
+                .flatMap(writer -> writer.getWritableMediaTypes(type).stream())
+                .filter(MediaType::isConcrete)
+                .toList();
+
+        assertThat(producible.getFirst()).isEqualTo(MediaType.APPLICATION_JSON);
+        assertThat(producible).contains(MediaType.APPLICATION_CBOR);
+    }
+
+    @Test
+    void reactiveCborEncoderEncodesSingleValue() throws IOException {
+        MappingJackson2CborHttpMessageConverter converter = cborConfig.cborHttpMessageConverter(new Jackson2ObjectMapperBuilder());
+        RiskResponseDto risk = new RiskResponseDto();
+        risk.setId(42L);
+        risk.setNettoPremium(new BigDecimal("28442.21"));
+
+        DataBuffer buffer = new CborConfig.SingleValueCborEncoder(converter.getObjectMapper())
+                .encode(Mono.just(risk), DefaultDataBufferFactory.sharedInstance, ResolvableType.forClass(RiskResponseDto.class),
+                        MediaType.APPLICATION_CBOR, Map.of())
+                .single().block();
+
+        byte[] bytes = new byte[buffer.readableByteCount()];
+        buffer.read(bytes);
+        DataBufferUtils.release(buffer);
+        RiskResponseDto decoded = converter.getObjectMapper().readValue(bytes, RiskResponseDto.class);
+        assertThat(decoded.getId()).isEqualTo(42L);
+        assertThat(decoded.getNettoPremium()).isEqualTo(new BigDecimal("28442.21"));
+    }
+}
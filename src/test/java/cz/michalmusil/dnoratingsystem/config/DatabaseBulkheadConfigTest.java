@@ -0,0 +1,55 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.service.RatingService;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.cfg.AvailableSettings;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.jdbc.DataSourceUnwrapper;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "spring.threads.virtual.enabled=true")
+class DatabaseBulkheadConfigTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private DataSource dataSource;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void virtualThreadModeAcquiresConnectionsLazily() {
+        assertThat(dataSource).isInstanceOf(BulkheadDataSource.class);
+        assertThat(DataSourceUnwrapper.unwrap(dataSource, HikariDataSource.class).isAutoCommit()).isFalse();
+        assertThat(entityManagerFactory.getProperties())
+                .containsEntry(AvailableSettings.CONNECTION_PROVIDER_DISABLES_AUTOCOMMIT, "true");
+    }
+
+    @Test
+    void transactionalQuoteIsCommitted() {
+        ClientRequestDto client = new ClientRequestDto("Bulkhead s.r.o.", "Národní", "1", null, "Praha", "11000", "CZ", "87710001");
+        RiskResponseDto calculated = ratingService.calculateNettoPremium(new RiskRequestDto("62.01 Programování",
+                new BigDecimal("500000"), new BigDecimal("10"), FinancialPerformance.AVERAGE, new BigDecimal("10"), client));
+
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM risks WHERE id = ?", Long.class, calculated.getId()))
+                .isEqualTo(1);
+    }
+}
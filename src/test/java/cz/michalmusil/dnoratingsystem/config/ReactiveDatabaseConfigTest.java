@@ -0,0 +1,23 @@
+package cz.michalmusil.dnoratingsystem.config;
+
+import io.r2dbc.pool.ConnectionPool;
+import org.junit.jupiter.api.Test;
+import org.springframework.r2dbc.core.DatabaseClient;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReactiveDatabaseConfigTest {
+
+    @Test
+    void connectionPoolIsDisposedWithConfiguration() {
+        ReactiveDatabaseConfig config = new ReactiveDatabaseConfig();
+        // Pool se připojuje až při prvním požadavku, databáze tu není potřeba
+        DatabaseClient databaseClient = config.reactiveDatabaseClient("r2dbc:pool:postgresql://localhost:5432/dnodatabase",
+                "user", "password");
+        ConnectionPool pool = (ConnectionPool) databaseClient.getConnectionFactory();
+
+        config.closeConnectionPool();
+
+        assertThat(pool.isDisposed()).isTrue();
+    }
+}
@@ -0,0 +1,43 @@
+package cz.michalmusil.dnoratingsystem.metrics;
+
+import cz.michalmusil.dnoratingsystem.metrics.RatingMetrics.Stage;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Mono;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class RatingMetricsTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RatingMetrics ratingMetrics = new RatingMetrics(meterRegistry);
+
+    @Test
+    void reactiveStepIsTimedFromSubscriptionToCompletion() {
+        Mono<String> step = ratingMetrics.time(Stage.RISK_PERSISTENCE, Mono.just("saved").delayElement(Duration.ofMillis(50)));
+
+        assertThat(timer(Stage.RISK_PERSISTENCE).count()).isZero(); // Bez přihlášení se nic neměří
+        assertThat(step.block()).isEqualTo("saved");
+
+        assertThat(timer(Stage.RISK_PERSISTENCE).count()).isEqualTo(1);
+        assertThat(timer(Stage.RISK_PERSISTENCE).totalTime(TimeUnit.MILLISECONDS)).isGreaterThanOrEqualTo(50);
+    }
+
+    @Test
+    void failedReactiveStepIsTimed() {
+        Mono<Long> step = ratingMetrics.time(Stage.CLIENT_UPSERT, Mono.error(new IllegalStateException("database down")));
+
+        assertThatThrownBy(step::block).isInstanceOf(IllegalStateException.class);
+
+        assertThat(timer(Stage.CLIENT_UPSERT).count()).isEqualTo(1);
+    }
+
+    private Timer timer(Stage stage) {
+        return meterRegistry.get("rating.stage").tag("stage", stage.name().toLowerCase()).timer();
+    }
+}
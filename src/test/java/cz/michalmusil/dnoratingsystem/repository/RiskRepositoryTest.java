@@ -0,0 +1,77 @@
+package cz.michalmusil.dnoratingsystem.repository;
+
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.ClientRiskHistoryDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRowDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.service.RatingService;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Limit;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiskRepositoryTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private RatingService ratingService;
+
+    @Autowired
+    private RiskRepository riskRepository;
+
+    @Test
+    void clientHistoryReturnsValuesInRequestUnits() {
+        ClientRequestDto client = new ClientRequestDto("Historie s.r.o.", "Národní", "1", null, "Praha", "11000", "CZ", "87660001");
+        RiskRequestDto request = new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal("15"),
+                FinancialPerformance.ABOVE_AVERAGE, new BigDecimal("12.5"), client);
+        RiskResponseDto calculated = ratingService.calculateNettoPremium(request);
+
+        List<ClientRiskHistoryDto> history = riskRepository.findHistoryByClientId(calculated.getClientId(), Limit.of(10));
+
+        assertThat(history).hasSize(1);
+        ClientRiskHistoryDto risk = history.getFirst();
+        assertThat(risk.getId()).isEqualTo(calculated.getId());
+        assertThat(risk.getTurnoverInThousands()).isEqualByComparingTo("500000");
+        assertThat(risk.getLimitInMillions()).isEqualByComparingTo("15");
+        assertThat(risk.getBrokerCommissionPercentage()).isEqualByComparingTo("12.5");
+        assertThat(risk.getNettoPremium()).isEqualByComparingTo(calculated.getNettoPremium());
+    }
+
+    @Test
+    void listingReturnsCommissionAsStored() {
+        ClientRequestDto client = new ClientRequestDto("Výpis s.r.o.", "Národní", "2", null, "Praha", "11000", "CZ", "87690001");
+        RiskRequestDto request = new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal("15"),
+                FinancialPerformance.ABOVE_AVERAGE, new BigDecimal("12.5"), client);
+        RiskResponseDto calculated = ratingService.calculateNettoPremium(request);
+
+        List<RiskRowDto> rows = riskRepository.findRowsByIdGreaterThan(calculated.getId() - 1, Limit.of(1));
+
+        assertThat(rows).hasSize(1);
+        RiskResponseDto listed = RiskResponseDto.fromRow(rows.getFirst());
+        assertThat(listed.getId()).isEqualTo(calculated.getId());
+        assertThat(listed.getBrokerCommissionPercentage()).isEqualByComparingTo(calculated.getBrokerCommissionPercentage());
+        assertThat(listed.getBrokerCommissionPercentage()).isEqualByComparingTo("12.5");
+    }
+
+    @Test
+    void historyAndListingReturnSameCommission() {
+        ClientRequestDto client = new ClientRequestDto("Shoda s.r.o.", "Národní", "3", null, "Praha", "11000", "CZ", "87690002");
+        RiskRequestDto request = new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal("15"),
+                FinancialPerformance.AVERAGE, new BigDecimal("7.125"), client);
+        RiskResponseDto calculated = ratingService.calculateNettoPremium(request);
+
+        ClientRiskHistoryDto fromHistory = riskRepository.findHistoryByClientId(calculated.getClientId(), Limit.of(1)).getFirst();
+        RiskResponseDto fromListing = RiskResponseDto.fromRow(
+                riskRepository.findRowsByIdGreaterThan(calculated.getId() - 1, Limit.of(1)).getFirst());
+
+        assertThat(fromHistory.getId()).isEqualTo(fromListing.getId());
+        assertThat(fromHistory.getBrokerCommissionPercentage()).isEqualByComparingTo(fromListing.getBrokerCommissionPercentage());
+        assertThat(fromListing.getBrokerCommissionPercentage()).isEqualByComparingTo(calculated.getBrokerCommissionPercentage());
+    }
+}
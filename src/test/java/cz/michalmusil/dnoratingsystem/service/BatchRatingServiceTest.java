@@ -0,0 +1,49 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.BatchResponseDto;
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class BatchRatingServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private BatchRatingService batchRatingService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void batchWithNewClientStoresClientBeforeRisks() {
+        // Nové IČO dvakrát v dávce - klient se založí jednou, obě rizika na něj odkazují
+        List<RiskRequestDto> batch = List.of(request("87654321", "10"), request("87654321", "20"), request("87654322", "5"));
+
+        BatchResponseDto response = batchRatingService.calculateBatch(batch);
+
+        assertThat(response.getSucceeded()).isEqualTo(3);
+        Long clientId = response.getItems().getFirst().getResult().getClientId();
+        assertThat(response.getItems().get(1).getResult().getClientId()).isEqualTo(clientId);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM clients WHERE ico = '87654321'", Long.class)).isEqualTo(1);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM risks WHERE client_id = ?", Long.class, clientId)).isEqualTo(2);
+        for (var item : response.getItems()) {
+            assertThat(jdbcTemplate.queryForObject("SELECT netto_premium FROM risks WHERE id = ?", BigDecimal.class,
+                    item.getResult().getId())).isEqualByComparingTo(item.getResult().getNettoPremium());
+        }
+    }
+
+    private static RiskRequestDto request(String ico, String limitInMillions) {
+        ClientRequestDto client = new ClientRequestDto("Dávka " + ico + " s.r.o.", "Národní", "1", null,
+                "Praha", "11000", "CZ", ico);
+        return new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal(limitInMillions),
+                FinancialPerformance.AVERAGE, new BigDecimal("10"), client);
+    }
+}
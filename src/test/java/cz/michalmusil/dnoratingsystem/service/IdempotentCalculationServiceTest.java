@@ -0,0 +1,44 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {"rating.idempotency.database.enabled=true", "rating.idempotency.ttl=24h"})
+class IdempotentCalculationServiceTest extends PostgresIntegrationTest {
+
+    private static final String INSERT_SQL = "INSERT INTO idempotency_keys (idempotency_key, request_hash, created_at) VALUES (?, ?, ?)";
+
+    @Autowired
+    private IdempotentCalculationService idempotentCalculationService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Test
+    void purgeDeletesOnlyExpiredKeys() {
+        Instant now = Instant.now();
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> {
+            jdbcTemplate.update(INSERT_SQL, "purge-expired", "0".repeat(64), Timestamp.from(now.minus(Duration.ofDays(2))));
+            jdbcTemplate.update(INSERT_SQL, "purge-valid", "0".repeat(64), Timestamp.from(now.minus(Duration.ofHours(1))));
+        });
+
+        idempotentCalculationService.purgeExpired();
+
+        assertThat(jdbcTemplate.queryForList("SELECT idempotency_key FROM idempotency_keys WHERE idempotency_key LIKE 'purge-%'",
+                String.class)).containsExactly("purge-valid");
+    }
+}
@@ -0,0 +1,30 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.PortfolioDimension;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.TestPropertySource;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestPropertySource(properties = "rating.analytics.summary.enabled=true")
+class PortfolioAnalyticsServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private PortfolioAnalyticsService portfolioAnalyticsService;
+
+    @ParameterizedTest
+    @EnumSource(PortfolioDimension.class)
+    void summaryServesExactlyTheDimensionsMarkedAvailable(PortfolioDimension dimension) {
+        if (dimension.isAvailableInSummary()) {
+            assertThat(portfolioAnalyticsService.aggregateFromSummary(dimension, null, null)).isNotNull();
+        } else {
+            assertThatThrownBy(() -> portfolioAnalyticsService.aggregateFromSummary(dimension, null, null))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessageContaining(dimension.getParam());
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import cz.michalmusil.dnoratingsystem.tariff.TariffRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Výpočet v uzavřeném tvaru ({@link CompiledTariff#limitPremium}, {@link CompiledTariff#limitPremiums})
+ * musí dávat stejné pojistné jako původní smyčka přes každý milion ({@link PremiumEngine#referenceLimitPremium}).
+ */
+class PremiumEngineReferenceTest {
+
+    private static final BigDecimal ONE_MILLION = new BigDecimal("1000000");
+    private static final BigDecimal ONE_HUNDRED = new BigDecimal("100");
+
+    private static CompiledTariff tariff;
+    private static PremiumEngine premiumEngine;
+
+    @BeforeAll
+    static void loadTariff() {
+        TariffRegistry tariffRegistry = new TariffRegistry(new ClassPathResource("tariff/tariff.json"), new ObjectMapper());
+        tariff = tariffRegistry.current();
+        premiumEngine = new PremiumEngine(tariffRegistry);
+    }
+
+    @Test
+    void limitPremiumMatchesReferenceLoopForAllBandsAndLimits() {
+        for (int turnoverBand = 0; turnoverBand < tariff.getTurnoverBandCount(); turnoverBand++) {
+            BigDecimal coefficient = tariff.getTurnoverCoefficient(turnoverBand);
+            for (BigDecimal limitAmount : limitAmounts()) {
+                assertThat(tariff.limitPremium(limitAmount, turnoverBand))
+                        .as("turnover band %d, limit %s", turnoverBand, limitAmount)
+                        .isEqualByComparingTo(PremiumEngine.referenceLimitPremium(limitAmount, coefficient));
+            }
+        }
+    }
+
+    @Test
+    void limitPremiumsMatchReferenceLoopForAscendingLimits() {
+        int maxMillions = CompiledTariff.wholeMillions(tariff.getMaxLimitAmount());
+        int[] millions = IntStream.rangeClosed(0, maxMillions).toArray();
+        for (int turnoverBand = 0; turnoverBand < tariff.getTurnoverBandCount(); turnoverBand++) {
+            BigDecimal coefficient = tariff.getTurnoverCoefficient(turnoverBand);
+            BigDecimal[] premiums = tariff.limitPremiums(millions, turnoverBand);
+            for (int i = 0; i < millions.length; i++) {
+                BigDecimal limitAmount = BigDecimal.valueOf(millions[i]).multiply(ONE_MILLION);
+                assertThat(premiums[i])
+                        .as("turnover band %d, limit %d M", turnoverBand, millions[i])
+                        .isEqualByComparingTo(PremiumEngine.referenceLimitPremium(limitAmount, coefficient));
+            }
+        }
+    }
+
+    @Test
+    void nettoPremiumMatchesReferenceForAllTurnoverBandsAndFinancialPerformances() {
+        BigDecimal activityIndex = new BigDecimal("1.15");
+        BigDecimal brokerCommissionPercentage = new BigDecimal("12.5");
+        for (BigDecimal turnover : turnoversCoveringAllBands()) {
+            int turnoverBand = tariff.turnoverBand(turnover);
+            for (FinancialPerformance financialPerformance : FinancialPerformance.values()) {
+                for (BigDecimal limitAmount : limitAmounts()) {
+                    BigDecimal expected = PremiumEngine.referenceLimitPremium(limitAmount, tariff.getTurnoverCoefficient(turnoverBand))
+                            .multiply(tariff.financialPerformanceFactor(financialPerformance))
+                            .multiply(activityIndex)
+                            .multiply(BigDecimal.ONE.subtract(brokerCommissionPercentage.divide(ONE_HUNDRED, 4, RoundingMode.HALF_UP)))
+                            .setScale(2, RoundingMode.HALF_UP);
+                    assertThat(premiumEngine.calculateNettoPremium(tariff, limitAmount, turnover, financialPerformance,
+                            activityIndex, brokerCommissionPercentage))
+                            .as("turnover %s, %s, limit %s", turnover, financialPerformance, limitAmount)
+                            .isEqualTo(expected);
+                }
+            }
+        }
+    }
+
+    @Test
+    void turnoversCoverEveryBand() {
+        assertThat(turnoversCoveringAllBands().stream().map(tariff::turnoverBand).distinct())
+                .containsExactlyInAnyOrderElementsOf(IntStream.range(0, tariff.getTurnoverBandCount()).boxed().toList());
+    }
+
+    /**
+     * Limity od 0 do maxima sazebníku: každý celý milion (včetně hranic pásem limitu), necelé miliony kolem
+     * poloviny (HALF_UP) a tytéž hodnoty v různé škále - počet milionů se zaokrouhluje ve škále limitu,
+     * stejně jako limit přepočtený z požadavku (limitInMillions * 1 000 000).
+     */
+    private static List<BigDecimal> limitAmounts() {
+        int maxMillions = CompiledTariff.wholeMillions(tariff.getMaxLimitAmount());
+        List<BigDecimal> limits = new ArrayList<>();
+        for (int millions = 0; millions <= maxMillions; millions++) {
+            BigDecimal whole = BigDecimal.valueOf(millions).multiply(ONE_MILLION);
+            limits.add(whole);
+            limits.add(whole.setScale(2));
+            if (millions < maxMillions) {
+                limits.add(whole.add(new BigDecimal("499999")));
+                limits.add(whole.add(new BigDecimal("500000")));
+                limits.add(whole.add(new BigDecimal("500001")));
+                limits.add(whole.add(new BigDecimal("500000.00")));
+                limits.add(new BigDecimal(millions + ".5").multiply(ONE_MILLION));
+                limits.add(new BigDecimal(millions + ".75").multiply(ONE_MILLION));
+            }
+        }
+        limits.add(tariff.getMaxLimitAmount());
+        return limits;
+    }
+
+    // Pro každé obratové pásmo jeho dolní a horní hranice (horní je včetně) a obrat nad stropem
+    private static List<BigDecimal> turnoversCoveringAllBands() {
+        List<BigDecimal> turnovers = new ArrayList<>();
+        turnovers.add(BigDecimal.ONE);
+        for (BigDecimal threshold : tariff.getTurnoverThresholds()) {
+            turnovers.add(threshold);
+            turnovers.add(threshold.add(BigDecimal.ONE));
+        }
+        turnovers.add(tariff.getTurnoverCap());
+        return turnovers;
+    }
+}
@@ -0,0 +1,29 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.SweepRangeDto;
+import cz.michalmusil.dnoratingsystem.dto.SweepRequestDto;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PremiumSweepServiceTest {
+
+    // Mřížka se odmítne dřív, než se sáhne na sazebník nebo číselník činností
+    private final PremiumSweepService premiumSweepService = new PremiumSweepService(null, null, 100_000, 2_000);
+
+    @Test
+    void gridWhoseSizeOverflowsIntIsRejected() {
+        // 100 000 obratů x 3 výkonnosti x 100 000 provizí = 3e10 scénářů, v int by přetekly do záporu
+        SweepRequestDto request = new SweepRequestDto("62.01 Programování",
+                new SweepRangeDto(BigDecimal.ONE, BigDecimal.ONE, null),
+                new SweepRangeDto(BigDecimal.ZERO, new BigDecimal("99999"), BigDecimal.ONE),
+                null,
+                new SweepRangeDto(BigDecimal.ZERO, new BigDecimal("99.999"), new BigDecimal("0.001")));
+
+        assertThatThrownBy(() -> premiumSweepService.sweep(request))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage("Sweep grid (30000000000 cells) cannot exceed 100000 cells.");
+    }
+}
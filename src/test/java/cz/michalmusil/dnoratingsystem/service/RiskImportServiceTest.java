@@ -0,0 +1,70 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.ImportResultDto;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RiskImportServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private RiskImportService riskImportService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Test
+    void commissionOutsideColumnRangeIsRejected() throws IOException {
+        ImportResultDto result = importLines(List.of(
+                line("87700001", "500", "100"),
+                line("87700001", "500", "12.123456"),
+                line("87700001", "500", "99.99999")));
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(2);
+        assertThat(result.getErrors()).hasSize(2).allSatisfy(error -> assertThat(error).contains("brokerCommissionPercentage"));
+        assertThat(result.getErrors().get(0)).startsWith("Line 1: ");
+        assertThat(result.getErrors().get(1)).startsWith("Line 2: ");
+    }
+
+    @Test
+    void chunkRejectedByDatabaseIsReportedAndImportContinues() throws IOException {
+        List<String> lines = new ArrayList<>();
+        for (int i = 0; i < RiskImportService.CHUNK_SIZE + 1; i++) {
+            // Obrat na řádku 3 projde validací, ale přeteče sloupec NUMERIC(19,2)
+            lines.add(line("87700002", i == 2 ? "100000000000000000" : "500", "10"));
+        }
+
+        ImportResultDto result = importLines(lines);
+
+        assertThat(result.getImported()).isEqualTo(1);
+        assertThat(result.getFailed()).isEqualTo(RiskImportService.CHUNK_SIZE);
+        assertThat(result.getErrors()).singleElement().asString()
+                .startsWith("Line 1 - Line " + RiskImportService.CHUNK_SIZE + ": " + RiskImportService.CHUNK_SIZE + " items not saved: ");
+        assertThat(jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM risks r JOIN clients c ON c.id = r.client_id WHERE c.ico = '87700002'", Long.class))
+                .isEqualTo(1);
+    }
+
+    private ImportResultDto importLines(List<String> lines) throws IOException {
+        byte[] body = String.join("\n", lines).getBytes(StandardCharsets.UTF_8);
+        return riskImportService.importNdjson(new ByteArrayInputStream(body));
+    }
+
+    private static String line(String ico, String turnoverInThousands, String commission) {
+        return "{\"activity\":\"62.01 Programování\",\"turnoverInThousands\":" + turnoverInThousands
+                + ",\"limitInMillions\":10,\"financialPerformance\":\"AVERAGE\",\"brokerCommissionPercentage\":" + commission
+                + ",\"nettoPremium\":12345.67,\"tariffVersion\":\"import\",\"calculationDate\":\"2024-01-15T10:00:00\""
+                + ",\"client\":{\"name\":\"Import s.r.o.\",\"street\":\"Národní\",\"houseNumber\":\"1\",\"city\":\"Praha\""
+                + ",\"postcode\":\"11000\",\"state\":\"CZ\",\"ico\":\"" + ico + "\"}}";
+    }
+}
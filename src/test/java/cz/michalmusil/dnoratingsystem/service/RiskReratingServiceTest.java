@@ -0,0 +1,92 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import cz.michalmusil.dnoratingsystem.dto.ClientRequestDto;
+import cz.michalmusil.dnoratingsystem.dto.ReratingJobDto;
+import cz.michalmusil.dnoratingsystem.dto.RiskRequestDto;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = "rating.rerating.enabled=true")
+class RiskReratingServiceTest extends PostgresIntegrationTest {
+
+    @Autowired
+    private RiskReratingService riskReratingService;
+
+    @Autowired
+    private BatchRatingService batchRatingService;
+
+    @Autowired
+    private PremiumEngine premiumEngine;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @BeforeEach
+    void storeRisks() {
+        batchRatingService.calculateBatch(List.of(request("87650001", "10"), request("87650002", "20")));
+    }
+
+    @Test
+    void startedJobIsStoredAndCompleted() throws InterruptedException {
+        ReratingJobDto started = riskReratingService.start();
+
+        assertThat(started.getStatus()).isEqualTo("RUNNING");
+        assertThat(started.getTotalCount()).isGreaterThanOrEqualTo(2);
+        ReratingJobDto finished = awaitFinished(started.getId());
+        assertThat(finished.getStatus()).isEqualTo("COMPLETED");
+        assertThat(finished.getProcessedCount()).isEqualTo(started.getTotalCount());
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM rerating_results WHERE job_id = ?", Long.class,
+                started.getId())).isEqualTo(started.getTotalCount());
+    }
+
+    @Test
+    void staleJobIsClaimedAndResumed() throws InterruptedException {
+        // Úloha spadlé instance - běží, ale checkpoint se hodinu neposunul
+        Timestamp hourAgo = Timestamp.from(Instant.now().minus(Duration.ofHours(1)));
+        Long jobId = new TransactionTemplate(transactionManager).execute(status -> jdbcTemplate.queryForObject(
+                "INSERT INTO rerating_jobs (status, tariff_version, max_risk_id, total_count, created_at, updated_at) "
+                        + "SELECT 'RUNNING', ?, MAX(id), COUNT(*), ?, ? FROM risks RETURNING id",
+                Long.class, premiumEngine.getTariffVersion(), hourAgo, hourAgo));
+
+        riskReratingService.resumeStale();
+
+        ReratingJobDto finished = awaitFinished(jobId);
+        assertThat(finished.getStatus()).isEqualTo("COMPLETED");
+        assertThat(finished.getProcessedCount()).isEqualTo(finished.getTotalCount());
+    }
+
+    private ReratingJobDto awaitFinished(long jobId) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(30).toNanos();
+        ReratingJobDto job = riskReratingService.status(jobId).orElseThrow();
+        while ("RUNNING".equals(job.getStatus()) && System.nanoTime() < deadline) {
+            Thread.sleep(50);
+            job = riskReratingService.status(jobId).orElseThrow();
+        }
+        return job;
+    }
+
+    private static RiskRequestDto request(String ico, String limitInMillions) {
+        ClientRequestDto client = new ClientRequestDto("Přecenění " + ico + " s.r.o.", "Národní", "1", null,
+                "Praha", "11000", "CZ", ico);
+        return new RiskRequestDto("62.01 Programování", new BigDecimal("500000"), new BigDecimal(limitInMillions),
+                FinancialPerformance.AVERAGE, new BigDecimal("10"), client);
+    }
+}
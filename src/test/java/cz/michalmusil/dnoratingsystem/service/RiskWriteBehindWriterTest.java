@@ -0,0 +1,134 @@
+package cz.michalmusil.dnoratingsystem.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.model.Client;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.model.Risk;
+import cz.michalmusil.dnoratingsystem.repository.ClientRepository;
+import cz.michalmusil.dnoratingsystem.repository.RiskBatchRepository;
+import cz.michalmusil.dnoratingsystem.support.PostgresIntegrationTest;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@TestPropertySource(properties = {
+        "rating.write-behind.enabled=true",
+        "rating.write-behind.dead-letter-file=build/test-dead-letter/write-behind.jsonl"
+})
+class RiskWriteBehindWriterTest extends PostgresIntegrationTest {
+
+    private static final Path DEAD_LETTER_FILE = Path.of("build/test-dead-letter/write-behind.jsonl");
+
+    @Autowired
+    private RiskWriteBehindWriter riskWriteBehindWriter;
+
+    @Autowired
+    private RiskBatchRepository riskBatchRepository;
+
+    @Autowired
+    private ClientRepository clientRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Test
+    void poisonRowIsDeadLetteredAndRestOfBatchIsPersisted() throws Exception {
+        Files.deleteIfExists(DEAD_LETTER_FILE);
+        Client client = clientRepository.save(client("87680001"));
+        // Klient, který v databázi není - INSERT rizika porušuje cizí klíč
+        Client missingClient = client("87680002");
+        missingClient.setId(-1L);
+        long[] ids = riskBatchRepository.allocateIds(3);
+        List<Risk> risks = List.of(risk(ids[0], client), risk(ids[1], missingClient), risk(ids[2], client));
+
+        // Po commitu jedné transakce se rizika zařadí do fronty najednou, typicky do jedné dávky
+        new TransactionTemplate(transactionManager).executeWithoutResult(status -> risks.forEach(riskWriteBehindWriter::submit));
+
+        List<JsonNode> deadLetters = awaitDeadLetters(1);
+        assertThat(deadLetters).singleElement().satisfies(line -> {
+            assertThat(line.get("id").asLong()).isEqualTo(ids[1]);
+            assertThat(line.get("clientId").asLong()).isEqualTo(-1L);
+            assertThat(line.get("brokerCommissionPercentage").decimalValue()).isEqualByComparingTo("12.5");
+        });
+        assertThat(awaitStoredCount(ids, 2)).isEqualTo(2);
+        assertThat(jdbcTemplate.queryForObject("SELECT COUNT(*) FROM risks WHERE id = ?", Long.class, ids[1])).isZero();
+    }
+
+    private List<JsonNode> awaitDeadLetters(int expected) throws IOException, InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        List<JsonNode> lines = new ArrayList<>();
+        while (System.nanoTime() < deadline) {
+            lines.clear();
+            if (Files.exists(DEAD_LETTER_FILE)) {
+                for (String line : Files.readAllLines(DEAD_LETTER_FILE)) {
+                    lines.add(objectMapper.readTree(line));
+                }
+            }
+            if (lines.size() >= expected) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return lines;
+    }
+
+    private long awaitStoredCount(long[] ids, long expected) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(10).toNanos();
+        long count;
+        do {
+            count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM risks WHERE id IN (?, ?)", Long.class, ids[0], ids[2]);
+            if (count < expected) {
+                Thread.sleep(50);
+            }
+        } while (count < expected && System.nanoTime() < deadline);
+        return count;
+    }
+
+    private static Client client(String ico) {
+        Client client = new Client();
+        client.setName("Write-behind " + ico);
+        client.setStreet("Testovací");
+        client.setHouseNumber("1");
+        client.setCity("Praha");
+        client.setState("CZ");
+        client.setPostcode("11000");
+        client.setIco(ico);
+        return client;
+    }
+
+    private static Risk risk(long id, Client client) {
+        Risk risk = new Risk();
+        risk.setId(id);
+        risk.setClient(client);
+        risk.setActivity("IT");
+        risk.setTurnover(new BigDecimal("1000000"));
+        risk.setLimitAmount(new BigDecimal("5000000"));
+        risk.setFinancialPerformance(FinancialPerformance.values()[0]);
+        risk.setBrokerCommissionPercentage(new BigDecimal("12.5"));
+        risk.setNettoPremium(new BigDecimal("10000"));
+        risk.setTariffVersion("test");
+        risk.setCalculationDate(LocalDateTime.now());
+        return risk;
+    }
+}
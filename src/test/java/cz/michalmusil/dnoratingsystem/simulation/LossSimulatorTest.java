@@ -0,0 +1,78 @@
+package cz.michalmusil.dnoratingsystem.simulation;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import cz.michalmusil.dnoratingsystem.model.FinancialPerformance;
+import cz.michalmusil.dnoratingsystem.tariff.CompiledTariff;
+import cz.michalmusil.dnoratingsystem.tariff.TariffRegistry;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ClassPathResource;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.SplittableRandom;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class LossSimulatorTest {
+
+    private static final int TRIALS = 10 * LossSimulator.TRIALS_PER_BLOCK + 100;
+
+    private static PortfolioArrays portfolio;
+
+    @BeforeAll
+    static void buildPortfolio() {
+        CompiledTariff tariff = new TariffRegistry(new ClassPathResource("tariff/tariff.json"), new ObjectMapper()).current();
+        PortfolioArrays.Builder builder = PortfolioArrays.builder(tariff, new LossModel(0.05, 0.3, 1.0));
+        FinancialPerformance[] performances = FinancialPerformance.values();
+        for (int i = 0; i < 500; i++) {
+            builder.add(BigDecimal.valueOf((i % 20 + 1) * 1_000_000L), BigDecimal.valueOf((i % 50 + 1) * 2_000_000L),
+                    performances[i % performances.length]);
+        }
+        portfolio = builder.build();
+    }
+
+    @Test
+    void resultsDoNotDependOnParallelism() {
+        double[] sequential = simulateOn(1);
+        double[] parallel = simulateOn(4);
+
+        assertThat(parallel).containsExactly(sequential);
+        assertThat(Arrays.stream(sequential).sum()).isPositive();
+    }
+
+    @Test
+    void poissonSamplerMatchesMeanAndVariance() {
+        int samples = 200_000;
+        for (double lambda : new double[]{0.5, 3, 9.9, 10, 50, 1_000, 100_000}) {
+            PoissonSampler sampler = new PoissonSampler(lambda);
+            SplittableRandom random = new SplittableRandom(42);
+            double sum = 0;
+            double sumOfSquares = 0;
+            for (int i = 0; i < samples; i++) {
+                int k = sampler.sample(random);
+                sum += k;
+                sumOfSquares += (double) k * k;
+            }
+            double mean = sum / samples;
+            double variance = (sumOfSquares - samples * mean * mean) / (samples - 1);
+
+            // Pět směrodatných chyb výběrového průměru a rozptylu (pro Poisson Var(s^2) ~ (lambda + 2 lambda^2) / n)
+            assertThat(mean).as("mean for lambda %s", lambda)
+                    .isCloseTo(lambda, within(5 * Math.sqrt(lambda / samples)));
+            assertThat(variance).as("variance for lambda %s", lambda)
+                    .isCloseTo(lambda, within(5 * Math.sqrt((lambda + 2 * lambda * lambda) / samples)));
+        }
+    }
+
+    private static double[] simulateOn(int parallelism) {
+        ForkJoinPool pool = new ForkJoinPool(parallelism);
+        try {
+            return LossSimulator.simulate(portfolio, TRIALS, 20240601L, pool);
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,30 @@
+-- Schéma vytvořené Hibernate (ddl-auto=update) z entit výchozí verze aplikace (commit 339cc8b),
+-- tedy stav databáze před zavedením Flyway. Použito v BaselineMigrationTest.
+create table clients (
+    id bigint generated by default as identity,
+    city varchar(255) not null,
+    house_number varchar(255) not null,
+    ico varchar(255) not null unique,
+    name varchar(255) not null,
+    orientation_number varchar(255),
+    postcode varchar(255) not null,
+    state varchar(255) not null,
+    street varchar(255) not null,
+    primary key (id)
+);
+create table risks (
+    broker_commission_percentage numeric(7,5) not null,
+    limit_amount numeric(19,2) not null,
+    netto_premium numeric(19,2) not null,
+    turnover numeric(19,2) not null,
+    calculation_date timestamp(6) not null,
+    client_id bigint not null,
+    id bigint generated by default as identity,
+    activity varchar(255) not null,
+    financial_performance varchar(255) not null check (financial_performance in ('BELOW_AVERAGE','AVERAGE','ABOVE_AVERAGE')),
+    primary key (id)
+);
+alter table if exists risks
+   add constraint FKe4u2ja82iho090posnyiim4hr
+   foreign key (client_id)
+   references clients;